@@ -0,0 +1,89 @@
+package de.bfw.cbo.myquizapp;
+
+import android.os.Parcel;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Question-Parcel hin und zurück. Parcel gibt es nur auf dem Gerät, deshalb
+ * steht dieser Benchmark nicht im Modul :benchmark. Die Zeit pro Frage steht im Log.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuestionParcelLoadTest {
+
+    private static final String TAG = "QuestionParcelLoadTest";
+
+    private static final int QUESTIONS = 1000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 100;
+    // großzügig, auch langsame Emulatoren schaffen deutlich mehr
+    private static final int MIN_ROUND_TRIPS_PER_SECOND = 50000;
+
+    @Test
+    public void roundTrip_keepsFieldsAndSustainsThroughput() {
+        List<Question> questions = new ArrayList<>(QUESTIONS);
+        for (int i = 1; i <= QUESTIONS; i++) {
+            Question question = new Question("Frage " + i, "Antwort A", "Antwort B", "Antwort C",
+                    i % 3 + 1, Question.getAllDifficultyLevels()[i % 3], Category.MATH);
+            question.setId(i);
+            questions.add(question);
+        }
+
+        Question copy = roundTrip(questions.get(41));
+        assertEquals(42, copy.getId());
+        assertEquals("Frage 42", copy.getQuestion());
+        assertEquals("Antwort C", copy.getOption3());
+        assertEquals(questions.get(41).getAnswerNr(), copy.getAnswerNr());
+        assertEquals(questions.get(41).getDifficultyLevel(), copy.getDifficultyLevel());
+        assertEquals(Category.MATH, copy.getCategoryID());
+
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            roundTripAll(questions);
+        }
+        long start = System.nanoTime();
+        int checksum = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            checksum += roundTripAll(questions);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        double nanosPerQuestion = (double) elapsedNanos / (ROUNDS * QUESTIONS);
+        Log.i(TAG, String.format("%.0f ns pro Frage (Parcel hin und zurück)", nanosPerQuestion));
+        assertTrue(checksum > 0);
+        assertTrue("nur " + (int) (1e9 / nanosPerQuestion) + " Fragen/s",
+                1e9 / nanosPerQuestion > MIN_ROUND_TRIPS_PER_SECOND);
+    }
+
+    // wie beim Speichern einer Liste in onSaveInstanceState: ein Parcel für alle
+    private static int roundTripAll(List<Question> questions) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeTypedList(questions);
+            parcel.setDataPosition(0);
+            List<Question> copies = parcel.createTypedArrayList(Question.CREATOR);
+            return copies.get(copies.size() - 1).getId();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static Question roundTrip(Question question) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            question.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return Question.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
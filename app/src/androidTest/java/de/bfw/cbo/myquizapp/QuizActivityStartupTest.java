@@ -0,0 +1,103 @@
+package de.bfw.cbo.myquizapp;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.ViewTreeObserver;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.rule.ActivityTestRule;
+import androidx.test.runner.lifecycle.ActivityLifecycleCallback;
+import androidx.test.runner.lifecycle.ActivityLifecycleMonitorRegistry;
+import androidx.test.runner.lifecycle.Stage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Misst die Zeit bis zum ersten Frame von QuizActivity.
+ * Da die Fragen im Hintergrund geladen werden, darf die DB hier nicht mitzählen.
+ * Kalter Start auf einer eigenen, noch nicht angelegten DB: die der App
+ * bleibt unberührt und ist evtl. schon offen.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuizActivityStartupTest {
+
+    private static final String TAG = "QuizActivityStartupTest";
+    private static final String DATABASE_NAME = "QuizActivityStartupTest.db";
+    private static final long MAX_FIRST_FRAME_MILLIS = 1000;
+
+    private final Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    @Rule
+    public ActivityTestRule<QuizActivity> activityRule =
+            new ActivityTestRule<>(QuizActivity.class, false, false);
+
+    @Before
+    public void useNewDatabase() {
+        appContext.deleteDatabase(DATABASE_NAME);
+        QuizRepository.useDatabaseForTests(appContext, DATABASE_NAME);
+    }
+
+    @After
+    public void restoreAppDatabase() {
+        activityRule.finishActivity();
+        QuizRepository.useDatabaseForTests(appContext, null);
+        appContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void coldStart_firstFrameWithoutWaitingForDb() throws InterruptedException {
+        final CountDownLatch firstFrame = new CountDownLatch(1);
+        final long[] firstFrameAt = new long[1];
+        // vor dem ersten Zeichnen anmelden: CREATED kommt direkt nach onCreate()
+        ActivityLifecycleCallback callback = new ActivityLifecycleCallback() {
+            @Override
+            public void onActivityLifecycleChanged(Activity activity, Stage stage) {
+                if (stage != Stage.CREATED || !(activity instanceof QuizActivity)) {
+                    return;
+                }
+                activity.getWindow().getDecorView().getViewTreeObserver().addOnDrawListener(
+                        new ViewTreeObserver.OnDrawListener() {
+                            @Override
+                            public void onDraw() {
+                                if (firstFrame.getCount() > 0) {
+                                    firstFrameAt[0] = SystemClock.elapsedRealtime();
+                                    firstFrame.countDown();
+                                }
+                            }
+                        });
+            }
+        };
+        ActivityLifecycleMonitorRegistry.getInstance().addLifecycleCallback(callback);
+
+        Intent intent = new Intent();
+        intent.putExtra(StartScreenActivity.EXTRA_CATEGORY_ID, Category.MATH);
+        intent.putExtra(StartScreenActivity.EXTRA_CATEGORY_NAME, "Mathe");
+        intent.putExtra(StartScreenActivity.EXTRA_DIFFICULTY, Question.DIFFICULTY_EASY);
+
+        long start = SystemClock.elapsedRealtime();
+        try {
+            activityRule.launchActivity(intent);
+            assertTrue("kein Frame gezeichnet", firstFrame.await(10, TimeUnit.SECONDS));
+        } finally {
+            ActivityLifecycleMonitorRegistry.getInstance().removeLifecycleCallback(callback);
+        }
+        long firstFrameMillis = firstFrameAt[0] - start;
+
+        Log.i(TAG, "time to first frame: " + firstFrameMillis + " ms");
+        assertTrue("time to first frame " + firstFrameMillis + " ms",
+                firstFrameMillis < MAX_FIRST_FRAME_MILLIS);
+    }
+}
@@ -0,0 +1,131 @@
+package de.bfw.cbo.myquizapp;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Leser dürfen während eines Massen-Imports nicht warten müssen (WAL).
+ * p50/p99 der Lese-Latenz gehen als Status an das Instrumentation-Ergebnis
+ * und ins Log, ohne feste Grenze: die hängt zu sehr vom Gerät ab.
+ * Läuft auf einer eigenen DB, der Import würde sonst Zähler, Antwort-Texte
+ * und ID-Zähler der App verändern.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuizDbHelperConcurrencyTest {
+
+    private static final String TAG = "QuizDbHelperConcurrency";
+
+    private static final int IMPORT_QUESTIONS = 20000;
+    private static final int READERS = 3;
+    private static final String DATABASE_NAME = "QuizDbHelperConcurrencyTest.db";
+    private static final String TEXT_PREFIX = "Lasttest ";
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    private final Context appContext = instrumentation.getTargetContext();
+    private final QuizDbHelper dbHelper = new QuizDbHelper(appContext, DATABASE_NAME);
+
+    @After
+    public void deleteDatabase() {
+        dbHelper.close();
+        appContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void readersDuringImport_reportLatency() throws Exception {
+        final List<Question> questions = new ArrayList<>(IMPORT_QUESTIONS);
+        for (int i = 0; i < IMPORT_QUESTIONS; i++) {
+            questions.add(new Question(TEXT_PREFIX + i, "A", "B", "C", 1,
+                    Question.getAllDifficultyLevels()[i % 3], Category.MATH));
+        }
+
+        final AtomicBoolean importRunning = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch readersDone = new CountDownLatch(READERS);
+        final long[][] latencies = new long[READERS][];
+        final int[] readCounts = new int[READERS];
+
+        for (int r = 0; r < READERS; r++) {
+            final int reader = r;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long[] nanos = new long[1024];
+                    int count = 0;
+                    try {
+                        while (importRunning.get()) {
+                            long start = System.nanoTime();
+                            // ohne Cache: IDs und ein paar Fragen direkt aus der DB
+                            int[] ids = dbHelper.getQuestionIds(Category.MATH, Question.DIFFICULTY_EASY);
+                            dbHelper.getQuestionsByIds(ids, 0, Math.min(ids.length, 20));
+                            if (count == nanos.length) {
+                                nanos = Arrays.copyOf(nanos, count * 2);
+                            }
+                            nanos[count++] = System.nanoTime() - start;
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        latencies[reader] = Arrays.copyOf(nanos, count);
+                        readCounts[reader] = count;
+                        readersDone.countDown();
+                    }
+                }
+            }, TAG + "-reader-" + r).start();
+        }
+
+        long importStart = System.nanoTime();
+        try {
+            assertEquals(IMPORT_QUESTIONS, dbHelper.addQuestions(questions, 0, null));
+        } finally {
+            importRunning.set(false);
+        }
+        long importMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - importStart);
+        assertTrue(readersDone.await(30, TimeUnit.SECONDS));
+        if (failure.get() != null) {
+            throw new AssertionError("Leser fehlgeschlagen", failure.get());
+        }
+
+        int total = 0;
+        for (int count : readCounts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (long[] nanos : latencies) {
+            System.arraycopy(nanos, 0, all, pos, nanos.length);
+            pos += nanos.length;
+        }
+        Arrays.sort(all);
+        assertTrue("keine Lesezugriffe während des Imports", total > 0);
+
+        long p50 = TimeUnit.NANOSECONDS.toMillis(all[total / 2]);
+        long p99 = TimeUnit.NANOSECONDS.toMillis(all[Math.min(total - 1, total * 99 / 100)]);
+        Log.i(TAG, "Import " + IMPORT_QUESTIONS + " Fragen in " + importMillis + " ms, " +
+                total + " Lesezugriffe, p50 " + p50 + " ms, p99 " + p99 + " ms");
+        Bundle results = new Bundle();
+        results.putLong("import_ms", importMillis);
+        results.putInt("reads", total);
+        results.putLong("read_p50_ms", p50);
+        results.putLong("read_p99_ms", p99);
+        instrumentation.sendStatus(0, results);
+    }
+}
@@ -0,0 +1,216 @@
+package de.bfw.cbo.myquizapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.List;
+
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+import static org.junit.Assert.*;
+
+/**
+ * Changesets vom Inhalts-Server: Anlegen, Ändern und Löschen über die IDs
+ * des Servers, Zähler und Suche ziehen mit, ein Fehler rollt alles zurück.
+ * Läuft auf einer eigenen DB: Server-IDs und Inhaltsstand würden sonst in
+ * der DB der App zurückbleiben (sqlite_sequence).
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuizDbHelperContentSyncTest {
+
+    private static final String DATABASE_NAME = "QuizDbHelperContentSyncTest.db";
+    private static final int CATEGORY_ID = 9999;
+    private static final int FIRST_QUESTION_ID = 900000;
+    private static final int QUESTIONS = 50;
+
+    private final Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    private final QuizDbHelper dbHelper = new QuizDbHelper(appContext, DATABASE_NAME);
+
+    // neue DB, noch nie synchronisiert
+    private static final long CONTENT_VERSION = 0;
+
+    @After
+    public void deleteDatabase() {
+        dbHelper.close();
+        appContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    private static Question question(int nr, String text) {
+        Question question = new Question(text, "Wahr", "Falsch", "Servertest " + nr, 1,
+                Question.DIFFICULTY_MEDIUM, CATEGORY_ID);
+        question.setId(FIRST_QUESTION_ID + nr);
+        return question;
+    }
+
+    private int countInCategory() {
+        for (Category category : dbHelper.getAllCategories()) {
+            if (category.getId() == CATEGORY_ID) {
+                return category.getQuestionCount(null);
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    public void changesets_insertUpdateDeleteByServerId() {
+        Category category = new Category("Servertest");
+        category.setId(CATEGORY_ID);
+        ContentChangeset initial = new ContentChangeset(CONTENT_VERSION, CONTENT_VERSION + 1)
+                .putCategory(category);
+        for (int i = 0; i < QUESTIONS; i++) {
+            initial.putQuestion(question(i, "Servertest Frage " + i));
+        }
+        dbHelper.applyChangeset(initial, "\"a\"");
+
+        assertEquals(CONTENT_VERSION + 1, dbHelper.getContentVersion());
+        assertEquals("\"a\"", dbHelper.getContentEtag());
+        assertEquals(QUESTIONS, countInCategory());
+
+        dbHelper.applyChangeset(new ContentChangeset(CONTENT_VERSION + 1, CONTENT_VERSION + 2)
+                .putQuestion(question(3, "Servertest korrigiert"))
+                .deleteQuestion(FIRST_QUESTION_ID + 4), "\"b\"");
+
+        assertEquals(QUESTIONS - 1, countInCategory());
+        List<Question> found = dbHelper.searchQuestions("Servertest korrigiert", 10, 0);
+        assertEquals(1, found.size());
+        assertEquals(FIRST_QUESTION_ID + 3, found.get(0).getId());
+        assertTrue(dbHelper.getQuestionsByIds(new int[]{FIRST_QUESTION_ID + 4}, 0, 1).isEmpty());
+    }
+
+    @Test
+    public void changeset_failureRollsBackEverything() {
+        Category category = new Category("Servertest");
+        category.setId(CATEGORY_ID);
+        dbHelper.applyChangeset(new ContentChangeset(CONTENT_VERSION, CONTENT_VERSION + 1)
+                .putCategory(category)
+                .putQuestion(question(0, "Servertest Frage")), null);
+
+        // zweite Frage verweist auf eine fehlende Kategorie, Foreign Key schlägt fehl
+        Question orphan = question(1, "Servertest ohne Kategorie");
+        orphan.setCategoryID(CATEGORY_ID + 1);
+        try {
+            dbHelper.applyChangeset(new ContentChangeset(CONTENT_VERSION + 1, CONTENT_VERSION + 2)
+                    .deleteQuestion(FIRST_QUESTION_ID)
+                    .putQuestion(orphan), null);
+            fail();
+        } catch (RuntimeException expected) {
+            // erwartet
+        }
+
+        assertEquals(CONTENT_VERSION + 1, dbHelper.getContentVersion());
+        assertEquals(1, countInCategory());
+    }
+
+    // Server-IDs verschieben den AUTOINCREMENT-Zähler nicht, lokale Fragen liegen darüber
+    @Test
+    public void localQuestions_getIdsAboveServerRange() {
+        Category category = new Category("Servertest");
+        category.setId(CATEGORY_ID);
+        dbHelper.applyChangeset(new ContentChangeset(CONTENT_VERSION, CONTENT_VERSION + 1)
+                .putCategory(category)
+                .putQuestion(question(0, "Servertest Frage")), null);
+        dbHelper.addQuestion(new Question("Servertest lokal", "Wahr", "Falsch", null, 1,
+                Question.DIFFICULTY_MEDIUM, CATEGORY_ID));
+
+        List<Question> found = dbHelper.searchQuestions("Servertest lokal", 10, 0);
+        assertEquals(1, found.size());
+        assertTrue(found.get(0).getId() >= QuestionsTable.FIRST_LOCAL_ID);
+    }
+
+    // ein Changeset schaltet das Fragen-Pack ab, der nächste useQuestionPack() exportiert neu
+    @Test
+    public void questionPack_reexportedAfterChangeset() throws Exception {
+        Category category = new Category("Servertest");
+        category.setId(CATEGORY_ID);
+        dbHelper.applyChangeset(new ContentChangeset(CONTENT_VERSION, CONTENT_VERSION + 1)
+                .putCategory(category)
+                .putQuestion(question(0, "Servertest Frage")), null);
+        File dir = new File(appContext.getCacheDir(), "QuizDbHelperContentSyncTest_pack");
+        try {
+            assertTrue(dbHelper.useQuestionPack(dir));
+            assertEquals(1, dbHelper.getQuestions(CATEGORY_ID, Question.DIFFICULTY_MEDIUM).size());
+
+            dbHelper.applyChangeset(new ContentChangeset(CONTENT_VERSION + 1, CONTENT_VERSION + 2)
+                    .putQuestion(question(1, "Servertest zweite Frage")), null);
+            assertEquals(2, dbHelper.getQuestions(CATEGORY_ID, Question.DIFFICULTY_MEDIUM).size());
+
+            assertTrue(dbHelper.useQuestionPack(dir));
+            assertEquals(2, dbHelper.getQuestions(CATEGORY_ID, Question.DIFFICULTY_MEDIUM).size());
+            // die Datei zum alten Stand ist gelöscht
+            assertEquals(1, dir.list().length);
+        } finally {
+            dbHelper.setQuestionPack(null);
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    // Migration auf Version 15 darf einen höheren Zähler nicht zurücksetzen
+    @Test
+    public void migration_keepsHigherSequenceAsInteger() {
+        long highSequence = QuestionsTable.FIRST_LOCAL_ID + 100L;
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        assertSequence(db, QuestionsTable.FIRST_LOCAL_ID - 1 + countQuestions(db));
+        db.execSQL("UPDATE sqlite_sequence SET seq = " + highSequence + " WHERE name = ?",
+                new String[]{QuestionsTable.TABLE_NAME});
+        db.setVersion(14);
+        dbHelper.close();
+
+        QuizDbHelper reopened = new QuizDbHelper(appContext, DATABASE_NAME);
+        try {
+            assertSequence(reopened.getWritableDatabase(), highSequence);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static long countQuestions(SQLiteDatabase db) {
+        return DatabaseUtils.queryNumEntries(db, QuestionsTable.TABLE_NAME);
+    }
+
+    private static void assertSequence(SQLiteDatabase db, long expected) {
+        Cursor c = db.rawQuery("SELECT seq, typeof(seq) FROM sqlite_sequence WHERE name = ?",
+                new String[]{QuestionsTable.TABLE_NAME});
+        try {
+            assertTrue(c.moveToFirst());
+            assertEquals(expected, c.getLong(0));
+            assertEquals("integer", c.getString(1));
+        } finally {
+            c.close();
+        }
+    }
+
+    @Test
+    public void changeset_localIdRejected() {
+        Question local = question(0, "Servertest zu hohe ID");
+        local.setId(QuestionsTable.FIRST_LOCAL_ID);
+        try {
+            dbHelper.applyChangeset(new ContentChangeset(CONTENT_VERSION, CONTENT_VERSION + 1)
+                    .putQuestion(local), null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // erwartet
+        }
+        assertEquals(CONTENT_VERSION, dbHelper.getContentVersion());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void changeset_wrongBaseVersionRejected() {
+        dbHelper.applyChangeset(new ContentChangeset(CONTENT_VERSION + 1, CONTENT_VERSION + 2), null);
+    }
+}
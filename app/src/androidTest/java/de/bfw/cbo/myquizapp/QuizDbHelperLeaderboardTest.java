@@ -0,0 +1,146 @@
+package de.bfw.cbo.myquizapp;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Random;
+
+import de.bfw.cbo.myquizapp.QuizContract.LeaderboardScoresTable;
+import de.bfw.cbo.myquizapp.QuizContract.LeaderboardTable;
+import de.bfw.cbo.myquizapp.QuizContract.SessionsTable;
+
+import static org.junit.Assert.*;
+
+/**
+ * Top K und Rang aus den Zählern müssen mit dem übereinstimmen, was man
+ * durch Abzählen aller Durchgänge erhält.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuizDbHelperLeaderboardTest {
+
+    // eigene Bestenliste, kollidiert nicht mit echten Kategorien
+    private static final int CATEGORY_ID = 9999;
+    private static final String DIFFICULTY = Question.DIFFICULTY_MEDIUM;
+    private static final int RUNS = 500;
+    private static final int MAX_SCORE = 20;
+
+    // für die Migration eine eigene DB, die der App bleibt auf dem aktuellen Stand
+    private static final String MIGRATION_DATABASE_NAME = "QuizDbHelperLeaderboardTest.db";
+
+    private final Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    private final QuizDbHelper dbHelper = QuizDbHelper.getInstance(appContext);
+
+    @After
+    public void deleteRuns() {
+        dbHelper.getWritableDatabase().delete(LeaderboardTable.TABLE_NAME,
+                LeaderboardTable.COLUMN_CATEGORY_ID + " = ?", new String[]{String.valueOf(CATEGORY_ID)});
+    }
+
+    @Test
+    public void topScoresAndRank_matchCountedRuns() {
+        Random random = new Random(1);
+        int[] runsPerScore = new int[MAX_SCORE + 1];
+        LeaderboardRank last = null;
+        for (int i = 0; i < RUNS; i++) {
+            int score = random.nextInt(MAX_SCORE + 1);
+            runsPerScore[score]++;
+            last = dbHelper.addLeaderboardEntry(new LeaderboardEntry("Spieler " + (i % 3),
+                    CATEGORY_ID, DIFFICULTY, score, MAX_SCORE, 1000L + i));
+        }
+        assertEquals(RUNS, last.getRunCount());
+
+        List<LeaderboardEntry> top = dbHelper.getTopScores(CATEGORY_ID, DIFFICULTY, 10);
+        assertEquals(10, top.size());
+        for (int i = 1; i < top.size(); i++) {
+            LeaderboardEntry before = top.get(i - 1);
+            LeaderboardEntry entry = top.get(i);
+            assertTrue(before.getScore() > entry.getScore() || (before.getScore() == entry.getScore()
+                    && before.getFinishedAt() <= entry.getFinishedAt()));
+        }
+
+        int below = 0;
+        for (int score = 0; score <= MAX_SCORE; score++) {
+            LeaderboardRank rank = dbHelper.getLeaderboardRank(CATEGORY_ID, DIFFICULTY, score);
+            assertEquals(below, rank.getRunsBelow());
+            assertEquals(runsPerScore[score], rank.getRunsEqual());
+            assertEquals(RUNS, rank.getRunCount());
+            below += runsPerScore[score];
+        }
+        assertEquals(1, dbHelper.getLeaderboardRank(CATEGORY_ID, DIFFICULTY, top.get(0).getScore()).getRank());
+
+        List<LeaderboardEntry> playerTop = dbHelper.getPlayerTopScores("Spieler 1", 5);
+        assertEquals(5, playerTop.size());
+        assertEquals("Spieler 1", playerTop.get(4).getPlayer());
+    }
+
+    // Löschen muss die Zähler per Trigger wieder abziehen
+    @Test
+    public void deleteRuns_updatesCounts() {
+        for (int i = 0; i < 10; i++) {
+            dbHelper.addLeaderboardEntry(new LeaderboardEntry("Spieler", CATEGORY_ID, DIFFICULTY,
+                    i % 4, 4, i));
+        }
+        deleteRuns();
+
+        assertEquals(0, dbHelper.getLeaderboardRank(CATEGORY_ID, DIFFICULTY, 2).getRunCount());
+        assertTrue(dbHelper.getTopScores(CATEGORY_ID, DIFFICULTY, 10).isEmpty());
+        assertEquals(0, DatabaseUtils.queryNumEntries(
+                dbHelper.getReadableDatabase(), LeaderboardScoresTable.TABLE_NAME,
+                LeaderboardScoresTable.COLUMN_CATEGORY_ID + " = ? AND " +
+                        LeaderboardScoresTable.COLUMN_RUN_COUNT + " > 0",
+                new String[]{String.valueOf(CATEGORY_ID)}));
+    }
+
+    // bis Version 15 standen in Bestenliste und Durchgängen die Bezeichnungen
+    @Test
+    public void migration_storesDifficultyCodes() {
+        appContext.deleteDatabase(MIGRATION_DATABASE_NAME);
+        QuizDbHelper old = new QuizDbHelper(appContext, MIGRATION_DATABASE_NAME);
+        SQLiteDatabase db = old.getWritableDatabase();
+        db.execSQL("DROP TABLE " + LeaderboardScoresTable.TABLE_NAME);
+        db.execSQL("DROP TABLE " + LeaderboardTable.TABLE_NAME);
+        db.execSQL("DROP TABLE " + SessionsTable.TABLE_NAME);
+        db.execSQL("CREATE TABLE " + LeaderboardTable.TABLE_NAME + " (_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                " player TEXT NOT NULL, category_id INTEGER NOT NULL, difficulty TEXT NOT NULL," +
+                " score INTEGER NOT NULL, question_count INTEGER NOT NULL, finished_at INTEGER NOT NULL)");
+        db.execSQL("INSERT INTO " + LeaderboardTable.TABLE_NAME + " VALUES" +
+                " (1, 'A', 1, 'Schwer', 5, 10, 1), (2, 'B', 1, 'Adaptiv', 7, 10, 2), (3, 'C', 1, '', 3, 10, 3)");
+        db.execSQL("CREATE TABLE " + SessionsTable.TABLE_NAME + " (_id INTEGER PRIMARY KEY," +
+                " category_id INTEGER, category_name TEXT, difficulty TEXT, question_ids BLOB," +
+                " started_at INTEGER, finished_at INTEGER, score INTEGER)");
+        db.execSQL("INSERT INTO " + SessionsTable.TABLE_NAME +
+                " VALUES (1, 1, 'Mathe', 'Wiederholung', NULL, 1, NULL, 0)");
+        db.setVersion(15);
+        old.close();
+
+        QuizDbHelper migrated = new QuizDbHelper(appContext, MIGRATION_DATABASE_NAME);
+        try {
+            List<LeaderboardEntry> hard = migrated.getTopScores(1, Question.DIFFICULTY_HARD, 10);
+            assertEquals(1, hard.size());
+            assertEquals("A", hard.get(0).getPlayer());
+            assertEquals(Question.DIFFICULTY_HARD, hard.get(0).getDifficulty());
+            assertEquals(1, migrated.getLeaderboardRank(1, Question.DIFFICULTY_ADAPTIVE, 7).getRunCount());
+            assertEquals("", migrated.getTopScores(1, null, 10).get(0).getDifficulty());
+            assertEquals(Question.DIFFICULTY_REVIEW, migrated.getUnfinishedSession().getDifficulty());
+
+            SQLiteDatabase migratedDb = migrated.getReadableDatabase();
+            for (String table : new String[]{LeaderboardTable.TABLE_NAME,
+                    LeaderboardScoresTable.TABLE_NAME, SessionsTable.TABLE_NAME}) {
+                assertEquals(table, 0, DatabaseUtils.queryNumEntries(migratedDb, table,
+                        "typeof(difficulty) != 'integer'"));
+            }
+        } finally {
+            migrated.close();
+            appContext.deleteDatabase(MIGRATION_DATABASE_NAME);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package de.bfw.cbo.myquizapp;
+
+import android.database.DatabaseUtils;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import de.bfw.cbo.myquizapp.QuizContract.OptionStringsTable;
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+import static org.junit.Assert.*;
+
+/**
+ * Gleiche Antwort-Texte landen nur einmal in quiz_option_strings, beim Lesen
+ * und in der Volltextsuche kommen trotzdem die Texte heraus.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuizDbHelperOptionStringsTest {
+
+    private static final int QUESTIONS = 300;
+    private static final String TEXT_PREFIX = "Lasttest ";
+    private static final String TRUE = TEXT_PREFIX + "Wahr";
+    private static final String FALSE = TEXT_PREFIX + "Falsch";
+
+    private final QuizDbHelper dbHelper = QuizDbHelper.getInstance(
+            InstrumentationRegistry.getInstrumentation().getTargetContext());
+
+    // danach auch die Antwort-Texte, auf die keine Frage mehr zeigt
+    @After
+    public void deleteImportedQuestions() {
+        deleteTestQuestions();
+        dbHelper.collectOptionStrings();
+    }
+
+    private void deleteTestQuestions() {
+        dbHelper.getWritableDatabase().delete(QuestionsTable.TABLE_NAME,
+                QuestionsTable.COLUMN_QUESTION + " LIKE ?", new String[]{TEXT_PREFIX + "%"});
+        dbHelper.invalidateQuestions();
+    }
+
+    private long countTestOptions() {
+        return DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                OptionStringsTable.TABLE_NAME, OptionStringsTable.COLUMN_TEXT + " LIKE ?",
+                new String[]{TEXT_PREFIX + "%"});
+    }
+
+    @Test
+    public void repeatedOptions_storedOnceAndReadBack() {
+        List<Question> questions = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            // letzte Frage ohne dritte Antwort
+            String unique = i == QUESTIONS - 1 ? null : TEXT_PREFIX + "Antwort " + i;
+            questions.add(new Question(TEXT_PREFIX + "Frage " + i, TRUE, FALSE, unique,
+                    i % 2 + 1, Question.DIFFICULTY_HARD, Category.MATH));
+        }
+        assertEquals(QUESTIONS, dbHelper.addQuestions(questions, 0, null));
+
+        // Wahr, Falsch und eine eigene Antwort pro Frage außer der letzten
+        assertEquals(QUESTIONS + 1, countTestOptions());
+
+        HashMap<String, Question> byText = new HashMap<>();
+        for (Question question : dbHelper.getQuestions(Category.MATH, Question.DIFFICULTY_HARD)) {
+            byText.put(question.getQuestion(), question);
+        }
+        for (Question expected : questions) {
+            Question actual = byText.get(expected.getQuestion());
+            assertNotNull(expected.getQuestion(), actual);
+            assertEquals(expected.getOption1(), actual.getOption1());
+            assertEquals(expected.getOption2(), actual.getOption2());
+            assertEquals(expected.getOption3(), actual.getOption3());
+            assertEquals(expected.getAnswerNr(), actual.getAnswerNr());
+        }
+
+        List<Question> found = dbHelper.searchQuestions(TEXT_PREFIX + "Antwort 42", 10, 0);
+        assertFalse(found.isEmpty());
+        assertEquals(TEXT_PREFIX + "Antwort 42", found.get(0).getOption3());
+    }
+
+    // gelöschte Fragen lassen ihre Texte zurück, bis aufgeräumt wird; danach gibt es für den Text eine neue ID
+    @Test
+    public void collectOptionStrings_removesOrphansOnly() {
+        List<Question> questions = new ArrayList<>();
+        questions.add(new Question(TEXT_PREFIX + "Bleibt", TRUE, FALSE, null,
+                1, Question.DIFFICULTY_HARD, Category.MATH));
+        questions.add(new Question(TEXT_PREFIX + "Weg", TRUE, TEXT_PREFIX + "Nur hier", null,
+                1, Question.DIFFICULTY_HARD, Category.MATH));
+        dbHelper.addQuestions(questions, 0, null);
+        assertEquals(3, countTestOptions());
+
+        dbHelper.getWritableDatabase().delete(QuestionsTable.TABLE_NAME,
+                QuestionsTable.COLUMN_QUESTION + " = ?", new String[]{TEXT_PREFIX + "Weg"});
+        assertEquals(1, dbHelper.collectOptionStrings());
+        assertEquals(2, countTestOptions());
+
+        dbHelper.addQuestion(new Question(TEXT_PREFIX + "Neu", TEXT_PREFIX + "Nur hier", FALSE, null,
+                1, Question.DIFFICULTY_HARD, Category.MATH));
+        HashMap<String, Question> byText = new HashMap<>();
+        for (Question question : dbHelper.getQuestions(Category.MATH, Question.DIFFICULTY_HARD)) {
+            byText.put(question.getQuestion(), question);
+        }
+        assertEquals(TRUE, byText.get(TEXT_PREFIX + "Bleibt").getOption1());
+        assertEquals(FALSE, byText.get(TEXT_PREFIX + "Bleibt").getOption2());
+        assertEquals(TEXT_PREFIX + "Nur hier", byText.get(TEXT_PREFIX + "Neu").getOption1());
+    }
+}
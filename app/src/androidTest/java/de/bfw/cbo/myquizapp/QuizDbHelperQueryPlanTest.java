@@ -0,0 +1,121 @@
+package de.bfw.cbo.myquizapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import de.bfw.cbo.myquizapp.QuizContract.LeaderboardTable;
+import de.bfw.cbo.myquizapp.QuizContract.QuestionStatsTable;
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+import de.bfw.cbo.myquizapp.QuizContract.ReviewStateTable;
+
+import static org.junit.Assert.*;
+
+/**
+ * Die häufigen Fragen-Abfragen dürfen nicht auf einen Full Table Scan zurückfallen.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuizDbHelperQueryPlanTest {
+
+    @Test
+    public void getQuestions_usesIndex() {
+        assertUsesIndex(QuizDbHelper.SELECTION_CATEGORY_DIFFICULTY,
+                new String[]{String.valueOf(Category.MATH), QuizDbHelper.difficultyArg(Question.DIFFICULTY_EASY)});
+    }
+
+    @Test
+    public void getAllQuestions_usesIndex() {
+        assertUsesIndex(QuizDbHelper.SELECTION_DIFFICULTY,
+                new String[]{QuizDbHelper.difficultyArg(Question.DIFFICULTY_EASY)});
+    }
+
+    // Fälligkeits-Abfrage muss auch bei 100k Karten eine Bereichsabfrage bleiben
+    @Test
+    public void getDueQuestions_usesIndex() {
+        assertPlanUsesIndex("SELECT " + ReviewStateTable.COLUMN_QUESTION_ID + " FROM " +
+                        ReviewStateTable.TABLE_NAME + " WHERE " +
+                        ReviewStateTable.COLUMN_CATEGORY_ID + " = ? AND " +
+                        ReviewStateTable.COLUMN_DUE_AT + " <= ? ORDER BY " +
+                        ReviewStateTable.COLUMN_DUE_AT,
+                new String[]{String.valueOf(Category.MATH), String.valueOf(System.currentTimeMillis())});
+    }
+
+    // Top K: Bereich im Index in Sortierreihenfolge, ohne nachträgliches Sortieren
+    @Test
+    public void getTopScores_usesIndexOrder() {
+        String plan = assertPlanUsesIndex("SELECT * FROM " + LeaderboardTable.TABLE_NAME +
+                        " WHERE " + QuizDbHelper.SELECTION_LEADERBOARD +
+                        " ORDER BY " + QuizDbHelper.ORDER_LEADERBOARD + " LIMIT 10",
+                new String[]{String.valueOf(Category.MATH), Question.DIFFICULTY_EASY});
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void getLeaderboardRank_usesIndex() {
+        assertPlanUsesIndex(QuizDbHelper.SQL_LEADERBOARD_RANK,
+                new String[]{"5", "5", String.valueOf(Category.MATH), Question.DIFFICULTY_EASY});
+    }
+
+    @Test
+    public void getHardestQuestions_usesIndexOrder() {
+        String plan = assertPlanUsesIndex(statsQuery(QuizDbHelper.SELECTION_STATS_CATEGORY,
+                        QuizDbHelper.ORDER_STATS_HARDEST),
+                new String[]{String.valueOf(Category.MATH), "3"});
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    // gemischte Kategorie: Index in Sortierreihenfolge lesen, LIMIT beendet den Durchlauf
+    @Test
+    public void getHardestQuestions_mixed_usesIndexOrder() {
+        for (String orderBy : new String[]{QuizDbHelper.ORDER_STATS_HARDEST,
+                QuizDbHelper.ORDER_STATS_EASIEST}) {
+            String plan = explain(statsQuery(QuizDbHelper.SELECTION_STATS_ALL, orderBy),
+                    new String[]{"3"});
+            assertTrue(plan, plan.contains("USING INDEX idx_question_stats_rate_all"));
+            assertFalse(plan, plan.contains("TEMP B-TREE"));
+        }
+    }
+
+    private static String statsQuery(String selection, String orderBy) {
+        return "SELECT " + QuestionStatsTable.COLUMN_QUESTION_ID + " FROM " +
+                QuestionStatsTable.TABLE_NAME + " WHERE " + selection +
+                " ORDER BY " + orderBy + " LIMIT 10";
+    }
+
+    private void assertUsesIndex(String selection, String[] selectionArgs) {
+        assertPlanUsesIndex("SELECT * FROM " + QuestionsTable.TABLE_NAME +
+                " WHERE " + selection, selectionArgs);
+    }
+
+    // Rückgabe: der ganze Plan, für weitere Prüfungen
+    private String assertPlanUsesIndex(String sql, String[] selectionArgs) {
+        String plan = explain(sql, selectionArgs);
+        for (String detail : plan.split("\n")) {
+            assertFalse("Full Table Scan: " + detail, detail.startsWith("SCAN"));
+        }
+        return plan;
+    }
+
+    private String explain(String sql, String[] selectionArgs) {
+        Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        SQLiteDatabase db = QuizDbHelper.getInstance(appContext).getReadableDatabase();
+
+        StringBuilder plan = new StringBuilder();
+        Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + sql, selectionArgs);
+        try {
+            assertTrue(c.moveToFirst());
+            do {
+                plan.append(c.getString(c.getColumnIndex("detail"))).append('\n');
+            } while (c.moveToNext());
+            return plan.toString();
+        } finally {
+            c.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package de.bfw.cbo.myquizapp;
+
+import android.os.Bundle;
+import android.os.Parcel;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Der gespeicherte Spielstand muss klein bleiben, egal wie viele Fragen die Runde hat.
+ * Die IDs-Datei liegt wie in QuizActivity unter getFilesDir().
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuizSessionTest {
+
+    private static final int MAX_BUNDLE_BYTES = 2 * 1024;
+
+    private final File idsFile = new File(InstrumentationRegistry.getInstrumentation()
+            .getTargetContext().getFilesDir(), "quiz_session_test_ids");
+
+    @After
+    public void deleteIdsFile() {
+        idsFile.delete();
+    }
+
+    @Test
+    public void smallRound_idsInBundle() throws Exception {
+        Bundle bundle = save(new QuizSession(ids(10), 3, 2, 15000, true, 42L));
+
+        assertFalse(idsFile.exists());
+        assertTrue(bundleSize(bundle) < MAX_BUNDLE_BYTES);
+        assertRestored(QuizSession.restoreFrom(bundle), 10);
+    }
+
+    @Test
+    public void largeRound_bundleSizeConstant() throws Exception {
+        assertFalse(QuizSession.fitsInBundle(ids(100000)));
+        QuizSession.writeIds(idsFile, ids(100000));
+        Bundle bundle = save(new QuizSession(ids(100000), 3, 2, 15000, true, 42L));
+
+        int size = bundleSize(bundle);
+        assertTrue("bundle " + size + " bytes", size < MAX_BUNDLE_BYTES);
+        QuizSession restored = QuizSession.restoreFrom(bundle);
+        assertEquals(idsFile, restored.getQuestionIdsFile());
+        assertRestored(restored, 100000);
+    }
+
+    // IDs-Datei noch nicht geschrieben: dann stehen die IDs im Bundle
+    @Test
+    public void largeRound_withoutFile_idsInBundle() throws Exception {
+        Bundle bundle = new Bundle();
+        new QuizSession(ids(1000), 3, 2, 15000, true, 42L).saveTo(bundle, null);
+
+        QuizSession restored = QuizSession.restoreFrom(bundle);
+        assertNull(restored.getQuestionIdsFile());
+        assertRestored(restored, 1000);
+    }
+
+    @Test
+    public void adaptiveRound_schedulerStateInBundle() throws Exception {
+        Bundle bundle = save(new QuizSession(ids(10), 3, 2, 15000, true, 42L,
+                AdaptiveQuestionScheduler.LEVEL_HARD, 0.5));
+
+        QuizSession restored = QuizSession.restoreFrom(bundle);
+        assertRestored(restored, 10);
+        assertTrue(restored.isAdaptive());
+        assertEquals(AdaptiveQuestionScheduler.LEVEL_HARD, restored.getAdaptiveLevel());
+        assertEquals(0.5, restored.getAdaptivePerformance(), 0);
+    }
+
+    @Test
+    public void fixedRound_notAdaptive() throws Exception {
+        QuizSession restored = QuizSession.restoreFrom(save(new QuizSession(ids(10), 3, 2, 15000, true, 42L)));
+        assertFalse(restored.isAdaptive());
+    }
+
+    private Bundle save(QuizSession session) {
+        Bundle bundle = new Bundle();
+        session.saveTo(bundle, idsFile);
+        return bundle;
+    }
+
+    private static void assertRestored(QuizSession restored, int count) throws Exception {
+        assertNotNull(restored);
+        assertArrayEquals(ids(count), restored.getQuestionIds());
+        assertEquals(3, restored.getQuestionCounter());
+        assertEquals(2, restored.getScore());
+        assertEquals(15000, restored.getTimeLeftInMillis());
+        assertTrue(restored.isAnswered());
+        assertEquals(42L, restored.getJournalSessionId());
+    }
+
+    private static int bundleSize(Bundle bundle) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(bundle);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static int[] ids(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = count - i;
+        }
+        return ids;
+    }
+}
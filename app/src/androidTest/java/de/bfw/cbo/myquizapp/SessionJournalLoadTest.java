@@ -0,0 +1,58 @@
+package de.bfw.cbo.myquizapp;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Das Journal muss deutlich mehr Antworten pro Sekunde schreiben, als ein Spieler geben kann.
+ * Läuft auf einer eigenen DB: der START-Eintrag würde sonst offene Durchgänge
+ * der App als abgebrochen markieren.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SessionJournalLoadTest {
+
+    private static final String DATABASE_NAME = "SessionJournalLoadTest.db";
+    private static final int ANSWERS = 10000;
+    private static final int MIN_EVENTS_PER_SECOND = 1000;
+
+    private final Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    private final QuizDbHelper dbHelper = new QuizDbHelper(appContext, DATABASE_NAME);
+
+    @After
+    public void deleteDatabase() {
+        dbHelper.close();
+        appContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void recordAnswer_sustainsThroughput() throws InterruptedException {
+        SessionJournal journal = new SessionJournal(dbHelper);
+
+        long start = System.nanoTime();
+        long sessionId = journal.startSession(Category.MATH, "Mathematik",
+                Question.DIFFICULTY_EASY, new int[]{1, 2, 3});
+        for (int i = 0; i < ANSWERS; i++) {
+            journal.recordAnswer(sessionId, i % 3 + 1, 1, i % 2 == 0, 1500);
+        }
+        journal.finishSession(sessionId, ANSWERS / 2);
+        assertTrue(journal.flush(30, TimeUnit.SECONDS));
+        long elapsedNanos = System.nanoTime() - start;
+
+        double eventsPerSecond = (ANSWERS + 2) * 1e9 / elapsedNanos;
+        assertTrue("nur " + (int) eventsPerSecond + " Ereignisse/s",
+                eventsPerSecond > MIN_EVENTS_PER_SECOND);
+
+        // beendet, also kein "Fortsetzen"
+        assertNull(dbHelper.getUnfinishedSession());
+    }
+}
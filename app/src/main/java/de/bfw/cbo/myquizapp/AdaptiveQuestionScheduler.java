@@ -0,0 +1,169 @@
+package de.bfw.cbo.myquizapp;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Passt das Level an die Leistung an: ein gleitender Mittelwert aus
+ * Trefferquote und Antwortzeit entscheidet, ob die nächste Frage leichter,
+ * gleich schwer oder schwerer wird.
+ *
+ * Pro Level liegen die Fragen in einem Binär-Heap über Zufallsschlüsseln,
+ * next() kostet O(log n) und legt keine Objekte an.
+ */
+public class AdaptiveQuestionScheduler implements QuestionScheduler {
+
+    static final int LEVEL_EASY = 0;
+    static final int LEVEL_MEDIUM = 1;
+    static final int LEVEL_HARD = 2;
+    private static final int LEVEL_COUNT = 3;
+
+    // Gewicht der letzten Antwort im gleitenden Mittel
+    static final double ALPHA = 0.3;
+    static final double NEUTRAL = 0.6;
+    static final double LEVEL_UP = 0.75;
+    static final double LEVEL_DOWN = 0.4;
+
+    private final Question[] questions;
+    private final int[] keys;
+    private final int[][] heaps = new int[LEVEL_COUNT][];
+    private final int[] heapSizes = new int[LEVEL_COUNT];
+    private final long timeLimitMillis;
+
+    private int level = LEVEL_MEDIUM;
+    private double performance = NEUTRAL;
+
+    /**
+     * @param timeLimitMillis Zeit pro Frage, eine Antwort nach Ablauf zählt nur halb
+     */
+    public AdaptiveQuestionScheduler(List<Question> pool, long timeLimitMillis, Random random) {
+        this.timeLimitMillis = timeLimitMillis;
+        questions = pool.toArray(new Question[pool.size()]);
+        keys = new int[questions.length];
+
+        int[] levelSizes = new int[LEVEL_COUNT];
+        for (Question question : questions) {
+            levelSizes[levelOf(question.getDifficultyLevel())]++;
+        }
+        for (int l = 0; l < LEVEL_COUNT; l++) {
+            heaps[l] = new int[levelSizes[l]];
+        }
+        for (int i = 0; i < questions.length; i++) {
+            keys[i] = random.nextInt();
+            push(levelOf(questions[i].getDifficultyLevel()), i);
+        }
+    }
+
+    static int levelOf(Question.Difficulty difficulty) {
+        if (difficulty == Question.Difficulty.EASY) {
+            return LEVEL_EASY;
+        }
+        if (difficulty == Question.Difficulty.HARD) {
+            return LEVEL_HARD;
+        }
+        return LEVEL_MEDIUM;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public double getPerformance() {
+        return performance;
+    }
+
+    // nach einer Rotation: Level und gleitenden Mittelwert aus QuizSession übernehmen
+    public void restoreState(int level, double performance) {
+        if (level < LEVEL_EASY || level > LEVEL_HARD) {
+            throw new IllegalArgumentException("level " + level);
+        }
+        this.level = level;
+        this.performance = performance;
+    }
+
+    @Override
+    public int remaining() {
+        return heapSizes[LEVEL_EASY] + heapSizes[LEVEL_MEDIUM] + heapSizes[LEVEL_HARD];
+    }
+
+    // aktuelles Level, sonst das nächstgelegene mit Fragen
+    @Override
+    public Question next() {
+        for (int distance = 0; distance < LEVEL_COUNT; distance++) {
+            if (level - distance >= 0 && heapSizes[level - distance] > 0) {
+                return questions[pop(level - distance)];
+            }
+            if (level + distance < LEVEL_COUNT && heapSizes[level + distance] > 0) {
+                return questions[pop(level + distance)];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void onAnswered(Question question, boolean correct, long timeTakenMillis) {
+        double score = 0;
+        if (correct) {
+            // schnell und richtig = 1, richtig nach Ablauf der Zeit = 0.5
+            score = 1 - 0.5 * Math.min(1.0, (double) timeTakenMillis / timeLimitMillis);
+        }
+        performance += ALPHA * (score - performance);
+
+        if (performance > LEVEL_UP && level < LEVEL_HARD) {
+            level++;
+            performance = NEUTRAL;
+        } else if (performance < LEVEL_DOWN && level > LEVEL_EASY) {
+            level--;
+            performance = NEUTRAL;
+        }
+    }
+
+    @Override
+    public void copyRemainingIds(int[] dest, int offset) {
+        for (int l = 0; l < LEVEL_COUNT; l++) {
+            for (int i = 0; i < heapSizes[l]; i++) {
+                dest[offset++] = questions[heaps[l][i]].getId();
+            }
+        }
+    }
+
+    private void push(int l, int index) {
+        int[] heap = heaps[l];
+        int pos = heapSizes[l]++;
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (keys[heap[parent]] <= keys[index]) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = index;
+    }
+
+    private int pop(int l) {
+        int[] heap = heaps[l];
+        int top = heap[0];
+        int size = --heapSizes[l];
+        if (size > 0) {
+            int last = heap[size];
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                    child++;
+                }
+                if (keys[last] <= keys[heap[child]]) {
+                    break;
+                }
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = last;
+        }
+        return top;
+    }
+}
@@ -0,0 +1,92 @@
+package de.bfw.cbo.myquizapp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Verteilung der Antwortzeiten einer Frage als Histogramm mit logarithmischen
+ * Buckets. Feste Größe egal wie viele Antworten, Quantile auf etwa ±12 % genau.
+ * Zwei Sketches lassen sich addieren, damit ein Batch erst im Speicher
+ * gesammelt und dann mit der gespeicherten Zeile zusammengeführt werden kann.
+ */
+public class AnswerTimeSketch {
+
+    // Bucket 0: alles unter MIN_MILLIS, letzter Bucket: alles darüber
+    static final int BUCKET_COUNT = 40;
+    static final double MIN_MILLIS = 100;
+    static final double GROWTH = 1.25;
+
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+
+    private final int[] counts = new int[BUCKET_COUNT];
+    private long total;
+
+    public void add(long millis) {
+        counts[bucket(millis)]++;
+        total++;
+    }
+
+    public void addAll(AnswerTimeSketch other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public long median() {
+        return quantile(0.5);
+    }
+
+    // q zwischen 0 und 1, 0 wenn noch keine Antwort da ist
+    public long quantile(double q) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return representative(i);
+            }
+        }
+        return representative(BUCKET_COUNT - 1);
+    }
+
+    static int bucket(long millis) {
+        if (millis < MIN_MILLIS) {
+            return 0;
+        }
+        int i = 1 + (int) (Math.log(millis / MIN_MILLIS) / LOG_GROWTH);
+        return Math.min(i, BUCKET_COUNT - 1);
+    }
+
+    // geometrische Mitte des Buckets
+    private static long representative(int bucket) {
+        if (bucket == 0) {
+            return (long) (MIN_MILLIS / 2);
+        }
+        return Math.round(MIN_MILLIS * Math.pow(GROWTH, bucket - 0.5));
+    }
+
+    public byte[] toBlob() {
+        ByteBuffer buffer = ByteBuffer.allocate(BUCKET_COUNT * 4);
+        buffer.asIntBuffer().put(counts);
+        return buffer.array();
+    }
+
+    // null oder falsche Länge ergibt einen leeren Sketch
+    public static AnswerTimeSketch fromBlob(byte[] blob) {
+        AnswerTimeSketch sketch = new AnswerTimeSketch();
+        if (blob != null && blob.length == BUCKET_COUNT * 4) {
+            ByteBuffer.wrap(blob).asIntBuffer().get(sketch.counts);
+            for (int count : sketch.counts) {
+                sketch.total += count;
+            }
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,167 @@
+package de.bfw.cbo.myquizapp;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Kopiert die mitgelieferte DB aus den Assets, bevor SQLiteOpenHelper sie öffnet.
+ * Ablauf: in eine temporäre Datei kopieren, SHA-256 gegen die mitgelieferte
+ * .sha256-Datei prüfen, dann atomar umbenennen. Ein Abbruch hinterlässt
+ * also nie eine halb geschriebene DB.
+ */
+public class AssetDatabaseProvisioner {
+
+    private static final String TAG = "AssetDbProvisioner";
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Context context;
+    private final String assetPath;
+
+    public AssetDatabaseProvisioner(Context context, String assetPath) {
+        this.context = context;
+        this.assetPath = assetPath;
+    }
+
+    /**
+     * @return true wenn kopiert wurde, false wenn die DB schon installiert ist
+     */
+    public boolean provision(File target) throws IOException {
+        if (target.exists()) {
+            return false;
+        }
+        Log.i(TAG, "copy " + assetPath + " -> " + target);
+
+        File parent = target.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Verzeichnis " + parent + " kann nicht angelegt werden");
+        }
+        File temp = new File(target.getPath() + ".tmp");
+        try {
+            copyAsset(temp);
+            String expected = readBundledChecksum();
+            String actual = sha256(temp);
+            if (!expected.equalsIgnoreCase(actual)) {
+                throw new IOException("Prüfsumme falsch: " + actual + ", erwartet " + expected);
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                Log.w(TAG, "temp file not deleted: " + temp);
+            }
+        }
+    }
+
+    private void copyAsset(File temp) throws IOException {
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            FileChannel outChannel = out.getChannel();
+            try {
+                // unkomprimiertes Asset (noCompress 'db'): direkt per transferTo
+                AssetFileDescriptor afd = context.getAssets().openFd(assetPath);
+                try {
+                    FileChannel inChannel = afd.createInputStream().getChannel();
+                    transferFully(inChannel, afd.getStartOffset(), afd.getLength(), outChannel);
+                } finally {
+                    afd.close();
+                }
+            } catch (FileNotFoundException compressed) {
+                // komprimiertes Asset: über einen Stream mit großem Direct Buffer
+                InputStream in = context.getAssets().open(assetPath);
+                try {
+                    copy(Channels.newChannel(in), outChannel);
+                } finally {
+                    in.close();
+                }
+            }
+            outChannel.force(true);
+        } finally {
+            out.close();
+        }
+    }
+
+    static void transferFully(FileChannel in, long offset, long length, FileChannel out)
+            throws IOException {
+        long position = 0;
+        while (position < length) {
+            long transferred = in.transferTo(offset + position, length - position, out);
+            if (transferred <= 0) {
+                throw new IOException("Asset nach " + position + " von " + length + " Bytes abgebrochen");
+            }
+            position += transferred;
+        }
+    }
+
+    static void copy(ReadableByteChannel in, FileChannel out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        while (in.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // Inhalt von <asset>.sha256, erstes Wort (Format von sha256sum)
+    private String readBundledChecksum() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                context.getAssets().open(assetPath + ".sha256"), StandardCharsets.US_ASCII));
+        try {
+            String line = reader.readLine();
+            if (line == null || line.trim().isEmpty()) {
+                throw new IOException("Prüfsumme für " + assetPath + " fehlt");
+            }
+            return line.trim().split("\\s+")[0];
+        } finally {
+            reader.close();
+        }
+    }
+
+    static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            in.close();
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -7,10 +7,13 @@ public class Category {
     public static final int MATH = 3;
     public static final int ART = 4;
     public static final int HISTORY = 5;
-    public static final int MIX = 6;
 
     private int id;
     private String name;
+    // Fragen aus allen Kategorien, statt der früheren festen ID 6
+    private boolean mixed;
+    // Anzahl Fragen pro Question.Difficulty-Code, Index 0 = ohne Schwierigkeit
+    private final int[] questionCounts = new int[difficultyCodeCount()];
 
     public Category() {
 
@@ -20,6 +23,14 @@ public class Category {
         this.name = name;
     }
 
+    // eigene Kopie, damit Einträge aus CategoryRegistry nicht verändert werden
+    public Category(Category other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.mixed = other.mixed;
+        System.arraycopy(other.questionCounts, 0, questionCounts, 0, questionCounts.length);
+    }
+
     public int getId() {
         return id;
     }
@@ -36,6 +47,40 @@ public class Category {
         this.name = name;
     }
 
+    public boolean isMixed() {
+        return mixed;
+    }
+
+    public void setMixed(boolean mixed) {
+        this.mixed = mixed;
+    }
+
+    // difficulty == null: alle Fragen der Kategorie
+    public int getQuestionCount(Question.Difficulty difficulty) {
+        if (difficulty != null) {
+            return questionCount(difficulty.getCode());
+        }
+        int total = 0;
+        for (int count : questionCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    int questionCount(int difficultyCode) {
+        return questionCounts[difficultyCode];
+    }
+
+    static int difficultyCodeCount() {
+        return Question.Difficulty.values().length + 1;
+    }
+
+    void addQuestionCount(int difficultyCode, int count) {
+        if (difficultyCode >= 0 && difficultyCode < questionCounts.length) {
+            questionCounts[difficultyCode] += count;
+        }
+    }
+
     // einfach weg um namen zu bekommen toString
     @Override
     public String toString() {
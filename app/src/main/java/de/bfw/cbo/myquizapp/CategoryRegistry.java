@@ -0,0 +1,79 @@
+package de.bfw.cbo.myquizapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Alle Kategorien mit ihren Fragen-Anzahlen, einmal aus quiz_categories und
+ * quiz_category_counts geladen (QuizDbHelper.getCategoryRegistry()). Die
+ * Anzahlen pflegen Trigger, es wird also nie über quiz_questions gezählt.
+ * Die Registry wird zwischen Threads geteilt: sie hält eigene Kopien der
+ * Kategorien und gibt nach außen nur Kopien heraus.
+ */
+public class CategoryRegistry {
+
+    private final List<Category> categories;
+
+    // für die gemischte Kategorie werden die Anzahlen hier aufsummiert
+    CategoryRegistry(List<Category> source) {
+        List<Category> categories = new ArrayList<>(source.size());
+        for (Category category : source) {
+            categories.add(new Category(category));
+        }
+        this.categories = Collections.unmodifiableList(categories);
+
+        for (Category mixed : categories) {
+            if (!mixed.isMixed()) {
+                continue;
+            }
+            for (Category category : categories) {
+                if (category.isMixed()) {
+                    continue;
+                }
+                for (int code = 0; code < Category.difficultyCodeCount(); code++) {
+                    mixed.addQuestionCount(code, category.questionCount(code));
+                }
+            }
+        }
+    }
+
+    public List<Category> getCategories() {
+        List<Category> copies = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            copies.add(new Category(category));
+        }
+        return copies;
+    }
+
+    // null, wenn es die Kategorie nicht gibt
+    public Category get(int categoryID) {
+        Category category = find(categoryID);
+        return category != null ? new Category(category) : null;
+    }
+
+    public boolean isMixed(int categoryID) {
+        Category category = find(categoryID);
+        return category != null && category.isMixed();
+    }
+
+    private Category find(int categoryID) {
+        for (Category category : categories) {
+            if (category.getId() == categoryID) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    // Kategorien mit mindestens einer Frage, difficulty == null für alle Schwierigkeiten
+    public List<Category> getAvailable(Question.Difficulty difficulty) {
+        List<Category> available = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            if (category.getQuestionCount(difficulty) > 0) {
+                available.add(new Category(category));
+            }
+        }
+        return available;
+    }
+}
@@ -0,0 +1,208 @@
+package de.bfw.cbo.myquizapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Änderungen am Fragen-Katalog von Inhaltsstand baseVersion auf
+ * targetVersion, wie sie ContentSyncClient vom Server lädt. Die Änderungen
+ * werden in der gespeicherten Reihenfolge angewendet (Kategorie vor ihren
+ * Fragen), siehe QuizDbHelper.applyChangeset().
+ *
+ * <pre>
+ * Header  MAGIC, VERSION (int), baseVersion, targetVersion (long), changeCount (int)
+ * Change  type (byte), dann je nach Typ:
+ *         PUT_CATEGORY     id (int), name (UTF), mixed (boolean)
+ *         PUT_QUESTION     id (int), question (UTF), option1..3 (boolean + UTF, false = null),
+ *                          answerNr, difficulty-Code, categoryID (int)
+ *         DELETE_QUESTION  id (int)
+ * </pre>
+ *
+ * Big endian, Texte als modifiziertes UTF-8 (DataOutput.writeUTF). IDs sind
+ * die des Servers, PUT legt an oder überschreibt. Fragen-IDs liegen unter
+ * QuestionsTable.FIRST_LOCAL_ID, darüber vergibt die App selbst.
+ */
+public class ContentChangeset {
+
+    public static final int MAGIC = 0x51444C54; // "QDLT"
+    public static final int VERSION = 1;
+
+    public static final byte PUT_CATEGORY = 1;
+    public static final byte PUT_QUESTION = 2;
+    public static final byte DELETE_QUESTION = 3;
+
+    // Schutz gegen kaputte Header, ein Changeset wird komplett in den Speicher gelesen
+    private static final int MAX_CHANGES = 1000000;
+
+    private final long baseVersion;
+    private final long targetVersion;
+    private final List<Change> changes = new ArrayList<>();
+
+    public static class Change {
+        private final byte type;
+        private final int id;
+        private final Category category;
+        private final Question question;
+
+        private Change(byte type, int id, Category category, Question question) {
+            this.type = type;
+            this.id = id;
+            this.category = category;
+            this.question = question;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        // ID der Kategorie bzw. Frage
+        public int getId() {
+            return id;
+        }
+
+        // nur bei PUT_CATEGORY
+        public Category getCategory() {
+            return category;
+        }
+
+        // nur bei PUT_QUESTION
+        public Question getQuestion() {
+            return question;
+        }
+    }
+
+    public ContentChangeset(long baseVersion, long targetVersion) {
+        this.baseVersion = baseVersion;
+        this.targetVersion = targetVersion;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public long getTargetVersion() {
+        return targetVersion;
+    }
+
+    public List<Change> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+    public ContentChangeset putCategory(Category category) {
+        changes.add(new Change(PUT_CATEGORY, category.getId(), category, null));
+        return this;
+    }
+
+    public ContentChangeset putQuestion(Question question) {
+        changes.add(new Change(PUT_QUESTION, question.getId(), null, question));
+        return this;
+    }
+
+    public ContentChangeset deleteQuestion(int questionID) {
+        changes.add(new Change(DELETE_QUESTION, questionID, null, null));
+        return this;
+    }
+
+    // out wird nicht geschlossen
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(baseVersion);
+        data.writeLong(targetVersion);
+        data.writeInt(changes.size());
+        for (Change change : changes) {
+            data.writeByte(change.type);
+            data.writeInt(change.id);
+            if (change.type == PUT_CATEGORY) {
+                data.writeUTF(change.category.getName());
+                data.writeBoolean(change.category.isMixed());
+            } else if (change.type == PUT_QUESTION) {
+                Question question = change.question;
+                data.writeUTF(question.getQuestion());
+                writeNullable(data, question.getOption1());
+                writeNullable(data, question.getOption2());
+                writeNullable(data, question.getOption3());
+                data.writeInt(question.getAnswerNr());
+                data.writeInt(question.getDifficultyCode());
+                data.writeInt(question.getCategoryID());
+            }
+        }
+        data.flush();
+    }
+
+    // in wird nicht geschlossen
+    public static ContentChangeset readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        try {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Kein Changeset");
+            }
+            int version = data.readInt();
+            if (version != VERSION) {
+                throw new IOException("Nicht unterstützte Version " + version);
+            }
+            ContentChangeset changeset = new ContentChangeset(data.readLong(), data.readLong());
+            int count = data.readInt();
+            if (count < 0 || count > MAX_CHANGES) {
+                throw new IOException("Ungültige Anzahl Änderungen: " + count);
+            }
+            for (int i = 0; i < count; i++) {
+                byte type = data.readByte();
+                int id = data.readInt();
+                switch (type) {
+                    case PUT_CATEGORY:
+                        Category category = new Category(data.readUTF());
+                        category.setId(id);
+                        category.setMixed(data.readBoolean());
+                        changeset.putCategory(category);
+                        break;
+                    case PUT_QUESTION:
+                        Question question = new Question();
+                        question.setId(id);
+                        question.setQuestion(data.readUTF());
+                        question.setOption1(readNullable(data));
+                        question.setOption2(readNullable(data));
+                        question.setOption3(readNullable(data));
+                        question.setAnswerNr(data.readInt());
+                        question.setDifficultyLevel(Question.Difficulty.fromCode(data.readInt()));
+                        question.setCategoryID(data.readInt());
+                        changeset.putQuestion(question);
+                        break;
+                    case DELETE_QUESTION:
+                        changeset.deleteQuestion(id);
+                        break;
+                    default:
+                        throw new IOException("Unbekannte Änderung " + type + " an Position " + i);
+                }
+            }
+            return changeset;
+        } catch (EOFException e) {
+            throw new IOException("Changeset unvollständig", e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream data) throws IOException {
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+}
@@ -0,0 +1,147 @@
+package de.bfw.cbo.myquizapp;
+
+import androidx.annotation.Nullable;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Lädt Änderungen am Fragen-Katalog vom Inhalts-Server.
+ *
+ * <pre>
+ * GET endpoint?since=contentVersion
+ *     Accept-Encoding: gzip
+ *     If-None-Match: ETag der zuletzt angewendeten Antwort (falls vorhanden)
+ *
+ * 200  ContentChangeset von contentVersion auf den aktuellen Stand, ETag im Header
+ * 304  nichts Neues
+ * </pre>
+ *
+ * Der Server liefert nur die Änderungen seit contentVersion, die Größe der
+ * Antwort hängt also nur an der Änderung, nicht am Katalog. Angewendet wird
+ * das Changeset mit QuizDbHelper.applyChangeset().
+ */
+public class ContentSyncClient {
+
+    public static final String PARAM_SINCE = "since";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+
+    private final String endpoint;
+
+    public static class Update {
+        private final ContentChangeset changeset;
+        private final String etag;
+        private final long downloadedBytes;
+
+        Update(ContentChangeset changeset, @Nullable String etag, long downloadedBytes) {
+            this.changeset = changeset;
+            this.etag = etag;
+            this.downloadedBytes = downloadedBytes;
+        }
+
+        public ContentChangeset getChangeset() {
+            return changeset;
+        }
+
+        @Nullable
+        public String getEtag() {
+            return etag;
+        }
+
+        // übertragene Bytes, bei gzip komprimiert
+        public long getDownloadedBytes() {
+            return downloadedBytes;
+        }
+    }
+
+    public ContentSyncClient(String endpoint) throws MalformedURLException {
+        // früh prüfen statt erst beim ersten Abruf
+        new URL(endpoint);
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Änderungen seit sinceVersion, blockiert bis zur Antwort.
+     *
+     * @return null, wenn der Server nichts Neues hat
+     */
+    @Nullable
+    public Update fetch(long sinceVersion, @Nullable String etag) throws IOException {
+        URL url = new URL(endpoint + (endpoint.indexOf('?') < 0 ? '?' : '&') +
+                PARAM_SINCE + "=" + sinceVersion);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            // selbst gesetzt, dann entpackt HttpURLConnection nicht automatisch
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return null;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status + " von " + url);
+            }
+
+            CountingInputStream counting = new CountingInputStream(connection.getInputStream());
+            InputStream in = "gzip".equalsIgnoreCase(connection.getContentEncoding())
+                    ? new GZIPInputStream(counting) : counting;
+            try {
+                ContentChangeset changeset = ContentChangeset.readFrom(in);
+                if (changeset.getBaseVersion() != sinceVersion) {
+                    throw new IOException("Changeset ab Version " + changeset.getBaseVersion() +
+                            ", angefragt " + sinceVersion);
+                }
+                return new Update(changeset, connection.getHeaderField("ETag"), counting.count);
+            } finally {
+                in.close();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
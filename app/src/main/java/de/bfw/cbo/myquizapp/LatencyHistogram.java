@@ -0,0 +1,139 @@
+package de.bfw.cbo.myquizapp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Laufzeiten in Nanosekunden, Buckets wie bei HdrHistogram: bis 2 *
+ * SUB_BUCKETS exakt, darüber SUB_BUCKETS gleich breite Buckets pro
+ * Zweierpotenz. Quantile sind damit auf 1 / SUB_BUCKETS (gut 3 %) genau, bei
+ * fester Größe. record() ist lock-frei und darf von mehreren Threads kommen.
+ *
+ * Wird über QuizMetrics angelegt, siehe dort für das Abschalten.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // größere Werte landen im letzten Bucket, 2^36 ns sind gut eine Minute
+    static final long MAX_VALUE = (1L << 36) - 1;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(index(MAX_VALUE) + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Zeit seit startNanos aus QuizMetrics.start() eintragen. startNanos == 0
+     * heißt abgeschaltet, dann passiert nichts.
+     */
+    public void stop(long startNanos) {
+        if (startNanos != 0) {
+            record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    // nicht atomar über alle Buckets, laufende record()-Aufrufe sind evtl. nur halb drin
+    public Snapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(name, copy, total, sum.get(), max.get());
+    }
+
+    // 0 .. 2 * SUB_BUCKETS - 1 exakt, dann SUB_BUCKETS pro Zweierpotenz
+    static int index(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    // größter Wert, der in Bucket index fällt
+    static long highestValue(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public static class Snapshot {
+        private final String name;
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(String name, long[] counts, long count, long sum, long max) {
+            this.name = name;
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        // percentile 0..100, obere Grenze des Buckets, höchstens das Maximum
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
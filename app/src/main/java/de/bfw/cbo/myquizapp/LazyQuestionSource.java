@@ -0,0 +1,184 @@
+package de.bfw.cbo.myquizapp;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Hält nur die (gemischten) IDs im Speicher. Die Fragen selbst werden
+ * blockweise aus der DB nachgeladen, sobald showNextQuestion() weiterblättert.
+ * Mit Executor wird der nächste Block schon im Hintergrund geholt, während
+ * der aktuelle gespielt wird. get() kann auf die DB warten: vom UI-Thread
+ * nur, wenn isLoaded() true ist, sonst vorher QuizRepository.loadQuestion().
+ */
+public class LazyQuestionSource implements QuestionSource {
+
+    private static final String TAG = "LazyQuestionSource";
+
+    // Anzahl Fragen, die pro DB-Zugriff im Voraus geladen werden
+    private static final int PREFETCH_WINDOW = 5;
+
+    private final QuizDbHelper dbHelper;
+    private final int[] ids;
+    @Nullable
+    private final Executor prefetchExecutor;
+
+    private Question[] window = new Question[0];
+    private int windowStart;
+    // Positionen, deren Frage beim Laden fehlte (gelöscht), auch außerhalb des Blocks
+    private final BitSet missing = new BitSet();
+
+    // nächster Block, null wenn keiner unterwegs ist
+    private FutureTask<Question[]> prefetch;
+    private int prefetchStart;
+
+    public LazyQuestionSource(QuizDbHelper dbHelper, int[] ids) {
+        this(dbHelper, ids, null);
+    }
+
+    public LazyQuestionSource(QuizDbHelper dbHelper, int[] ids, @Nullable Executor prefetchExecutor) {
+        this.dbHelper = dbHelper;
+        this.ids = ids;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public synchronized Question get(int position) {
+        if (position < 0 || position >= ids.length) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + ids.length);
+        }
+        if (missing.get(position)) {
+            return null;
+        }
+        if (!inWindow(position)) {
+            window = takeWindow(position);
+            windowStart = position;
+            for (int i = 0; i < window.length; i++) {
+                if (window[i] == null) {
+                    missing.set(position + i);
+                }
+            }
+            startPrefetch(position + window.length);
+        }
+        return window[position - windowStart];
+    }
+
+    @Override
+    public synchronized boolean isLoaded(int position) {
+        if (missing.get(position) || inWindow(position)) {
+            return true;
+        }
+        // fertig vorgeladen: takeWindow() nimmt den Block, ohne zu warten
+        FutureTask<Question[]> task = prefetch;
+        if (task == null || prefetchStart != position || !task.isDone()) {
+            return false;
+        }
+        try {
+            task.get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | CancellationException e) {
+            return false;
+        }
+    }
+
+    private boolean inWindow(int position) {
+        return position >= windowStart && position < windowStart + window.length;
+    }
+
+    @Override
+    public int[] getIds() {
+        return ids;
+    }
+
+    // vorgeladenen Block nehmen, wenn er passt, sonst direkt laden
+    private Question[] takeWindow(int start) {
+        FutureTask<Question[]> task = prefetch;
+        prefetch = null;
+        if (task != null) {
+            if (prefetchStart == start) {
+                try {
+                    // noch nicht gestartet, z.B. auf dem eigenen Thread in der Queue: selbst ausführen
+                    task.run();
+                    return task.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    Log.w(TAG, "Vorladen fehlgeschlagen, lade direkt", e.getCause());
+                }
+            } else {
+                task.cancel(false);
+            }
+        }
+        return loadWindow(start);
+    }
+
+    private void startPrefetch(final int start) {
+        if (prefetchExecutor == null || start >= ids.length) {
+            return;
+        }
+        FutureTask<Question[]> task = new FutureTask<>(new Callable<Question[]>() {
+            @Override
+            public Question[] call() {
+                return loadWindow(start);
+            }
+        });
+        try {
+            prefetchExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Pool voll: der Block wird dann beim Weiterblättern direkt geladen
+            return;
+        }
+        prefetch = task;
+        prefetchStart = start;
+    }
+
+    private Question[] loadWindow(int start) {
+        int end = Math.min(start + PREFETCH_WINDOW, ids.length);
+        List<Question> loaded = dbHelper.getQuestionsByIds(ids, start, end);
+
+        // die DB liefert die Zeilen nicht in ID-Reihenfolge zurück, gelöschte bleiben null
+        Question[] questions = new Question[end - start];
+        for (int i = start; i < end; i++) {
+            for (Question question : loaded) {
+                if (question.getId() == ids[i]) {
+                    questions[i - start] = question;
+                    break;
+                }
+            }
+            if (questions[i - start] == null) {
+                Log.w(TAG, "Frage " + ids[i] + " nicht mehr vorhanden, wird übersprungen");
+            }
+        }
+        return questions;
+    }
+
+    // Fisher-Yates, ersetzt Collections.shuffle() für int[]
+    public static void shuffle(int[] ids, Random random) {
+        long start = QuizMetrics.start();
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        QuizMetrics.SHUFFLE.stop(start);
+    }
+}
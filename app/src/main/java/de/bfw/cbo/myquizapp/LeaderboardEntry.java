@@ -0,0 +1,58 @@
+package de.bfw.cbo.myquizapp;
+
+/**
+ * Ein beendeter Durchgang auf der Bestenliste. Eine Bestenliste ist
+ * (Kategorie, Schwierigkeit), difficulty ist die Bezeichnung aus dem Spinner,
+ * in der DB steht Question.selectionCode().
+ */
+public class LeaderboardEntry {
+    private long id;
+    private String player;
+    private int categoryID;
+    private String difficulty;
+    private int score;
+    private int questionCount;
+    private long finishedAt;
+
+    public LeaderboardEntry(String player, int categoryID, String difficulty, int score,
+                            int questionCount, long finishedAt) {
+        this.player = player;
+        this.categoryID = categoryID;
+        this.difficulty = difficulty == null ? "" : difficulty;
+        this.score = score;
+        this.questionCount = questionCount;
+        this.finishedAt = finishedAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public int getCategoryID() {
+        return categoryID;
+    }
+
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+}
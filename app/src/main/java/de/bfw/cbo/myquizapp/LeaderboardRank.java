@@ -0,0 +1,49 @@
+package de.bfw.cbo.myquizapp;
+
+/**
+ * Einordnung einer Punktzahl in eine Bestenliste, aus den Zählern in
+ * quiz_leaderboard_scores. Der eigene Durchgang ist mitgezählt, wenn er
+ * schon gespeichert ist.
+ */
+public class LeaderboardRank {
+    private int score;
+    private int runsBelow;
+    private int runsEqual;
+    private int runCount;
+
+    public LeaderboardRank(int score, int runsBelow, int runsEqual, int runCount) {
+        this.score = score;
+        this.runsBelow = runsBelow;
+        this.runsEqual = runsEqual;
+        this.runCount = runCount;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getRunsBelow() {
+        return runsBelow;
+    }
+
+    public int getRunsEqual() {
+        return runsEqual;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    // Platz 1 = beste Punktzahl, Gleichstand teilt sich den Platz
+    public int getRank() {
+        return runCount - runsBelow - runsEqual + 1;
+    }
+
+    // Perzentil-Rang 0..100, Gleichstand zählt zur Hälfte
+    public double getPercentile() {
+        if (runCount == 0) {
+            return 100;
+        }
+        return 100.0 * (runsBelow + 0.5 * runsEqual) / runCount;
+    }
+}
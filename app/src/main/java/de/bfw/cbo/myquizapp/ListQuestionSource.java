@@ -0,0 +1,51 @@
+package de.bfw.cbo.myquizapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fragen, die bereits im Speicher liegen (z.B. aus dem QuestionCache).
+ */
+public class ListQuestionSource implements QuestionSource {
+
+    private final List<Question> questions;
+
+    public ListQuestionSource(List<Question> questions) {
+        this.questions = questions;
+    }
+
+    // gemischte Kopie, die Vorlage bleibt unverändert
+    public static ListQuestionSource shuffled(List<Question> questions, Random random) {
+        long start = QuizMetrics.start();
+        ArrayList<Question> copy = new ArrayList<>(questions);
+        Collections.shuffle(copy, random); //Zufällige Reihenfolge
+        QuizMetrics.SHUFFLE.stop(start);
+        return new ListQuestionSource(copy);
+    }
+
+    @Override
+    public int size() {
+        return questions.size();
+    }
+
+    @Override
+    public Question get(int position) {
+        return questions.get(position);
+    }
+
+    @Override
+    public boolean isLoaded(int position) {
+        return true;
+    }
+
+    @Override
+    public int[] getIds() {
+        int[] ids = new int[questions.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = questions.get(i).getId();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,110 @@
+package de.bfw.cbo.myquizapp;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import de.bfw.cbo.myquizapp.QuizContract.OptionStringsTable;
+
+/**
+ * Antwort-Texte aus quiz_option_strings im Speicher, in beide Richtungen.
+ * Die Tabelle wird nur ergänzt, nie geändert: was einmal geladen ist, bleibt
+ * gültig, bei einer unbekannten ID werden nur die neueren Einträge
+ * nachgeladen. Lesen bekannter IDs geht ohne Sperre. Einzige Ausnahme ist
+ * QuizDbHelper.collectOptionStrings(), danach wird invalidate() aufgerufen.
+ * Die Tabelle hat keinen Index auf text, doppelte Texte verhindert nur idFor().
+ */
+public class OptionDictionary {
+
+    static final String SQL_INSERT = "INSERT INTO " + OptionStringsTable.TABLE_NAME + " (" +
+            OptionStringsTable.COLUMN_TEXT + ") VALUES (?)";
+
+    // Index = _id; beim Wachsen kopiert und über das volatile Feld neu veröffentlicht
+    private volatile String[] texts = new String[256];
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    // höchste bekannte _id
+    private int maxId;
+    // true, sobald einmal die ganze Tabelle geladen wurde
+    private boolean loaded;
+
+    // Text zur ID, null für 0 (NULL in der Spalte)
+    public String get(SQLiteDatabase db, int id) {
+        String text = getCached(id);
+        if (text != null || id <= 0) {
+            return text;
+        }
+        synchronized (this) {
+            loadNewer(db);
+            return getCached(id);
+        }
+    }
+
+    // ohne Nachladen, null wenn (noch) unbekannt
+    String getCached(int id) {
+        String[] current = texts;
+        return id > 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * ID zum Text, 0 für null. Unbekannte Texte werden über insert
+     * (SQL_INSERT) angelegt, deshalb nur innerhalb der Schreib-Transaktion
+     * aufrufen. Wird sie zurückgerollt, muss invalidate() folgen.
+     */
+    public synchronized int idFor(SQLiteDatabase db, SQLiteStatement insert, String text) {
+        if (text == null) {
+            return 0;
+        }
+        if (!loaded) {
+            loadNewer(db);
+        }
+        Integer id = ids.get(text);
+        if (id != null) {
+            return id;
+        }
+        insert.bindString(1, text);
+        int newId = (int) insert.executeInsert();
+        put(newId, text);
+        return newId;
+    }
+
+    // nach einem Rollback: angelegte IDs gibt es dann nicht mehr
+    public synchronized void invalidate() {
+        texts = new String[texts.length];
+        ids.clear();
+        maxId = 0;
+        loaded = false;
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    synchronized void put(int id, String text) {
+        String[] current = texts;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(id + 1, current.length * 2));
+        }
+        current[id] = text;
+        texts = current;
+        ids.put(text, id);
+        maxId = Math.max(maxId, id);
+    }
+
+    private void loadNewer(SQLiteDatabase db) {
+        Cursor c = db.rawQuery("SELECT " + OptionStringsTable._ID + ", " +
+                        OptionStringsTable.COLUMN_TEXT + " FROM " + OptionStringsTable.TABLE_NAME +
+                        " WHERE " + OptionStringsTable._ID + " > ? ORDER BY " + OptionStringsTable._ID,
+                new String[]{String.valueOf(maxId)});
+        try {
+            while (c.moveToNext()) {
+                put(c.getInt(0), c.getString(1));
+            }
+        } finally {
+            c.close();
+        }
+        loaded = true;
+    }
+}
@@ -0,0 +1,39 @@
+package de.bfw.cbo.myquizapp;
+
+/**
+ * Fragen aus einer Fragen-Pack-Datei, dekodiert erst beim Zugriff.
+ */
+public class PackQuestionSource implements QuestionSource {
+
+    private final QuestionPackReader pack;
+    private final int[] records;
+
+    public PackQuestionSource(QuestionPackReader pack, int[] records) {
+        this.pack = pack;
+        this.records = records;
+    }
+
+    @Override
+    public int size() {
+        return records.length;
+    }
+
+    @Override
+    public Question get(int position) {
+        return pack.get(records[position]);
+    }
+
+    @Override
+    public boolean isLoaded(int position) {
+        return true;
+    }
+
+    @Override
+    public int[] getIds() {
+        int[] ids = new int[records.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = pack.getId(records[i]);
+        }
+        return ids;
+    }
+}
@@ -10,6 +10,60 @@ public class Question implements Parcelable {
     public static final String DIFFICULTY_EASY = "Einfach";
     public static final String DIFFICULTY_MEDIUM = "Mittel";
     public static final String DIFFICULTY_HARD = "Schwer";
+    // keine Schwierigkeit einer Frage, sondern Spielmodus: AdaptiveQuestionScheduler wählt das Level
+    public static final String DIFFICULTY_ADAPTIVE = "Adaptiv";
+    // Spielmodus: fällige Fragen aus der Wiederholung (SpacedRepetition)
+    public static final String DIFFICULTY_REVIEW = "Wiederholung";
+
+    // Codes der Spielmodi in quiz_sessions und quiz_leaderboard, mit Abstand zu den Difficulty-Codes
+    public static final int MODE_CODE_ADAPTIVE = 101;
+    public static final int MODE_CODE_REVIEW = 102;
+
+    /**
+     * Schwierigkeitsgrad mit festem Code. In der DB und im Parcel steht nur
+     * der Code, die Bezeichnung ist nur für die Anzeige.
+     */
+    public enum Difficulty {
+        EASY(1, DIFFICULTY_EASY),
+        MEDIUM(2, DIFFICULTY_MEDIUM),
+        HARD(3, DIFFICULTY_HARD);
+
+        private final int code;
+        private final String label;
+
+        Difficulty(int code, String label) {
+            this.code = code;
+            this.label = label;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        // null bei unbekanntem Code, z.B. 0 für "nicht gesetzt"
+        public static Difficulty fromCode(int code) {
+            for (Difficulty difficulty : values()) {
+                if (difficulty.code == code) {
+                    return difficulty;
+                }
+            }
+            return null;
+        }
+
+        // null bei unbekannter Bezeichnung, z.B. den Spielmodi Adaptiv/Wiederholung
+        public static Difficulty fromLabel(String label) {
+            for (Difficulty difficulty : values()) {
+                if (difficulty.label.equals(label)) {
+                    return difficulty;
+                }
+            }
+            return null;
+        }
+    }
 
     private int id;
     private String question;
@@ -17,7 +71,7 @@ public class Question implements Parcelable {
     private String option2;
     private String option3;
     private int answerNr;
-    private String difficulty;
+    private Difficulty difficulty;
     private int categoryID;
 
     public Question() {}
@@ -29,10 +83,22 @@ public class Question implements Parcelable {
         this.option2 = option2;
         this.option3 = option3;
         this.answerNr = answerNr;
-        this.difficulty = difficulty;
+        this.difficulty = Difficulty.fromLabel(difficulty);
         this.categoryID = categoryID;
     }
 
+    // Kopie, damit gecachte Fragen nicht über Setter verändert werden
+    public Question(Question other) {
+        id = other.id;
+        question = other.question;
+        option1 = other.option1;
+        option2 = other.option2;
+        option3 = other.option3;
+        answerNr = other.answerNr;
+        difficulty = other.difficulty;
+        categoryID = other.categoryID;
+    }
+
     protected Question(Parcel in) {
         id = in.readInt();
         question = in.readString();
@@ -40,7 +106,7 @@ public class Question implements Parcelable {
         option2 = in.readString();
         option3 = in.readString();
         answerNr = in.readInt();
-        difficulty = in.readString();
+        difficulty = Difficulty.fromCode(in.readInt());
         categoryID = in.readInt();
     }
 
@@ -52,7 +118,7 @@ public class Question implements Parcelable {
         dest.writeString(option2);
         dest.writeString(option3);
         dest.writeInt(answerNr);
-        dest.writeString(difficulty);
+        dest.writeInt(getDifficultyCode());
         dest.writeInt(categoryID);
     }
 
@@ -121,14 +187,28 @@ public class Question implements Parcelable {
         this.answerNr = answerNr;
     }
 
+    // Bezeichnung wie DIFFICULTY_EASY, null wenn nicht gesetzt
     public String getDifficulty() {
-        return difficulty;
+        return difficulty == null ? null : difficulty.getLabel();
     }
 
     public void setDifficulty(String difficulty) {
+        this.difficulty = Difficulty.fromLabel(difficulty);
+    }
+
+    public Difficulty getDifficultyLevel() {
+        return difficulty;
+    }
+
+    public void setDifficultyLevel(Difficulty difficulty) {
         this.difficulty = difficulty;
     }
 
+    // 0 wenn nicht gesetzt
+    public int getDifficultyCode() {
+        return difficulty == null ? 0 : difficulty.getCode();
+    }
+
     public static String[] getAllDifficultyLevels() {
         return new String[] {
             DIFFICULTY_EASY,
@@ -137,6 +217,40 @@ public class Question implements Parcelable {
         };
     }
 
+    /**
+     * Code einer Auswahl aus dem Spinner, so steht sie in quiz_sessions und
+     * quiz_leaderboard: der Difficulty-Code oder der Code des Spielmodus,
+     * 0 für keine oder eine unbekannte Auswahl.
+     */
+    public static int selectionCode(String selection) {
+        Difficulty difficulty = Difficulty.fromLabel(selection);
+        if (difficulty != null) {
+            return difficulty.getCode();
+        }
+        if (DIFFICULTY_ADAPTIVE.equals(selection)) {
+            return MODE_CODE_ADAPTIVE;
+        }
+        if (DIFFICULTY_REVIEW.equals(selection)) {
+            return MODE_CODE_REVIEW;
+        }
+        return 0;
+    }
+
+    // Bezeichnung zu selectionCode(), null für 0 und unbekannte Codes
+    public static String selectionLabel(int code) {
+        Difficulty difficulty = Difficulty.fromCode(code);
+        if (difficulty != null) {
+            return difficulty.getLabel();
+        }
+        if (code == MODE_CODE_ADAPTIVE) {
+            return DIFFICULTY_ADAPTIVE;
+        }
+        if (code == MODE_CODE_REVIEW) {
+            return DIFFICULTY_REVIEW;
+        }
+        return null;
+    }
+
     public int getCategoryID() {
         return categoryID;
     }
@@ -0,0 +1,92 @@
+package de.bfw.cbo.myquizapp;
+
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Prozessweiter Cache der Fragen, aufgeteilt nach (Kategorie, Schwierigkeit).
+ * Die Größe wird in geschätzten Bytes gezählt, bei Überlauf fliegt die am
+ * längsten nicht benutzte Partition raus. Treffer, Fehlschläge und
+ * Verdrängungen liefern hitCount(), missCount() und evictionCount().
+ * Question ist veränderbar: der Cache speichert eigene Kopien und gibt über
+ * getCopy() wieder Kopien heraus, Aufrufer teilen sich also keine Objekte.
+ */
+public class QuestionCache extends LruCache<String, List<Question>> {
+
+    // Schlüssel für getAllQuestions(difficulty), also alle Kategorien
+    public static final int ALL_CATEGORIES = 0;
+
+    // größere Partitionen werden nicht gecacht sondern gestreamt
+    public static final int MAX_PARTITION_ROWS = 5000;
+
+    // Objekt-Header und Felder, grob geschätzt
+    private static final int QUESTION_OVERHEAD_BYTES = 64;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    // wird bei jeder Änderung hochgezählt, damit ein paralleles Laden
+    // keine veralteten Daten zurückschreibt
+    private int generation;
+
+    public QuestionCache(int maxBytes) {
+        super(maxBytes);
+    }
+
+    // 1/16 des Heaps, wie bei LruCache üblich
+    public static int defaultBudget() {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+    }
+
+    public static String key(int categoryID, String difficulty) {
+        return categoryID + "|" + difficulty;
+    }
+
+    public synchronized int generation() {
+        return generation;
+    }
+
+    // nur speichern, wenn seit generation() nichts invalidiert wurde
+    public synchronized void putIfCurrent(String key, List<Question> questions, int expectedGeneration) {
+        if (generation == expectedGeneration) {
+            put(key, Collections.unmodifiableList(copyOf(questions)));
+        }
+    }
+
+    // Kopie der Partition, null wenn sie nicht im Cache liegt
+    public ArrayList<Question> getCopy(String key) {
+        List<Question> questions = get(key);
+        return questions == null ? null : copyOf(questions);
+    }
+
+    private static ArrayList<Question> copyOf(List<Question> questions) {
+        ArrayList<Question> copy = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            copy.add(new Question(question));
+        }
+        return copy;
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        evictAll();
+    }
+
+    @Override
+    protected int sizeOf(String key, List<Question> questions) {
+        int bytes = 0;
+        for (Question question : questions) {
+            bytes += QUESTION_OVERHEAD_BYTES
+                    + sizeOf(question.getQuestion())
+                    + sizeOf(question.getOption1())
+                    + sizeOf(question.getOption2())
+                    + sizeOf(question.getOption3());
+        }
+        return bytes;
+    }
+
+    private static int sizeOf(String s) {
+        return s == null ? 0 : STRING_OVERHEAD_BYTES + 2 * s.length();
+    }
+}
@@ -0,0 +1,50 @@
+package de.bfw.cbo.myquizapp;
+
+/**
+ * Aufbau einer Fragen-Pack-Datei (read-only, big endian, alle Werte int):
+ *
+ * <pre>
+ * Header     MAGIC, VERSION, questionCount, stringCount, partitionCount,
+ *            stringOffsetsPos, stringDataPos, recordsPos, partitionsPos, recordRefsPos
+ * Strings    (stringCount + 1) Offsets in die UTF-8 Stringdaten, dann die Daten selbst.
+ *            Jeder Text steht nur einmal drin, auch wenn er mehrfach vorkommt.
+ * Records    questionCount Einträge zu RECORD_INTS ints:
+ *            id, question, option1, option2, option3, answerNr, difficulty, categoryID
+ *            (Texte als Index in die String-Tabelle, difficulty als Code aus
+ *            Question.Difficulty, 0 = keine)
+ * Partitions partitionCount Einträge: categoryID, difficulty (Code), firstRef, refCount
+ *            aufsteigend nach categoryID sortiert, ALL_PARTITION fasst alle
+ *            Kategorien zusammen
+ * RecordRefs Record-Nummern, auf die die Partitionen zeigen
+ * </pre>
+ */
+public final class QuestionPackFormat {
+
+    private QuestionPackFormat() {
+
+    }
+
+    public static final int MAGIC = 0x5150434B; // "QPCK"
+    public static final int VERSION = 3;
+
+    public static final int HEADER_INTS = 10;
+
+    public static final int RECORD_INTS = 8;
+    public static final int RECORD_ID = 0;
+    public static final int RECORD_QUESTION = 1;
+    public static final int RECORD_OPTION1 = 2;
+    public static final int RECORD_OPTION2 = 3;
+    public static final int RECORD_OPTION3 = 4;
+    public static final int RECORD_ANSWER_NR = 5;
+    public static final int RECORD_DIFFICULTY = 6;
+    public static final int RECORD_CATEGORY_ID = 7;
+
+    public static final int PARTITION_INTS = 4;
+
+    // categoryID der Partition über alle Kategorien. Nicht 0, damit Fragen
+    // ohne Kategorie (categoryID 0) nicht doppelt darin landen
+    public static final int ALL_PARTITION = -1;
+
+    // Index für null-Texte in der String-Tabelle
+    public static final int NULL_STRING = -1;
+}
@@ -0,0 +1,145 @@
+package de.bfw.cbo.myquizapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import static de.bfw.cbo.myquizapp.QuestionPackFormat.*;
+
+/**
+ * Liest eine Fragen-Pack-Datei per Memory Mapping. Beim Öffnen wird nur der
+ * Header gelesen, Fragen werden erst in get() aus dem Mapping dekodiert.
+ * Thread-sicher, da nur absolute Zugriffe auf den Buffer erfolgen.
+ */
+public class QuestionPackReader {
+
+    private final ByteBuffer buffer;
+    private final IntBuffer stringOffsets;
+    private final IntBuffer records;
+    private final IntBuffer partitions;
+    private final IntBuffer recordRefs;
+    private final int stringDataPos;
+    private final int questionCount;
+    private final int partitionCount;
+
+    private QuestionPackReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Keine Fragen-Pack-Datei");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Nicht unterstützte Version " + buffer.getInt(4));
+        }
+        questionCount = buffer.getInt(8);
+        int stringCount = buffer.getInt(12);
+        partitionCount = buffer.getInt(16);
+        stringDataPos = buffer.getInt(24);
+
+        stringOffsets = slice(buffer.getInt(20), stringCount + 1);
+        records = slice(buffer.getInt(28), questionCount * RECORD_INTS);
+        partitions = slice(buffer.getInt(32), partitionCount * PARTITION_INTS);
+        int recordRefsPos = buffer.getInt(36);
+        recordRefs = slice(recordRefsPos, (buffer.capacity() - recordRefsPos) / 4);
+    }
+
+    public static QuestionPackReader open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // das Mapping bleibt auch nach dem Schließen des Channels gültig
+            FileChannel channel = raf.getChannel();
+            return new QuestionPackReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    public int size() {
+        return questionCount;
+    }
+
+    /**
+     * Record-Nummern einer Partition, leer wenn es sie nicht gibt.
+     * QuestionCache.ALL_CATEGORIES liefert die Partition über alle Kategorien.
+     */
+    public int[] getRecords(int categoryID, String difficulty) {
+        int key = categoryID == QuestionCache.ALL_CATEGORIES ? ALL_PARTITION : categoryID;
+        Question.Difficulty level = Question.Difficulty.fromLabel(difficulty);
+        int difficultyCode = level == null ? 0 : level.getCode();
+        // pro Kategorie gibt es nur wenige Schwierigkeiten, die werden linear verglichen
+        for (int p = firstPartition(key); p < partitionCount; p++) {
+            int base = p * PARTITION_INTS;
+            if (partitions.get(base) != key) {
+                break;
+            }
+            if (partitions.get(base + 1) == difficultyCode) {
+                int[] result = new int[partitions.get(base + 3)];
+                int first = partitions.get(base + 2);
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = recordRefs.get(first + i);
+                }
+                return result;
+            }
+        }
+        return new int[0];
+    }
+
+    // binäre Suche: erste Partition mit categoryID >= key
+    private int firstPartition(int key) {
+        int low = 0;
+        int high = partitionCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (partitions.get(mid * PARTITION_INTS) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int getId(int record) {
+        return records.get(record * RECORD_INTS + RECORD_ID);
+    }
+
+    public Question get(int record) {
+        return getInto(record, new Question());
+    }
+
+    public Question getInto(int record, Question question) {
+        int base = record * RECORD_INTS;
+        question.setId(records.get(base + RECORD_ID));
+        question.setQuestion(getString(records.get(base + RECORD_QUESTION)));
+        question.setOption1(getString(records.get(base + RECORD_OPTION1)));
+        question.setOption2(getString(records.get(base + RECORD_OPTION2)));
+        question.setOption3(getString(records.get(base + RECORD_OPTION3)));
+        question.setAnswerNr(records.get(base + RECORD_ANSWER_NR));
+        question.setDifficultyLevel(Question.Difficulty.fromCode(records.get(base + RECORD_DIFFICULTY)));
+        question.setCategoryID(records.get(base + RECORD_CATEGORY_ID));
+        return question;
+    }
+
+    private String getString(int index) {
+        if (index == NULL_STRING) {
+            return null;
+        }
+        int start = stringDataPos + stringOffsets.get(index);
+        int end = stringDataPos + stringOffsets.get(index + 1);
+        // direkt aus dem Mapping dekodieren, ohne Zwischenkopie in ein byte[]
+        ByteBuffer utf8 = buffer.duplicate();
+        utf8.limit(end);
+        utf8.position(start);
+        return StandardCharsets.UTF_8.decode(utf8).toString();
+    }
+
+    private IntBuffer slice(int position, int count) {
+        ByteBuffer b = buffer.duplicate();
+        b.position(position);
+        b.limit(position + count * 4);
+        return b.slice().asIntBuffer();
+    }
+}
@@ -0,0 +1,218 @@
+package de.bfw.cbo.myquizapp;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+import static de.bfw.cbo.myquizapp.QuestionPackFormat.*;
+
+/**
+ * Exportiert quiz_questions in eine Fragen-Pack-Datei, siehe QuestionPackFormat.
+ */
+public class QuestionPackWriter {
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<Long, Partition> partitions = new LinkedHashMap<>();
+    private final IntList records = new IntList();
+    private int questionCount;
+
+    public static void export(SQLiteDatabase db, File target) throws IOException {
+        QuestionPackWriter writer = new QuestionPackWriter();
+        Cursor c = db.query(QuestionsTable.TABLE_NAME, null, null, null,
+                null, null, QuestionsTable._ID);
+        try {
+            QuestionRowMapper mapper = new QuestionRowMapper(c, db, new OptionDictionary());
+            Question question = new Question();
+            while (c.moveToNext()) {
+                writer.add(mapper.mapInto(c, question));
+            }
+        } finally {
+            c.close();
+        }
+        writer.writeTo(target);
+    }
+
+    public void add(Question question) {
+        int record = questionCount++;
+        records.add(question.getId());
+        records.add(intern(question.getQuestion()));
+        records.add(intern(question.getOption1()));
+        records.add(intern(question.getOption2()));
+        records.add(intern(question.getOption3()));
+        records.add(question.getAnswerNr());
+        records.add(question.getDifficultyCode());
+        records.add(question.getCategoryID());
+
+        partition(question.getCategoryID(), question.getDifficultyCode()).add(record);
+        partition(ALL_PARTITION, question.getDifficultyCode()).add(record);
+    }
+
+    // in eine temporäre Datei schreiben und dann umbenennen, bei Fehlern wird sie gelöscht
+    public void writeTo(File target) throws IOException {
+        ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+        int[] stringOffsets = new int[strings.size() + 1];
+        for (int i = 0; i < strings.size(); i++) {
+            stringOffsets[i] = stringData.size();
+            byte[] utf8 = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            stringData.write(utf8, 0, utf8.length);
+        }
+        stringOffsets[strings.size()] = stringData.size();
+
+        int stringOffsetsPos = HEADER_INTS * 4;
+        int stringDataPos = stringOffsetsPos + stringOffsets.length * 4;
+        // Records auf 4 Byte ausrichten
+        int recordsPos = align(stringDataPos + stringData.size());
+        int partitionsPos = recordsPos + records.size() * 4;
+        int recordRefsPos = partitionsPos + partitions.size() * PARTITION_INTS * 4;
+
+        // der Reader sucht binär nach categoryID
+        List<Partition> sorted = new ArrayList<>(partitions.values());
+        Collections.sort(sorted, new Comparator<Partition>() {
+            @Override
+            public int compare(Partition a, Partition b) {
+                return a.categoryID < b.categoryID ? -1 : (a.categoryID == b.categoryID ? 0 : 1);
+            }
+        });
+
+        File temp = new File(target.getPath() + ".tmp");
+        boolean moved = false;
+        try {
+            writeFile(temp, stringOffsets, stringData, sorted,
+                    stringOffsetsPos, stringDataPos, recordsPos, partitionsPos, recordRefsPos);
+            Files.move(temp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                temp.delete();
+            }
+        }
+    }
+
+    private void writeFile(File file, int[] stringOffsets, ByteArrayOutputStream stringData,
+                           List<Partition> sorted, int stringOffsetsPos, int stringDataPos,
+                           int recordsPos, int partitionsPos, int recordRefsPos) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), 64 * 1024));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(questionCount);
+            out.writeInt(strings.size());
+            out.writeInt(sorted.size());
+            out.writeInt(stringOffsetsPos);
+            out.writeInt(stringDataPos);
+            out.writeInt(recordsPos);
+            out.writeInt(partitionsPos);
+            out.writeInt(recordRefsPos);
+
+            for (int offset : stringOffsets) {
+                out.writeInt(offset);
+            }
+            stringData.writeTo(out);
+            for (int i = stringDataPos + stringData.size(); i < recordsPos; i++) {
+                out.writeByte(0);
+            }
+
+            for (int i = 0; i < records.size(); i++) {
+                out.writeInt(records.get(i));
+            }
+
+            int firstRef = 0;
+            for (Partition partition : sorted) {
+                out.writeInt(partition.categoryID);
+                out.writeInt(partition.difficulty);
+                out.writeInt(firstRef);
+                out.writeInt(partition.refs.size());
+                firstRef += partition.refs.size();
+            }
+            for (Partition partition : sorted) {
+                for (int i = 0; i < partition.refs.size(); i++) {
+                    out.writeInt(partition.refs.get(i));
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private int intern(String s) {
+        if (s == null) {
+            return NULL_STRING;
+        }
+        Integer id = stringIds.get(s);
+        if (id == null) {
+            id = strings.size();
+            strings.add(s);
+            stringIds.put(s, id);
+        }
+        return id;
+    }
+
+    private IntList partition(int categoryID, int difficultyCode) {
+        // beide Werte in einem long, ohne String pro Frage
+        long key = ((long) categoryID << 32) | (difficultyCode & 0xFFFFFFFFL);
+        Partition partition = partitions.get(key);
+        if (partition == null) {
+            partition = new Partition(categoryID, difficultyCode);
+            partitions.put(key, partition);
+        }
+        return partition.refs;
+    }
+
+    private static int align(int pos) {
+        return (pos + 3) & ~3;
+    }
+
+    private static class Partition {
+        final int categoryID;
+        final int difficulty;
+        final IntList refs = new IntList();
+
+        Partition(int categoryID, int difficulty) {
+            this.categoryID = categoryID;
+            this.difficulty = difficulty;
+        }
+    }
+
+    // wachsendes int[] ohne Boxing
+    private static class IntList {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package de.bfw.cbo.myquizapp;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+/**
+ * Liest Zeilen aus quiz_questions in Question-Objekte.
+ * Die Spalten-Indizes werden einmal pro Cursor aufgelöst, nicht pro Zeile,
+ * die Antwort-Texte kommen aus dem OptionDictionary.
+ */
+public class QuestionRowMapper {
+
+    private final int idIndex;
+    private final int questionIndex;
+    private final int option1Index;
+    private final int option2Index;
+    private final int option3Index;
+    private final int answerNrIndex;
+    private final int difficultyIndex;
+    private final int categoryIdIndex;
+    private final SQLiteDatabase db;
+    private final OptionDictionary options;
+
+    public QuestionRowMapper(Cursor c, SQLiteDatabase db, OptionDictionary options) {
+        this.db = db;
+        this.options = options;
+        idIndex = c.getColumnIndexOrThrow(QuestionsTable._ID);
+        questionIndex = c.getColumnIndexOrThrow(QuestionsTable.COLUMN_QUESTION);
+        option1Index = c.getColumnIndexOrThrow(QuestionsTable.COLUMN_OPTION1_ID);
+        option2Index = c.getColumnIndexOrThrow(QuestionsTable.COLUMN_OPTION2_ID);
+        option3Index = c.getColumnIndexOrThrow(QuestionsTable.COLUMN_OPTION3_ID);
+        answerNrIndex = c.getColumnIndexOrThrow(QuestionsTable.COLUMN_ANSWER_NR);
+        difficultyIndex = c.getColumnIndexOrThrow(QuestionsTable.COLUMN_DIFFICULTY);
+        categoryIdIndex = c.getColumnIndexOrThrow(QuestionsTable.COLUMN_CATEGORY_ID);
+    }
+
+    // aktuelle Zeile als neue Question
+    public Question map(Cursor c) {
+        return mapInto(c, new Question());
+    }
+
+    // aktuelle Zeile in eine vorhandene Question schreiben (z.B. aus einem Pool)
+    public Question mapInto(Cursor c, Question question) {
+        question.setId(c.getInt(idIndex));
+        question.setQuestion(c.getString(questionIndex));
+        question.setOption1(options.get(db, c.getInt(option1Index)));
+        question.setOption2(options.get(db, c.getInt(option2Index)));
+        question.setOption3(options.get(db, c.getInt(option3Index)));
+        question.setAnswerNr(c.getInt(answerNrIndex));
+        question.setDifficultyLevel(Question.Difficulty.fromCode(c.getInt(difficultyIndex)));
+        question.setCategoryID(c.getInt(categoryIdIndex));
+        return question;
+    }
+}
@@ -0,0 +1,19 @@
+package de.bfw.cbo.myquizapp;
+
+/**
+ * Wählt die nächste Frage eines Durchgangs abhängig von den bisherigen
+ * Antworten. Aufrufe nur von einem Thread, in der App vom Main-Thread.
+ */
+public interface QuestionScheduler {
+
+    // Anzahl der noch nicht gezogenen Fragen
+    int remaining();
+
+    // zieht die nächste Frage aus dem Pool, null wenn er leer ist
+    Question next();
+
+    void onAnswered(Question question, boolean correct, long timeTakenMillis);
+
+    // IDs der noch nicht gezogenen Fragen ab dest[offset], Reihenfolge beliebig
+    void copyRemainingIds(int[] dest, int offset);
+}
@@ -0,0 +1,19 @@
+package de.bfw.cbo.myquizapp;
+
+/**
+ * Fragen eines Quiz-Durchgangs in fester Reihenfolge.
+ * Die Fragen werden erst bei Bedarf geladen, nicht alle auf einmal.
+ */
+public interface QuestionSource {
+
+    int size();
+
+    // null, wenn die Frage inzwischen gelöscht wurde (Inhalts-Sync), die Positionen bleiben
+    Question get(int position);
+
+    // true, wenn get(position) ohne DB-Zugriff auskommt; sonst erst im Hintergrund laden
+    boolean isLoaded(int position);
+
+    // IDs in Spiel-Reihenfolge, reicht zum Wiederherstellen nach einer Rotation
+    int[] getIds();
+}
@@ -0,0 +1,52 @@
+package de.bfw.cbo.myquizapp;
+
+/**
+ * Vorberechnete Statistik einer Frage aus quiz_question_stats.
+ */
+public class QuestionStats {
+    private int questionId;
+    private int categoryID;
+    private int answerCount;
+    private int correctCount;
+    private long medianMillis;
+    private long averageMillis;
+
+    public QuestionStats(int questionId, int categoryID, int answerCount, int correctCount,
+                         long medianMillis, long averageMillis) {
+        this.questionId = questionId;
+        this.categoryID = categoryID;
+        this.answerCount = answerCount;
+        this.correctCount = correctCount;
+        this.medianMillis = medianMillis;
+        this.averageMillis = averageMillis;
+    }
+
+    public int getQuestionId() {
+        return questionId;
+    }
+
+    public int getCategoryID() {
+        return categoryID;
+    }
+
+    public int getAnswerCount() {
+        return answerCount;
+    }
+
+    public int getCorrectCount() {
+        return correctCount;
+    }
+
+    // Anteil richtiger Antworten, 0..1
+    public double getCorrectRate() {
+        return answerCount == 0 ? 0 : (double) correctCount / answerCount;
+    }
+
+    public long getMedianMillis() {
+        return medianMillis;
+    }
+
+    public long getAverageMillis() {
+        return averageMillis;
+    }
+}
@@ -4,7 +4,9 @@ import android.content.Intent;
 import android.content.res.ColorStateList;
 import android.graphics.Color;
 import android.os.Bundle;
-import android.os.CountDownTimer;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import android.view.View;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
@@ -14,21 +16,17 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Locale;
+import java.io.File;
 
 public class QuizActivity extends AppCompatActivity {
+    private static final String TAG = "QuizActivity";
     public static final String EXTRA_SCORE = "extraScore";
     // Countdown-Timer setzen
     //private static final long COUNTDOWN_IN_MILLIS = 30000;
 
     private static long countdown = 0;
-    private static final String KEY_SCORE = "keyScore";
-    private static final String KEY_QUESTION_COUNT = "keyQuestionCount";
-    private static final String KEY_MILLIS_LEFT = "keyMillisLeft";
-    private static final String KEY_ANSWERED = "keyAnswered";
-    private static final String KEY_QUESTION_LIST = "keyQuestionList";
+    // große ID-Listen des laufenden Durchgangs, siehe QuizSession
+    private static final String SESSION_IDS_FILE = "quiz_session_ids";
 
     private TextView textViewQuestion;
     private TextView textViewScore;
@@ -45,20 +43,68 @@ public class QuizActivity extends AppCompatActivity {
     private ColorStateList textColorDefaultRb;
     private ColorStateList textColorDefaultCd;
 
-    private CountDownTimer countDownTimer;
-    private long timeLeftInMillis;
+    // Spielablauf, null solange die Fragen noch laden; die Activity zeigt nur an
+    private QuizEngine engine;
+    // die Uhr der Engine, getaktet über tickHandler statt CountDownTimer
+    private final Handler tickHandler = new Handler(Looper.getMainLooper());
+    private final Runnable tickRunnable = new Runnable() {
+        @Override
+        public void run() {
+            QuizClock clock = engine.getClock();
+            clock.tick();
+            if (clock.isRunning()) {
+                tickHandler.postDelayed(this, clock.millisUntilNextTick());
+            }
+        }
+    };
+    // wird bei jedem Tick überschrieben, damit kein String entsteht
+    private final char[] countDownText = new char[QuizClock.FORMAT_LENGTH];
+
+    private final QuizEngine.Listener engineListener = new QuizEngine.Listener() {
+        @Override
+        public void onQuestion(QuizEngine engine, Question question) {
+            showQuestion(question);
+            startCountDown();
+        }
 
-    // ! hier ArrayList
-    private ArrayList<Question> questionList;
-    private int questionCounter;
-    private int questionCountTotal;
-    private Question currentQuestion;
+        @Override
+        public void onTick(QuizEngine engine) {
+            updateCountDownText();
+        }
 
-    private int score;
-    private boolean answered;
+        @Override
+        public void onAnswered(QuizEngine engine, Question question, int answerNr, boolean correct,
+                               long timeTakenMillis) {
+            tickHandler.removeCallbacks(tickRunnable);
+            updateCountDownText();
+            if (journalSessionId != 0) {
+                SessionJournal.getInstance(QuizActivity.this).recordAnswer(journalSessionId,
+                        question.getId(), answerNr, correct, timeTakenMillis);
+            }
+            textViewScore.setText("Punkte: " + engine.getScore());
+            showSolution();
+        }
+
+        @Override
+        public void onFinished(QuizEngine engine) {
+            tickHandler.removeCallbacks(tickRunnable);
+            finishQuiz();
+        }
+    };
+
+    // nächste Frage wird im Hintergrund geladen, siehe showNextQuestion()
+    private boolean questionLoading;
+
+    // Durchgang im SessionJournal, 0 = keiner
+    private long journalSessionId;
+    // IDs-Datei gehört zum aktuellen Durchgang, siehe saveSessionIds()
+    private boolean sessionIdsSaved;
 
     private long backPressedTime;
 
+    // nur für die Anzeige, kommt nach dem ersten Laden aus dem Speicher
+    private CategoryRegistry categoryRegistry;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -80,57 +126,49 @@ public class QuizActivity extends AppCompatActivity {
         textColorDefaultRb = rb1.getTextColors();
         textColorDefaultCd = textViewCountDown.getTextColors();
 
+        rbGroup.setOnCheckedChangeListener(new RadioGroup.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(RadioGroup group, int checkedId) {
+                if (engine != null) {
+                    engine.selectAnswer(checkedAnswerNr());
+                }
+            }
+        });
+
         // Schwierigkeit auslesen, aus dem übergebenen Variablen im Intent
         Intent intent = getIntent();
         int categoryID = intent.getIntExtra(StartScreenActivity.EXTRA_CATEGORY_ID, 0);
         String categoryName = intent.getStringExtra(StartScreenActivity.EXTRA_CATEGORY_NAME);
         String difficulty = intent.getStringExtra(StartScreenActivity.EXTRA_DIFFICULTY);
+        int questionCount = intent.getIntExtra(StartScreenActivity.EXTRA_QUESTION_COUNT, 0);
 
-        // Schwierigkeitslevel
-        switch (difficulty) {
-            case "Einfach" :    countdown = 45000;
-                                break;
-            case "Mittel" :     countdown = 40000;
-                                break;
-            case "Schwer" :     countdown = 30000;
-                                break;
-            default :           countdown = 40000;
-                                break;
-        }
+        countdown = QuizEngine.timeLimitFor(Question.Difficulty.fromLabel(difficulty));
 
         textViewCategory.setText("Kategorie: " + categoryName);
         textViewDifficulty.setText("Level: " + difficulty);
 
-        if (savedInstanceState == null) {
-            QuizDbHelper dbHelper = new QuizDbHelper(this);
-            if (categoryID != 6) {
-                questionList = dbHelper.getQuestions(categoryID,difficulty);
-            } else {
-                questionList = dbHelper.getAllQuestions(difficulty);
-            }
-
-            questionCountTotal = questionList.size();
-            Collections.shuffle(questionList); //Zufällige Reihenfolge
+        QuizRepository.getInstance(this).loadCategoryRegistry(
+                new QuizRepository.Callback<CategoryRegistry>() {
+                    @Override
+                    public void onSuccess(CategoryRegistry result) {
+                        categoryRegistry = result;
+                    }
 
-            showNextQuestion();
+                    @Override
+                    public void onError(Exception e) {
+                        // dann bleibt der Name aus dem Intent stehen
+                    }
+                });
+
+        // DB-Zugriff im Hintergrund, bis dahin Ladezustand anzeigen
+        QuizSession session = QuizSession.restoreFrom(savedInstanceState);
+        showLoading(true);
+        if (session != null) {
+            restoreSession(session, categoryID);
+        } else if (intent.getBooleanExtra(StartScreenActivity.EXTRA_RESUME, false)) {
+            resumeFromJournal(categoryID, categoryName, difficulty, questionCount);
         } else {
-            questionList = savedInstanceState.getParcelableArrayList(KEY_QUESTION_LIST);
-            /*if (questionList == null) {
-                finish();
-            }*/
-            questionCountTotal = questionList.size();
-            questionCounter = savedInstanceState.getInt(KEY_QUESTION_COUNT);
-            currentQuestion = questionList.get(questionCounter - 1);
-            score = savedInstanceState.getInt(KEY_SCORE);
-            timeLeftInMillis = savedInstanceState.getLong(KEY_MILLIS_LEFT);
-            answered = savedInstanceState.getBoolean(KEY_ANSWERED);
-
-            if (!answered) {
-                startCountDown();
-            } else {
-                updateCountDownText();
-                showSolution();
-            }
+            startNewSession(categoryID, categoryName, difficulty, questionCount);
         }
 
 
@@ -140,9 +178,9 @@ public class QuizActivity extends AppCompatActivity {
         buttonConfirmNext.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (!answered) {
+                if (!engine.isAnswered()) {
                     if (rb1.isChecked() || rb2.isChecked() || rb3.isChecked()) {
-                        checkAnswer();
+                        engine.checkAnswer();
                     } else {
                         Toast.makeText(QuizActivity.this, R.string.toast_choose_answer,Toast.LENGTH_SHORT).show();
                     }
@@ -153,86 +191,244 @@ public class QuizActivity extends AppCompatActivity {
         });
     }
 
-    private void showNextQuestion() {
-        rb1.setTextColor(textColorDefaultRb);
-        rb2.setTextColor(textColorDefaultRb);
-        rb3.setTextColor(textColorDefaultRb);
-        rbGroup.clearCheck();
-
-        // Frage von anzeigen
-        if (questionCounter < questionCountTotal) {
-            currentQuestion = questionList.get(questionCounter);
-
-            textViewQuestion.setText(currentQuestion.getQuestion());
-            rb1.setText(currentQuestion.getOption1());
-            rb2.setText(currentQuestion.getOption2());
-            rb3.setText(currentQuestion.getOption3());
-            //TODO Kategorie beim mischen anzeigen
-            textViewCategory.setText("Kategorie: " + currentQuestion.getCategoryID());
-
-
-            questionCounter++;
-            textViewQuestionCount.setText("Frage: " + questionCounter + "/" + questionCountTotal);
-            answered = false;
-            buttonConfirmNext.setText(R.string.confirm);
+    private void startNewSession(final int categoryID, final String categoryName,
+                                 final String difficulty, int questionCount) {
+        QuizRepository.Callback<QuestionSource> callback = new QuizRepository.Callback<QuestionSource>() {
+            @Override
+            public void onSuccess(QuestionSource result) {
+                if (isDestroyed()) {
+                    return;
+                }
+                showLoading(false);
+                if (result.size() == 0) {
+                    // nur die Wiederholung kann leer sein, weil gerade nichts fällig ist
+                    Toast.makeText(QuizActivity.this, Question.DIFFICULTY_REVIEW.equals(difficulty)
+                                    ? R.string.toast_no_questions_due : R.string.toast_no_questions,
+                            Toast.LENGTH_LONG).show();
+                    finishQuiz();
+                    return;
+                }
+                engine = new QuizEngine(result, countdown, QuizClock.ELAPSED_REALTIME, engineListener);
+                journalSessionId = SessionJournal.getInstance(QuizActivity.this)
+                        .startSession(categoryID, categoryName, difficulty, result.getIds());
+                // neuer Durchgang, eine alte IDs-Datei gilt nicht mehr
+                sessionIdsSaved = false;
+                saveSessionIds();
+
+                showNextQuestion();
+            }
 
-            //timeLeftInMillis = COUNTDOWN_IN_MILLIS;
-            timeLeftInMillis = countdown;
-            startCountDown();
+            @Override
+            public void onError(Exception e) {
+                onLoadingFailed();
+            }
+        };
 
+        QuizRepository repository = QuizRepository.getInstance(this);
+        if (Question.DIFFICULTY_ADAPTIVE.equals(difficulty)) {
+            repository.loadAdaptiveQuestionSource(categoryID, questionCount, countdown, callback);
+        } else if (Question.DIFFICULTY_REVIEW.equals(difficulty)) {
+            repository.loadReviewSource(categoryID, questionCount, callback);
         } else {
-            finishQuiz();
+            repository.loadQuestionSource(categoryID, difficulty, questionCount, callback);
         }
     }
 
-    // CountDownTimer Klasse bereits in Android vorhanden
-    private void startCountDown() {
-        countDownTimer = new CountDownTimer(timeLeftInMillis, 1000) {
+    // nach einer Rotation oder Prozess-Ende
+    private void restoreSession(final QuizSession session, int categoryID) {
+        journalSessionId = session.getJournalSessionId();
+
+        QuizRepository.getInstance(this).openQuestionSource(session, categoryID, countdown,
+                new QuizRepository.Callback<QuestionSource>() {
+                    @Override
+                    public void onSuccess(QuestionSource result) {
+                        if (isDestroyed()) {
+                            return;
+                        }
+                        showLoading(false);
+                        engine = new QuizEngine(result, countdown, QuizClock.ELAPSED_REALTIME,
+                                engineListener);
+                        // läuft nach der Rotation mit der gespeicherten Restzeit weiter
+                        engine.restore(session.getQuestionCounter(), session.getScore(),
+                                session.isAnswered(), countdown - session.getTimeLeftInMillis());
+                        sessionIdsSaved = session.getQuestionIdsFile() != null;
+                        saveSessionIds();
+                        textViewScore.setText("Punkte: " + engine.getScore());
+                        if (engine.getCurrentQuestion() == null) {
+                            // aktuelle Frage wurde inzwischen gelöscht
+                            showNextQuestion();
+                            return;
+                        }
+                        showQuestion(engine.getCurrentQuestion());
+
+                        if (!engine.isAnswered()) {
+                            // die RadioGroup hat ihre Auswahl schon vor der Engine wiederhergestellt
+                            engine.selectAnswer(checkedAnswerNr());
+                            engine.resume();
+                            startCountDown();
+                        } else {
+                            updateCountDownText();
+                            showSolution();
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        onLoadingFailed();
+                    }
+                });
+    }
+
+    // nach einem Absturz: weiter mit der ersten unbeantworteten Frage aus dem Journal
+    private void resumeFromJournal(final int categoryID, final String categoryName,
+                                   final String difficulty, final int questionCount) {
+        final QuizRepository repository = QuizRepository.getInstance(this);
+        repository.loadUnfinishedSession(new QuizRepository.Callback<SessionJournal.OpenSession>() {
             @Override
-            public void onTick(long millisUntilFinished) {
-                timeLeftInMillis = millisUntilFinished;
-                updateCountDownText();
+            public void onSuccess(SessionJournal.OpenSession openSession) {
+                if (isDestroyed()) {
+                    return;
+                }
+                if (openSession == null) {
+                    startNewSession(categoryID, categoryName, difficulty, questionCount);
+                    return;
+                }
+                final QuizSession session = QuizSession.resume(openSession);
+                journalSessionId = session.getJournalSessionId();
+                textViewScore.setText("Punkte: " + session.getScore());
+
+                repository.openQuestionSource(session, openSession.getCategoryID(), countdown,
+                        new QuizRepository.Callback<QuestionSource>() {
+                            @Override
+                            public void onSuccess(QuestionSource result) {
+                                if (isDestroyed()) {
+                                    return;
+                                }
+                                showLoading(false);
+                                engine = new QuizEngine(result, countdown, QuizClock.ELAPSED_REALTIME,
+                                        engineListener);
+                                engine.restore(session.getQuestionCounter(), session.getScore(), true, 0);
+                                sessionIdsSaved = false;
+                                saveSessionIds();
+
+                                showNextQuestion();
+                            }
+
+                            @Override
+                            public void onError(Exception e) {
+                                onLoadingFailed();
+                            }
+                        });
             }
 
             @Override
-            public void onFinish() {
-                timeLeftInMillis = 0;
-                updateCountDownText();
-                checkAnswer();
+            public void onError(Exception e) {
+                onLoadingFailed();
             }
-        }.start();
+        });
     }
 
-    private void updateCountDownText() {
-        int minutes = (int)(timeLeftInMillis / 1000) / 60;
-        int seconds = (int)(timeLeftInMillis / 1000) % 60;
+    private void showLoading(boolean loading) {
+        buttonConfirmNext.setEnabled(!loading);
+        if (loading) {
+            textViewQuestion.setText(R.string.loading_questions);
+        }
+    }
 
-        String timeFormatted = String.format(Locale.getDefault(),"%02d:%02d", minutes, seconds);
+    private void onLoadingFailed() {
+        if (isDestroyed()) {
+            return;
+        }
+        Toast.makeText(this, R.string.toast_loading_failed, Toast.LENGTH_LONG).show();
+        finishQuiz();
+    }
 
-        textViewCountDown.setText(timeFormatted);
+    private void showNextQuestion() {
+        if (questionLoading) {
+            return;
+        }
+        rb1.setTextColor(textColorDefaultRb);
+        rb2.setTextColor(textColorDefaultRb);
+        rb3.setTextColor(textColorDefaultRb);
+        rbGroup.clearCheck();
 
-        if (timeLeftInMillis < 10000) {
-            textViewCountDown.setTextColor(Color.RED);
-        } else {
-            textViewCountDown.setTextColor(textColorDefaultCd);
+        QuestionSource source = engine.getQuestionSource();
+        int position = engine.getQuestionNumber();
+        if (position >= source.size() || source.isLoaded(position)) {
+            // meldet onQuestion() oder am Ende onFinished()
+            engine.showNextQuestion();
+            return;
         }
 
+        // Block noch nicht da: im Hintergrund laden, nie auf dem UI-Thread
+        questionLoading = true;
+        buttonConfirmNext.setEnabled(false);
+        final QuizEngine loadingEngine = engine;
+        QuizRepository.getInstance(this).loadQuestion(source, position,
+                new QuizRepository.Callback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        questionLoading = false;
+                        if (isDestroyed() || engine != loadingEngine) {
+                            return;
+                        }
+                        buttonConfirmNext.setEnabled(true);
+                        engine.showNextQuestion();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        questionLoading = false;
+                        if (!isDestroyed()) {
+                            onLoadingFailed();
+                        }
+                    }
+                });
     }
 
-    private void checkAnswer() {
-        answered = true;
+    private void showQuestion(Question question) {
+        textViewQuestion.setText(question.getQuestion());
+        rb1.setText(question.getOption1());
+        rb2.setText(question.getOption2());
+        rb3.setText(question.getOption3());
+        // beim Mischen die Kategorie der einzelnen Frage anzeigen
+        Category category = categoryRegistry == null
+                ? null : categoryRegistry.get(question.getCategoryID());
+        if (category != null) {
+            textViewCategory.setText("Kategorie: " + category.getName());
+        }
+        if (engine.getQuestionSource() instanceof ScheduledQuestionSource) {
+            textViewDifficulty.setText("Level: " + Question.DIFFICULTY_ADAPTIVE +
+                    " (" + question.getDifficulty() + ")");
+        }
 
-        countDownTimer.cancel();
+        textViewQuestionCount.setText("Frage: " + engine.getQuestionNumber() + "/" + engine.getQuestionCount());
+        buttonConfirmNext.setText(R.string.confirm);
+    }
 
+    // 1-3, 0 wenn nichts gewählt ist
+    private int checkedAnswerNr() {
         RadioButton rbSelected = findViewById(rbGroup.getCheckedRadioButtonId());
-        int answerNr = rbGroup.indexOfChild(rbSelected) + 1;
+        return rbGroup.indexOfChild(rbSelected) + 1;
+    }
 
-        if (answerNr == currentQuestion.getAnswerNr()) {
-            score++;
-            textViewScore.setText("Punkte: " + score);
+    private void startCountDown() {
+        updateCountDownText();
+        tickHandler.removeCallbacks(tickRunnable);
+        tickHandler.postDelayed(tickRunnable, engine.getClock().millisUntilNextTick());
+    }
+
+    private void updateCountDownText() {
+        QuizClock clock = engine.getClock();
+        int length = clock.format(countDownText);
+        textViewCountDown.setText(countDownText, 0, length);
+
+        if (clock.remaining() < 10000) {
+            textViewCountDown.setTextColor(Color.RED);
+        } else {
+            textViewCountDown.setTextColor(textColorDefaultCd);
         }
 
-        showSolution();
     }
 
     private void showSolution() {
@@ -240,7 +436,7 @@ public class QuizActivity extends AppCompatActivity {
         rb2.setTextColor(Color.RED);
         rb3.setTextColor(Color.RED);
 
-        switch (currentQuestion.getAnswerNr()) {
+        switch (engine.getCurrentQuestion().getAnswerNr()) {
             case 1:
                 rb1.setTextColor(Color.GREEN);
                 textViewQuestion.setText("Anwort 1 ist korrekt");
@@ -255,24 +451,71 @@ public class QuizActivity extends AppCompatActivity {
                 break;
         }
 
-        if (questionCounter < questionCountTotal) {
+        if (engine.hasNextQuestion()) {
             buttonConfirmNext.setText(R.string.next);
         } else {
             buttonConfirmNext.setText(R.string.finish);
         }
     }
 
+    private File getSessionIdsFile() {
+        return new File(getFilesDir(), SESSION_IDS_FILE);
+    }
+
+    // große ID-Listen einmal pro Durchgang im Hintergrund in die Datei schreiben
+    private void saveSessionIds() {
+        int[] ids = engine.getQuestionSource().getIds();
+        if (sessionIdsSaved || QuizSession.fitsInBundle(ids)) {
+            return;
+        }
+        final QuizEngine savedEngine = engine;
+        QuizRepository.getInstance(this).saveSessionIds(getSessionIdsFile(), ids,
+                new QuizRepository.Callback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        sessionIdsSaved = engine == savedEngine;
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        // dann landen die IDs in onSaveInstanceState im Bundle
+                    }
+                });
+    }
+
     private void finishQuiz() {
+        getSessionIdsFile().delete();
+        int score = engine != null ? engine.getScore() : 0;
+        if (journalSessionId != 0) {
+            SessionJournal.getInstance(this).finishSession(journalSessionId, score);
+        }
+        // Bestenliste: wofür die Punkte zählen, steht im Start-Intent
+        Intent intent = getIntent();
         Intent resultIntent = new Intent();
         resultIntent.putExtra(EXTRA_SCORE, score);
-        setResult(RESULT_OK, resultIntent);
+        resultIntent.putExtra(StartScreenActivity.EXTRA_CATEGORY_ID,
+                intent.getIntExtra(StartScreenActivity.EXTRA_CATEGORY_ID, 0));
+        resultIntent.putExtra(StartScreenActivity.EXTRA_DIFFICULTY,
+                intent.getStringExtra(StartScreenActivity.EXTRA_DIFFICULTY));
+        resultIntent.putExtra(StartScreenActivity.EXTRA_QUESTION_COUNT,
+                engine != null ? engine.getQuestionCount() : 0);
+        // abgebrochen, leer oder nicht geladen: nichts für die Bestenliste
+        if (engine != null && engine.getAnsweredCount() > 0) {
+            setResult(RESULT_OK, resultIntent);
+        } else {
+            setResult(RESULT_CANCELED);
+        }
         finish();
     }
 
     @Override
     public void onBackPressed() {
         if (backPressedTime + 2000 > System.currentTimeMillis()) {
-            finishQuiz();
+            if (engine != null) {
+                engine.finish();
+            } else {
+                finishQuiz();
+            }
         } else {
             Toast.makeText(this,getString(R.string.backpressed_again),Toast.LENGTH_LONG).show();
         }
@@ -284,19 +527,29 @@ public class QuizActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (countDownTimer != null) {
-            countDownTimer.cancel();
-        }
+        tickHandler.removeCallbacks(tickRunnable);
     }
 
     // beim plötzlichen Verlassen der App
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
-        outState.putInt(KEY_SCORE, score);
-        outState.putInt(KEY_QUESTION_COUNT, questionCounter);
-        outState.putLong(KEY_MILLIS_LEFT,timeLeftInMillis);
-        outState.putBoolean(KEY_ANSWERED, answered);
-        outState.putParcelableArrayList(KEY_QUESTION_LIST, questionList);
+        // noch beim Laden: dann wird nach der Rotation neu geladen
+        if (engine != null) {
+            int adaptiveLevel = QuizSession.NOT_ADAPTIVE;
+            double adaptivePerformance = 0;
+            QuestionSource source = engine.getQuestionSource();
+            if (source instanceof ScheduledQuestionSource && ((ScheduledQuestionSource) source)
+                    .getScheduler() instanceof AdaptiveQuestionScheduler) {
+                AdaptiveQuestionScheduler scheduler =
+                        (AdaptiveQuestionScheduler) ((ScheduledQuestionSource) source).getScheduler();
+                adaptiveLevel = scheduler.getLevel();
+                adaptivePerformance = scheduler.getPerformance();
+            }
+            QuizSession session = new QuizSession(source.getIds(),
+                    engine.getQuestionNumber(), engine.getScore(), engine.getClock().remaining(),
+                    engine.isAnswered(), journalSessionId, adaptiveLevel, adaptivePerformance);
+            session.saveTo(outState, sessionIdsSaved ? getSessionIdsFile() : null);
+        }
     }
 }
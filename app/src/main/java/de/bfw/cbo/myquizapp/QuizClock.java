@@ -0,0 +1,132 @@
+package de.bfw.cbo.myquizapp;
+
+import android.os.SystemClock;
+
+/**
+ * Countdown pro Frage auf einer monotonen Zeitquelle. Die verbleibende Zeit
+ * wird immer aus der Startzeit berechnet, nicht aus gezählten Ticks, und
+ * läuft daher auch bei verspäteten Ticks nicht weg.
+ *
+ * Eine Instanz reicht für den ganzen Durchgang: reset() für die nächste
+ * Frage, tick() ruft der Aufrufer selbst auf (z.B. über einen Handler,
+ * siehe millisUntilNextTick()). Legt nach dem Anlegen keine Objekte mehr an.
+ */
+public class QuizClock {
+
+    // "mm:ss"
+    public static final int FORMAT_LENGTH = 5;
+
+    public interface TimeSource {
+        // monotone Millisekunden, z.B. SystemClock.elapsedRealtime()
+        long now();
+    }
+
+    public interface Listener {
+        void onTick(QuizClock clock);
+
+        void onFinish(QuizClock clock);
+    }
+
+    public static final TimeSource ELAPSED_REALTIME = new TimeSource() {
+        @Override
+        public long now() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    private final TimeSource timeSource;
+    private final Listener listener;
+
+    private long durationMillis;
+    // bis zum letzten stop() verstrichen
+    private long elapsedBefore;
+    private long startedAt;
+    private boolean running;
+
+    public QuizClock(TimeSource timeSource, Listener listener) {
+        this.timeSource = timeSource;
+        this.listener = listener;
+    }
+
+    /**
+     * Angehalten auf elapsedMillis von durationMillis, z.B. 0 für eine neue
+     * Frage oder die schon verstrichene Zeit nach einer Rotation.
+     */
+    public void reset(long durationMillis, long elapsedMillis) {
+        this.durationMillis = durationMillis;
+        elapsedBefore = Math.max(0, Math.min(elapsedMillis, durationMillis));
+        running = false;
+    }
+
+    public void start() {
+        if (!running) {
+            startedAt = timeSource.now();
+            running = true;
+        }
+    }
+
+    // hält die Zeit an, start() läuft an derselben Stelle weiter
+    public void stop() {
+        if (running) {
+            elapsedBefore = elapsed();
+            running = false;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long elapsed() {
+        long elapsed = elapsedBefore;
+        if (running) {
+            elapsed += timeSource.now() - startedAt;
+        }
+        return Math.min(elapsed, durationMillis);
+    }
+
+    public long remaining() {
+        return durationMillis - elapsed();
+    }
+
+    /**
+     * Benachrichtigt den Listener; bei Ablauf wird die Uhr angehalten und
+     * onFinish() statt onTick() aufgerufen.
+     */
+    public void tick() {
+        if (!running) {
+            return;
+        }
+        if (remaining() <= 0) {
+            stop();
+            listener.onFinish(this);
+        } else {
+            listener.onTick(this);
+        }
+    }
+
+    // bis zum nächsten Sekundenwechsel der Anzeige
+    public long millisUntilNextTick() {
+        long remaining = remaining();
+        long untilNext = remaining % 1000;
+        return untilNext == 0 ? Math.min(1000, Math.max(remaining, 1)) : untilNext;
+    }
+
+    /**
+     * Verbleibende Zeit als "mm:ss" in dest[0..4], ohne String anzulegen.
+     * Für TextView.setText(char[], int, int).
+     *
+     * @return Anzahl geschriebener Zeichen
+     */
+    public int format(char[] dest) {
+        long seconds = remaining() / 1000;
+        long minutes = Math.min(seconds / 60, 99);
+        seconds %= 60;
+        dest[0] = (char) ('0' + minutes / 10);
+        dest[1] = (char) ('0' + minutes % 10);
+        dest[2] = ':';
+        dest[3] = (char) ('0' + seconds / 10);
+        dest[4] = (char) ('0' + seconds % 10);
+        return FORMAT_LENGTH;
+    }
+}
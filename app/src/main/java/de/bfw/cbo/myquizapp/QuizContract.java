@@ -16,17 +16,126 @@ public final class QuizContract {
     public static class CategoriesTables implements BaseColumns {
         public static final String TABLE_NAME = "quiz_categories";
         public static final String COLUMN_NAME = "name";
+        public static final String COLUMN_MIXED = "mixed"; // 1 = Fragen aus allen Kategorien
+    }
+
+    // Anzahl Fragen pro Kategorie und Schwierigkeit, per Trigger gepflegt
+    public static class CategoryCountsTable {
+        public static final String TABLE_NAME = "quiz_category_counts";
+        public static final String COLUMN_CATEGORY_ID = "category_id";
+        public static final String COLUMN_DIFFICULTY = "difficulty"; // Code, 0 = keine
+        public static final String COLUMN_QUESTION_COUNT = "question_count";
     }
 
     // _id wird automatisch generiert
     public static class QuestionsTable implements BaseColumns {
         public static final String TABLE_NAME ="quiz_questions";
         public static final String COLUMN_QUESTION ="question";
+        // _id in quiz_option_strings, NULL = keine Antwort
+        public static final String COLUMN_OPTION1_ID = "option1_id";
+        public static final String COLUMN_OPTION2_ID = "option2_id";
+        public static final String COLUMN_OPTION3_ID = "option3_id";
+        // Antwort-Texte: Spalten von QuestionsTextView und FTS, vor Version 11 auch dieser Tabelle
         public static final String COLUMN_OPTION1 = "option1";
         public static final String COLUMN_OPTION2 = "option2";
         public static final String COLUMN_OPTION3 = "option3";
         public static final String COLUMN_ANSWER_NR = "answer_nr";
         public static final String COLUMN_DIFFICULTY = "difficulty";
         public static final String COLUMN_CATEGORY_ID = "category_id";
+
+        // lokal angelegte Fragen bekommen IDs ab hier, darunter gehören sie dem Inhalts-Server
+        public static final int FIRST_LOCAL_ID = 1 << 30;
+    }
+
+    // jeder Antwort-Text nur einmal, siehe OptionDictionary
+    public static class OptionStringsTable implements BaseColumns {
+        public static final String TABLE_NAME = "quiz_option_strings";
+        public static final String COLUMN_TEXT = "text";
+    }
+
+    // quiz_questions mit Antwort-Texten statt IDs, Inhalt des FTS-Index
+    public static class QuestionsTextView {
+        public static final String TABLE_NAME = "quiz_questions_text";
+        public static final String COLUMN_ROWID = "rowid"; // = _id der Frage, FTS4 liest über rowid
+    }
+
+    // ein Quiz-Durchgang, _id wird von SessionJournal vergeben
+    public static class SessionsTable implements BaseColumns {
+        public static final String TABLE_NAME = "quiz_sessions";
+        public static final String COLUMN_CATEGORY_ID = "category_id";
+        public static final String COLUMN_CATEGORY_NAME = "category_name";
+        public static final String COLUMN_DIFFICULTY = "difficulty"; // Question.selectionCode()
+        public static final String COLUMN_QUESTION_IDS = "question_ids"; // int[] als BLOB
+        public static final String COLUMN_STARTED_AT = "started_at";
+        public static final String COLUMN_FINISHED_AT = "finished_at"; // NULL = läuft noch
+        public static final String COLUMN_SCORE = "score";
+    }
+
+    // Journal: eine Zeile pro beantworteter Frage, wird nur angehängt
+    public static class AnswersTable implements BaseColumns {
+        public static final String TABLE_NAME = "quiz_answers";
+        public static final String COLUMN_SESSION_ID = "session_id";
+        public static final String COLUMN_QUESTION_ID = "question_id";
+        public static final String COLUMN_CHOSEN_NR = "chosen_nr"; // 0 = keine Antwort
+        public static final String COLUMN_CORRECT = "correct";
+        public static final String COLUMN_TIME_TAKEN = "time_taken_ms";
+        public static final String COLUMN_ANSWERED_AT = "answered_at";
+    }
+
+    // laufend aktualisierte Statistik pro Frage, gespeist aus dem Journal
+    public static class QuestionStatsTable {
+        public static final String TABLE_NAME = "quiz_question_stats";
+        public static final String COLUMN_QUESTION_ID = "question_id";
+        public static final String COLUMN_CATEGORY_ID = "category_id";
+        public static final String COLUMN_ANSWER_COUNT = "answer_count";
+        public static final String COLUMN_CORRECT_COUNT = "correct_count";
+        public static final String COLUMN_TIME_SUM = "time_sum_ms";
+        public static final String COLUMN_CORRECT_RATE = "correct_rate"; // für den Index
+        public static final String COLUMN_MEDIAN_TIME = "median_ms";
+        public static final String COLUMN_TIME_SKETCH = "time_sketch"; // AnswerTimeSketch
+    }
+
+    // Lernstand pro Frage für die Wiederholung (SM-2), siehe SpacedRepetition
+    public static class ReviewStateTable {
+        public static final String TABLE_NAME = "quiz_review_state";
+        public static final String COLUMN_QUESTION_ID = "question_id";
+        public static final String COLUMN_CATEGORY_ID = "category_id";
+        public static final String COLUMN_REPETITIONS = "repetitions";
+        public static final String COLUMN_INTERVAL_DAYS = "interval_days";
+        public static final String COLUMN_EASE_FACTOR = "ease_factor";
+        public static final String COLUMN_DUE_AT = "due_at";
+    }
+
+    // ein beendeter Durchgang pro Zeile, _id wird automatisch generiert
+    public static class LeaderboardTable implements BaseColumns {
+        public static final String TABLE_NAME = "quiz_leaderboard";
+        public static final String COLUMN_PLAYER = "player";
+        public static final String COLUMN_CATEGORY_ID = "category_id";
+        public static final String COLUMN_DIFFICULTY = "difficulty"; // Question.selectionCode(), 0 = keine
+        public static final String COLUMN_SCORE = "score";
+        public static final String COLUMN_QUESTION_COUNT = "question_count";
+        public static final String COLUMN_FINISHED_AT = "finished_at";
+    }
+
+    // Anzahl Durchgänge pro Bestenliste und Punktzahl, per Trigger gepflegt
+    public static class LeaderboardScoresTable {
+        public static final String TABLE_NAME = "quiz_leaderboard_scores";
+        public static final String COLUMN_CATEGORY_ID = "category_id";
+        public static final String COLUMN_DIFFICULTY = "difficulty";
+        public static final String COLUMN_SCORE = "score";
+        public static final String COLUMN_RUN_COUNT = "run_count";
+    }
+
+    // eine Zeile (_id = 1): Stand des Fragen-Katalogs beim Inhalts-Server, siehe ContentSyncClient
+    public static class SyncStateTable implements BaseColumns {
+        public static final String TABLE_NAME = "quiz_sync_state";
+        public static final String COLUMN_CONTENT_VERSION = "content_version"; // 0 = Asset-DB
+        public static final String COLUMN_ETAG = "etag";
+    }
+
+    // FTS4-Volltextindex über quiz_questions, docid = _id der Frage
+    public static class QuestionsFtsTable {
+        public static final String TABLE_NAME = "quiz_questions_fts";
+        public static final String COLUMN_DOCID = "docid";
     }
 }
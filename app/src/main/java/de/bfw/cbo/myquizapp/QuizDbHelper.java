@@ -5,8 +5,10 @@ package de.bfw.cbo.myquizapp;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 // Klasse einbinden, in der das Layout festgelegt wurde
@@ -15,28 +17,177 @@ import de.bfw.cbo.myquizapp.QuizContract.*;
 import androidx.annotation.Nullable;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
+/**
+ * Zugriff aus mehreren Threads: jede Methode holt sich die DB selbst, es gibt
+ * kein gemeinsames SQLiteDatabase-Feld. Mit WAL (onConfigure()) lesen mehrere
+ * Threads parallel über den Verbindungs-Pool, Schreibzugriffe laufen
+ * nacheinander über die eine Schreib-Verbindung. Ein Import hält Leser also
+ * nicht auf.
+ */
 public class QuizDbHelper extends SQLiteOpenHelper {
 
     //https://stackoverflow.com/questions/513084/ship-an-application-with-a-database
     private static final String TAG = "SQLiteOpenHelper";
 
     private final Context context;
-    private boolean createDb = false, upgradeDb = false;
+    private boolean provisioned = false;
 
     private static final String DATABASE_NAME = "MyQuizApp.db";
-    private static final int DATABASE_VERSION = 2; // Trigger onUpgrade
+    private static final int DATABASE_VERSION = 16; // Trigger onUpgrade
 
     // aus der klasse ein Singleton machen, damit nur eine Instanz auf die DB zugreift
     private static QuizDbHelper instance;
 
-    private SQLiteDatabase db;
+    // Anzahl Zeilen pro Transaktion beim Massen-Import
+    static final int IMPORT_CHUNK_SIZE = 500;
+
+    // SQLite erlaubt höchstens 999 ?-Parameter pro Abfrage
+    private static final int MAX_SQL_VARIABLES = 500;
+
+    // sampleQuestions(): eine Probe per Index-Lookup kostet etwa so viel wie
+    // acht IDs beim Durchlaufen der Partition
+    private static final int SAMPLE_PROBE_COST = 8;
+
+    private static final String SQL_INSERT_CATEGORY = "INSERT INTO " +
+            CategoriesTables.TABLE_NAME + " (" +
+            CategoriesTables.COLUMN_NAME + ", " +
+            CategoriesTables.COLUMN_MIXED + ") VALUES (?, ?)";
+
+    // vor Version 9 stand "Mischen" fest auf dieser ID, nur noch für die Migration
+    private static final int LEGACY_MIXED_CATEGORY_ID = 6;
+
+    static final String SQL_INSERT_QUESTION = "INSERT INTO " +
+            QuestionsTable.TABLE_NAME + " (" +
+            QuestionsTable.COLUMN_QUESTION + ", " +
+            QuestionsTable.COLUMN_OPTION1_ID + ", " +
+            QuestionsTable.COLUMN_OPTION2_ID + ", " +
+            QuestionsTable.COLUMN_OPTION3_ID + ", " +
+            QuestionsTable.COLUMN_ANSWER_NR + ", " +
+            QuestionsTable.COLUMN_DIFFICULTY + ", " +
+            QuestionsTable.COLUMN_CATEGORY_ID + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Spalten in derselben Reihenfolge wie SQL_INSERT_QUESTION, siehe bindQuestion()
+    private static final String SQL_UPDATE_QUESTION = "UPDATE " +
+            QuestionsTable.TABLE_NAME + " SET " +
+            QuestionsTable.COLUMN_QUESTION + " = ?, " +
+            QuestionsTable.COLUMN_OPTION1_ID + " = ?, " +
+            QuestionsTable.COLUMN_OPTION2_ID + " = ?, " +
+            QuestionsTable.COLUMN_OPTION3_ID + " = ?, " +
+            QuestionsTable.COLUMN_ANSWER_NR + " = ?, " +
+            QuestionsTable.COLUMN_DIFFICULTY + " = ?, " +
+            QuestionsTable.COLUMN_CATEGORY_ID + " = ? WHERE " +
+            QuestionsTable._ID + " = ?";
+    private static final String SQL_INSERT_QUESTION_WITH_ID = "INSERT INTO " +
+            QuestionsTable.TABLE_NAME + " (" +
+            QuestionsTable.COLUMN_QUESTION + ", " +
+            QuestionsTable.COLUMN_OPTION1_ID + ", " +
+            QuestionsTable.COLUMN_OPTION2_ID + ", " +
+            QuestionsTable.COLUMN_OPTION3_ID + ", " +
+            QuestionsTable.COLUMN_ANSWER_NR + ", " +
+            QuestionsTable.COLUMN_DIFFICULTY + ", " +
+            QuestionsTable.COLUMN_CATEGORY_ID + ", " +
+            QuestionsTable._ID + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // WHERE-Klauseln der häufigen Abfragen, werden durch die Indizes abgedeckt
+    static final String SELECTION_DIFFICULTY = QuestionsTable.COLUMN_DIFFICULTY + " = ? ";
+    static final String SELECTION_CATEGORY_DIFFICULTY = QuestionsTable.COLUMN_CATEGORY_ID + " = ? " +
+            " AND " + QuestionsTable.COLUMN_DIFFICULTY + " = ? ";
+
+    // Schema der Fragen-Tabellen als SQL, siehe sqlCreateQuestionSchema()
+    static final String SQL_CREATE_CATEGORIES_TABLE = "CREATE TABLE " +
+            CategoriesTables.TABLE_NAME + "( " +
+            CategoriesTables._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            CategoriesTables.COLUMN_NAME + " TEXT, " +
+            CategoriesTables.COLUMN_MIXED + " INTEGER NOT NULL DEFAULT 0" +
+            ")";
+    // Indizes für getQuestions(categoryID, difficulty) und getAllQuestions(difficulty)
+    static final String[] SQL_CREATE_QUESTION_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS idx_questions_category_difficulty ON " +
+                    QuestionsTable.TABLE_NAME + " (" +
+                    QuestionsTable.COLUMN_CATEGORY_ID + ", " +
+                    QuestionsTable.COLUMN_DIFFICULTY + ")",
+            "CREATE INDEX IF NOT EXISTS idx_questions_difficulty ON " +
+                    QuestionsTable.TABLE_NAME + " (" +
+                    QuestionsTable.COLUMN_DIFFICULTY + ")"
+    };
+
+    // Schwierigkeits-Statistik, abgedeckt durch idx_question_stats_rate bzw. _rate_all:
+    // der Index wird in Sortierreihenfolge gelesen, bis limit Zeilen gefunden sind
+    static final String SELECTION_STATS_ALL = QuestionStatsTable.COLUMN_ANSWER_COUNT + " >= ?";
+    static final String SELECTION_STATS_CATEGORY = QuestionStatsTable.COLUMN_CATEGORY_ID + " = ? AND " +
+            SELECTION_STATS_ALL;
+    static final String ORDER_STATS_HARDEST = QuestionStatsTable.COLUMN_CORRECT_RATE + " ASC, " +
+            QuestionStatsTable.COLUMN_MEDIAN_TIME + " DESC";
+    static final String ORDER_STATS_EASIEST = QuestionStatsTable.COLUMN_CORRECT_RATE + " DESC, " +
+            QuestionStatsTable.COLUMN_MEDIAN_TIME + " ASC";
+
+    /**
+     * Volltextsuche, sortiert nach Anzahl der Treffer. offsets() liefert pro
+     * Treffer vier Zahlen durch Leerzeichen getrennt, die Anzahl der Treffer
+     * ist also (Leerzeichen + 1) / 4. Bei gleicher Anzahl entscheidet die ID,
+     * damit limit/offset stabil blättern.
+     */
+    static final String SQL_SEARCH = "SELECT q.* FROM " + QuestionsTable.TABLE_NAME + " q JOIN (" +
+            "SELECT " + QuestionsFtsTable.COLUMN_DOCID + ", (length(o) - length(replace(o, ' ', '')) + 1) / 4 AS rank" +
+            " FROM (SELECT " + QuestionsFtsTable.COLUMN_DOCID + ", offsets(" + QuestionsFtsTable.TABLE_NAME + ") AS o" +
+            " FROM " + QuestionsFtsTable.TABLE_NAME + " WHERE " + QuestionsFtsTable.TABLE_NAME + " MATCH ?)" +
+            " ORDER BY rank DESC, " + QuestionsFtsTable.COLUMN_DOCID + " LIMIT ? OFFSET ?) f" +
+            " ON q." + QuestionsTable._ID + " = f." + QuestionsFtsTable.COLUMN_DOCID +
+            " ORDER BY f.rank DESC, f." + QuestionsFtsTable.COLUMN_DOCID;
+
+    // Bestenliste, abgedeckt durch idx_leaderboard_board bzw. den Primärschlüssel der Zähler
+    static final String SELECTION_LEADERBOARD = LeaderboardTable.COLUMN_CATEGORY_ID + " = ? " +
+            " AND " + LeaderboardTable.COLUMN_DIFFICULTY + " = ? ";
+    static final String ORDER_LEADERBOARD = LeaderboardTable.COLUMN_SCORE + " DESC, " +
+            LeaderboardTable.COLUMN_FINISHED_AT;
+    // Parameter: Punktzahl, Punktzahl, Kategorie, Schwierigkeit
+    static final String SQL_LEADERBOARD_RANK = "SELECT " +
+            "TOTAL(CASE WHEN " + LeaderboardScoresTable.COLUMN_SCORE + " < ? THEN " +
+            LeaderboardScoresTable.COLUMN_RUN_COUNT + " END), " +
+            "TOTAL(CASE WHEN " + LeaderboardScoresTable.COLUMN_SCORE + " = ? THEN " +
+            LeaderboardScoresTable.COLUMN_RUN_COUNT + " END), " +
+            "TOTAL(" + LeaderboardScoresTable.COLUMN_RUN_COUNT + ") FROM " +
+            LeaderboardScoresTable.TABLE_NAME + " WHERE " +
+            LeaderboardScoresTable.COLUMN_CATEGORY_ID + " = ? AND " +
+            LeaderboardScoresTable.COLUMN_DIFFICULTY + " = ?";
+
+    // Antwort-Texte zu den IDs in quiz_questions, bleibt über Importe hinweg gültig
+    private final OptionDictionary optionDictionary = new OptionDictionary();
+
+    // gehört zum Singleton, wird bei addQuestion(s) geleert
+    private final QuestionCache questionCache = new QuestionCache(QuestionCache.defaultBudget());
+
+    // optionales read-only Backend für die Fragen, siehe setQuestionPack()
+    private volatile QuestionPackReader questionPack;
+    // useQuestionPack() und invalidateQuestions() nacheinander, sonst bliebe ein veraltetes Pack aktiv
+    private final Object questionPackLock = new Object();
+
+    // wird bei Änderungen an Kategorien oder Fragen verworfen und neu geladen
+    private volatile CategoryRegistry categoryRegistry;
+    // zählt invalidateCategories(), wie QuestionCache.generation()
+    private int categoryGeneration;
+    private final Object categoryLock = new Object();
+
+    /**
+     * Fortschritt beim Massen-Import. imported ist die Anzahl bereits
+     * committeter Einträge und kann als startIndex zum Fortsetzen dienen.
+     */
+    public interface ImportProgressListener {
+        void onProgress(int imported, int total);
+    }
 
     public QuizDbHelper(@Nullable Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
@@ -44,6 +195,14 @@ public class QuizDbHelper extends SQLiteOpenHelper {
         this.context = context;
     }
 
+    // eigene, leere DB für Tests: ohne Asset-DB, nur mit den Beispielfragen aus onCreate()
+    QuizDbHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+
+        this.context = context;
+        provisioned = true;
+    }
+
     // zugriff von anderer Klasse möglich, ohne neue Instanz
     public static synchronized QuizDbHelper getInstance(Context context) {
         if (instance == null) {
@@ -52,54 +211,695 @@ public class QuizDbHelper extends SQLiteOpenHelper {
         return instance;
     }
 
-    // nur beim ersten Mal
+    // nur für Tests, siehe QuizRepository.useDatabaseForTests(); null = wieder die App-DB
+    static synchronized void replaceInstance(@Nullable QuizDbHelper helper) {
+        if (instance != null) {
+            instance.close();
+        }
+        instance = helper;
+    }
+
+    /**
+     * Kategorien, Fragen, Antwort-Texte, Zähler und Volltextsuche in der
+     * Reihenfolge von onCreate(). Als SQL, damit BenchmarkDatabase das Schema
+     * über sqlite-jdbc anlegen kann, ohne es nachzubauen.
+     */
+    static List<String> sqlCreateQuestionSchema() {
+        List<String> statements = new ArrayList<>();
+        statements.add(SQL_CREATE_CATEGORIES_TABLE);
+        statements.add(sqlCreateOptionStringsTable(OptionStringsTable.TABLE_NAME));
+        statements.add(sqlCreateQuestionsTable(QuestionsTable.TABLE_NAME));
+        Collections.addAll(statements, sqlCreateCategoryCounts());
+        Collections.addAll(statements, SQL_CREATE_QUESTION_INDEXES);
+        Collections.addAll(statements, sqlCreateSearchIndex());
+        return statements;
+    }
+
+    // nur beim ersten Mal und nur, wenn die Asset-DB nicht installiert werden konnte
     @Override
     public void onCreate(SQLiteDatabase db) {
-        this.db = db;
         Log.i(TAG, "<-- onCreate() called -->" + db.getPath());
 
-        createDb = true;
+        // SQL ausführen
+        for (String sql : sqlCreateQuestionSchema()) {
+            db.execSQL(sql);
+        }
+        createJournalTables(db);
+        createStatsTable(db);
+        createReviewTable(db);
+        createLeaderboardTables(db);
+        createSyncStateTable(db);
+        reserveServerQuestionIds(db);
+        /**
+         * Für Änderungen App deinstallieren, Version ändern, oder DB löschen
+         */
+        fillCategoriesTable(db);
+        fillQuestionsTable(db, optionDictionary);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // für Version 1 gibt es keine Migration, komplett neu aufbauen
+            db.execSQL("DROP TABLE IF EXISTS " + CategoriesTables.TABLE_NAME);
+            db.execSQL("DROP TABLE IF EXISTS " + QuestionsTable.TABLE_NAME);
+            onCreate(db);
+            return;
+        }
+        migrate(db, oldVersion);
+    }
+
+    /**
+     * Schrittweise Migration ab fromVersion, Daten bleiben erhalten.
+     * Jeder Schritt muss mehrfach ausführbar sein.
+     */
+    private void migrate(SQLiteDatabase db, int fromVersion) {
+        // vor allen anderen Schritten: die folgenden kennen nur noch das neue Layout
+        if (fromVersion < 11) {
+            rebuildQuestionsTable(db);
+        }
+        if (fromVersion < 3) {
+            createQuestionIndexes(db);
+        }
+        if (fromVersion < 4) {
+            createSearchIndex(db);
+            // vorhandene Fragen einmalig indizieren
+            db.execSQL("INSERT INTO " + QuestionsFtsTable.TABLE_NAME + "(" +
+                    QuestionsFtsTable.TABLE_NAME + ") VALUES ('rebuild')");
+        }
+        if (fromVersion < 5) {
+            createJournalTables(db);
+        }
+        if (fromVersion < 6) {
+            createStatsTable(db);
+            rebuildQuestionStats(db);
+        }
+        if (fromVersion < 7) {
+            createReviewTable(db);
+            rebuildReviewStates(db);
+        }
+        // Version 8 (difficulty als Code) steckt seit Version 11 in rebuildQuestionsTable()
+        if (fromVersion < 9) {
+            if (!hasColumn(db, CategoriesTables.TABLE_NAME, CategoriesTables.COLUMN_MIXED)) {
+                db.execSQL("ALTER TABLE " + CategoriesTables.TABLE_NAME + " ADD COLUMN " +
+                        CategoriesTables.COLUMN_MIXED + " INTEGER NOT NULL DEFAULT 0");
+            }
+            db.execSQL("UPDATE " + CategoriesTables.TABLE_NAME + " SET " +
+                    CategoriesTables.COLUMN_MIXED + " = 1 WHERE " +
+                    CategoriesTables._ID + " = " + LEGACY_MIXED_CATEGORY_ID);
+            createCategoryCounts(db);
+            // Trigger zählen erst ab jetzt, vorhandene Fragen einmalig zählen
+            db.delete(CategoryCountsTable.TABLE_NAME, null, null);
+            db.execSQL("INSERT INTO " + CategoryCountsTable.TABLE_NAME + " SELECT IFNULL(" +
+                    QuestionsTable.COLUMN_CATEGORY_ID + ", 0), IFNULL(" +
+                    QuestionsTable.COLUMN_DIFFICULTY + ", 0), COUNT(*) FROM " +
+                    QuestionsTable.TABLE_NAME + " GROUP BY 1, 2");
+        }
+        if (fromVersion < 10) {
+            createLeaderboardTables(db);
+        }
+        if (fromVersion < 12) {
+            createSyncStateTable(db);
+        }
+        if (fromVersion < 13) {
+            // Index für die gemischte Kategorie, siehe createStatsTable()
+            createStatsTable(db);
+        }
+        if (fromVersion < 14) {
+            rebuildOptionStringsTable(db);
+        }
+        if (fromVersion < 15) {
+            // schon vorhandene lokale Fragen behalten ihre IDs, nur neue kommen in den eigenen Bereich
+            reserveServerQuestionIds(db);
+        }
+        if (fromVersion < 16) {
+            rebuildLeaderboardTables(db);
+            rebuildSessionsTable(db);
+        }
+    }
+
+    /**
+     * AUTOINCREMENT zählt ab FIRST_LOCAL_ID weiter, IDs darunter setzt nur
+     * applyChangeset(). So kann der Server keine lokal angelegte Frage
+     * überschreiben und seine IDs verschieben den Zähler nicht.
+     */
+    private static void reserveServerQuestionIds(SQLiteDatabase db) {
+        // als Zahl im SQL: gebundene Argumente kommen als TEXT an, seq < '...' wäre immer wahr
+        String lastServerId = String.valueOf(QuestionsTable.FIRST_LOCAL_ID - 1);
+        String[] nameArg = {QuestionsTable.TABLE_NAME};
+        db.execSQL("UPDATE sqlite_sequence SET seq = MAX(CAST(seq AS INTEGER), " + lastServerId +
+                ") WHERE name = ?", nameArg);
+        db.execSQL("INSERT INTO sqlite_sequence (name, seq) SELECT ?1, " + lastServerId +
+                " WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = ?1)", nameArg);
+    }
+
+    private static boolean hasColumn(SQLiteDatabase db, String table, String column) {
+        return columnType(db, table, column) != null;
+    }
+
+    // deklarierter Typ wie "TEXT", null wenn es die Spalte nicht gibt
+    private static String columnType(SQLiteDatabase db, String table, String column) {
+        Cursor c = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        try {
+            int nameIndex = c.getColumnIndexOrThrow("name");
+            int typeIndex = c.getColumnIndexOrThrow("type");
+            while (c.moveToNext()) {
+                if (column.equals(c.getString(nameIndex))) {
+                    return c.getString(typeIndex);
+                }
+            }
+            return null;
+        } finally {
+            c.close();
+        }
+    }
 
-        final String SQL_CREATE_CATEGORIES_TABLE = "CREATE TABLE " +
-                CategoriesTables.TABLE_NAME + "( " +
-                CategoriesTables._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                CategoriesTables.COLUMN_NAME + " TEXT" +
+    /**
+     * Bestenliste: die Indizes liefern "Top K" pro (Kategorie, Schwierigkeit)
+     * und pro Spieler direkt in Sortierreihenfolge. Für den Rang zählt ein
+     * COUNT(*) über den Index jede Zeile einzeln, deshalb führen Trigger pro
+     * Bestenliste und Punktzahl einen Zähler mit. Punktzahlen sind kleine
+     * Zahlen, der Rang summiert also nur wenige Zeilen, egal wie viele
+     * Durchgänge gespeichert sind.
+     */
+    private static void createLeaderboardTables(SQLiteDatabase db) {
+        String runs = LeaderboardTable.TABLE_NAME;
+        String scores = LeaderboardScoresTable.TABLE_NAME;
+
+        db.execSQL(sqlCreateLeaderboardTable(runs));
+        // bei Gleichstand gewinnt der frühere Durchgang
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_leaderboard_board ON " + runs + " (" +
+                LeaderboardTable.COLUMN_CATEGORY_ID + ", " +
+                LeaderboardTable.COLUMN_DIFFICULTY + ", " +
+                LeaderboardTable.COLUMN_SCORE + " DESC, " +
+                LeaderboardTable.COLUMN_FINISHED_AT + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_leaderboard_player ON " + runs + " (" +
+                LeaderboardTable.COLUMN_PLAYER + ", " +
+                LeaderboardTable.COLUMN_SCORE + " DESC, " +
+                LeaderboardTable.COLUMN_FINISHED_AT + ")");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + scores + " ( " +
+                LeaderboardScoresTable.COLUMN_CATEGORY_ID + " INTEGER NOT NULL, " +
+                LeaderboardScoresTable.COLUMN_DIFFICULTY + " INTEGER NOT NULL, " +
+                LeaderboardScoresTable.COLUMN_SCORE + " INTEGER NOT NULL, " +
+                LeaderboardScoresTable.COLUMN_RUN_COUNT + " INTEGER NOT NULL, " +
+                "PRIMARY KEY (" + LeaderboardScoresTable.COLUMN_CATEGORY_ID + ", " +
+                LeaderboardScoresTable.COLUMN_DIFFICULTY + ", " +
+                LeaderboardScoresTable.COLUMN_SCORE + ")" +
+                ")");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + scores + "_ai AFTER INSERT ON " + runs +
+                " BEGIN " + runCountChange("new", "+ 1") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + scores + "_ad AFTER DELETE ON " + runs +
+                " BEGIN " + runCountChange("old", "- 1") + "END");
+    }
+
+    private static String sqlCreateLeaderboardTable(String tableName) {
+        return "CREATE TABLE IF NOT EXISTS " + tableName + " ( " +
+                LeaderboardTable._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                LeaderboardTable.COLUMN_PLAYER + " TEXT NOT NULL, " +
+                LeaderboardTable.COLUMN_CATEGORY_ID + " INTEGER NOT NULL, " +
+                LeaderboardTable.COLUMN_DIFFICULTY + " INTEGER NOT NULL, " +
+                LeaderboardTable.COLUMN_SCORE + " INTEGER NOT NULL, " +
+                LeaderboardTable.COLUMN_QUESTION_COUNT + " INTEGER NOT NULL, " +
+                LeaderboardTable.COLUMN_FINISHED_AT + " INTEGER NOT NULL" +
                 ")";
+    }
 
-        /*
-         *  hier wird das SQL zusammengesetzt, kein AUTOINCREMENT,
-         *  auf Leerzeichen achten
-         */
-        final String SQL_CREATE_QUESTIONS_TABLE ="CREATE TABLE " +
-                QuestionsTable.TABLE_NAME + " ( " +
+    /**
+     * Bis Version 15 stand difficulty als Bezeichnung (TEXT) in der Bestenliste:
+     * neu anlegen mit Code, die Zähler aus den Durchgängen neu aufbauen.
+     * Ist die Tabelle schon umgestellt, passiert nichts.
+     */
+    private static void rebuildLeaderboardTables(SQLiteDatabase db) {
+        String runs = LeaderboardTable.TABLE_NAME;
+        String scores = LeaderboardScoresTable.TABLE_NAME;
+        if (!"TEXT".equalsIgnoreCase(columnType(db, runs, LeaderboardTable.COLUMN_DIFFICULTY))) {
+            return;
+        }
+        String tmp = runs + "_new";
+        String columns = LeaderboardTable._ID + ", " +
+                LeaderboardTable.COLUMN_PLAYER + ", " +
+                LeaderboardTable.COLUMN_CATEGORY_ID + ", " +
+                LeaderboardTable.COLUMN_DIFFICULTY + ", " +
+                LeaderboardTable.COLUMN_SCORE + ", " +
+                LeaderboardTable.COLUMN_QUESTION_COUNT + ", " +
+                LeaderboardTable.COLUMN_FINISHED_AT;
+
+        db.execSQL("DROP TABLE IF EXISTS " + tmp);
+        db.execSQL(sqlCreateLeaderboardTable(tmp));
+        db.execSQL("INSERT INTO " + tmp + " (" + columns + ") SELECT " +
+                LeaderboardTable._ID + ", " +
+                LeaderboardTable.COLUMN_PLAYER + ", " +
+                LeaderboardTable.COLUMN_CATEGORY_ID + ", " +
+                selectionCodeOf(LeaderboardTable.COLUMN_DIFFICULTY) + ", " +
+                LeaderboardTable.COLUMN_SCORE + ", " +
+                LeaderboardTable.COLUMN_QUESTION_COUNT + ", " +
+                LeaderboardTable.COLUMN_FINISHED_AT + " FROM " + runs);
+        // Indizes und Trigger verschwinden mit der alten Tabelle
+        db.execSQL("DROP TABLE " + runs);
+        db.execSQL("DROP TABLE IF EXISTS " + scores);
+        db.execSQL("ALTER TABLE " + tmp + " RENAME TO " + runs);
+        createLeaderboardTables(db);
+        db.execSQL("INSERT INTO " + scores + " SELECT " +
+                LeaderboardTable.COLUMN_CATEGORY_ID + ", " +
+                LeaderboardTable.COLUMN_DIFFICULTY + ", " +
+                LeaderboardTable.COLUMN_SCORE + ", COUNT(*) FROM " + runs + " GROUP BY 1, 2, 3");
+    }
+
+    // SQL: Bezeichnung in column als Question.selectionCode(), unbekannte und "" werden 0
+    private static String selectionCodeOf(String column) {
+        StringBuilder sql = new StringBuilder("CASE ").append(column);
+        List<String> selections = new ArrayList<>();
+        Collections.addAll(selections, Question.getAllDifficultyLevels());
+        selections.add(Question.DIFFICULTY_ADAPTIVE);
+        selections.add(Question.DIFFICULTY_REVIEW);
+        for (String selection : selections) {
+            sql.append(" WHEN '").append(selection)
+                    .append("' THEN ").append(Question.selectionCode(selection));
+        }
+        return sql.append(" ELSE 0 END").toString();
+    }
+
+    // wie countChange(), nur für die Bestenliste
+    private static String runCountChange(String row, String delta) {
+        String categoryID = row + "." + LeaderboardTable.COLUMN_CATEGORY_ID;
+        String difficulty = row + "." + LeaderboardTable.COLUMN_DIFFICULTY;
+        String score = row + "." + LeaderboardTable.COLUMN_SCORE;
+        return "INSERT OR IGNORE INTO " + LeaderboardScoresTable.TABLE_NAME + " VALUES (" +
+                categoryID + ", " + difficulty + ", " + score + ", 0); " +
+                "UPDATE " + LeaderboardScoresTable.TABLE_NAME + " SET " +
+                LeaderboardScoresTable.COLUMN_RUN_COUNT + " = " +
+                LeaderboardScoresTable.COLUMN_RUN_COUNT + " " + delta + " WHERE " +
+                LeaderboardScoresTable.COLUMN_CATEGORY_ID + " = " + categoryID + " AND " +
+                LeaderboardScoresTable.COLUMN_DIFFICULTY + " = " + difficulty + " AND " +
+                LeaderboardScoresTable.COLUMN_SCORE + " = " + score + "; ";
+    }
+
+    /**
+     * Fragen-Anzahl pro (Kategorie, Schwierigkeit), damit der Startbildschirm
+     * nicht zählen muss. Trigger auf quiz_questions halten sie aktuell, NULL
+     * wird als 0 gezählt.
+     */
+    private static void createCategoryCounts(SQLiteDatabase db) {
+        execAll(db, sqlCreateCategoryCounts());
+    }
+
+    static String[] sqlCreateCategoryCounts() {
+        String counts = CategoryCountsTable.TABLE_NAME;
+        String q = QuestionsTable.TABLE_NAME;
+
+        return new String[]{"CREATE TABLE IF NOT EXISTS " + counts + " ( " +
+                CategoryCountsTable.COLUMN_CATEGORY_ID + " INTEGER NOT NULL, " +
+                CategoryCountsTable.COLUMN_DIFFICULTY + " INTEGER NOT NULL, " +
+                CategoryCountsTable.COLUMN_QUESTION_COUNT + " INTEGER NOT NULL, " +
+                "PRIMARY KEY (" + CategoryCountsTable.COLUMN_CATEGORY_ID + ", " +
+                CategoryCountsTable.COLUMN_DIFFICULTY + ")" +
+                ")",
+                "CREATE TRIGGER IF NOT EXISTS " + counts + "_ai AFTER INSERT ON " + q +
+                        " BEGIN " + countChange("new", "+ 1") + "END",
+                "CREATE TRIGGER IF NOT EXISTS " + counts + "_ad AFTER DELETE ON " + q +
+                        " BEGIN " + countChange("old", "- 1") + "END",
+                "CREATE TRIGGER IF NOT EXISTS " + counts + "_au AFTER UPDATE OF " +
+                        QuestionsTable.COLUMN_CATEGORY_ID + ", " + QuestionsTable.COLUMN_DIFFICULTY +
+                        " ON " + q + " BEGIN " + countChange("old", "- 1") +
+                        countChange("new", "+ 1") + "END"};
+    }
+
+    // Trigger-Anweisungen für eine Zeile (row = new/old)
+    private static String countChange(String row, String delta) {
+        String categoryID = "IFNULL(" + row + "." + QuestionsTable.COLUMN_CATEGORY_ID + ", 0)";
+        String difficulty = "IFNULL(" + row + "." + QuestionsTable.COLUMN_DIFFICULTY + ", 0)";
+        return "INSERT OR IGNORE INTO " + CategoryCountsTable.TABLE_NAME + " VALUES (" +
+                categoryID + ", " + difficulty + ", 0); " +
+                "UPDATE " + CategoryCountsTable.TABLE_NAME + " SET " +
+                CategoryCountsTable.COLUMN_QUESTION_COUNT + " = " +
+                CategoryCountsTable.COLUMN_QUESTION_COUNT + " " + delta + " WHERE " +
+                CategoryCountsTable.COLUMN_CATEGORY_ID + " = " + categoryID + " AND " +
+                CategoryCountsTable.COLUMN_DIFFICULTY + " = " + difficulty + "; ";
+    }
+
+    /*
+     *  hier wird das SQL zusammengesetzt, auf Leerzeichen achten.
+     *  difficulty ist der Code aus Question.Difficulty, die Antworten sind
+     *  IDs in quiz_option_strings
+     */
+    private static void createQuestionsTable(SQLiteDatabase db, String tableName) {
+        db.execSQL(sqlCreateQuestionsTable(tableName));
+    }
+
+    private static String sqlCreateQuestionsTable(String tableName) {
+        return "CREATE TABLE " +
+                tableName + " ( " +
                 QuestionsTable._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 QuestionsTable.COLUMN_QUESTION + " TEXT, " +
-                QuestionsTable.COLUMN_OPTION1 + " TEXT," +
-                QuestionsTable.COLUMN_OPTION2 + " TEXT," +
-                QuestionsTable.COLUMN_OPTION3 + " TEXT," +
+                QuestionsTable.COLUMN_OPTION1_ID + " INTEGER," +
+                QuestionsTable.COLUMN_OPTION2_ID + " INTEGER," +
+                QuestionsTable.COLUMN_OPTION3_ID + " INTEGER," +
                 QuestionsTable.COLUMN_ANSWER_NR + " INTEGER," +
-                QuestionsTable.COLUMN_DIFFICULTY + " TEXT," +
+                QuestionsTable.COLUMN_DIFFICULTY + " INTEGER," +
                 QuestionsTable.COLUMN_CATEGORY_ID + " INTEGER," +
                 "FOREIGN KEY(" + QuestionsTable.COLUMN_CATEGORY_ID + ") REFERENCES " +
                 CategoriesTables.TABLE_NAME + "(" + CategoriesTables._ID + ")" + "ON DELETE CASCADE" +
                 ")";
+    }
 
-        // SQL ausführen
-        db.execSQL(SQL_CREATE_CATEGORIES_TABLE);
-        db.execSQL(SQL_CREATE_QUESTIONS_TABLE);
-        /**
-         * Für Änderungen App deinstallieren, Version ändern, oder DB löschen
-         */
-        fillCategoriesTable();
-        fillQuestionsTable();
+    // ohne UNIQUE-Index, Text-Suche und Dubletten erledigt OptionDictionary
+    private static void createOptionStringsTable(SQLiteDatabase db) {
+        db.execSQL(sqlCreateOptionStringsTable(OptionStringsTable.TABLE_NAME));
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        upgradeDb = true;
-        db.execSQL("DROP TABLE IF EXISTS " + CategoriesTables.TABLE_NAME);
-        db.execSQL("DROP TABLE IF EXISTS " + QuestionsTable.TABLE_NAME);
-        onCreate(db);
+    /*
+     * Ohne UNIQUE: OptionDictionary hat alle Texte im Speicher und legt keinen
+     * doppelt an, ein Index würde jeden Text ein zweites Mal speichern.
+     * AUTOINCREMENT, damit von collectOptionStrings() gelöschte IDs nicht neu
+     * vergeben werden.
+     */
+    private static String sqlCreateOptionStringsTable(String tableName) {
+        return "CREATE TABLE IF NOT EXISTS " + tableName + " ( " +
+                OptionStringsTable._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                OptionStringsTable.COLUMN_TEXT + " TEXT NOT NULL" +
+                ")";
+    }
+
+    // bis Version 13 mit UNIQUE auf text: Tabelle ohne den Index neu anlegen
+    private static void rebuildOptionStringsTable(SQLiteDatabase db) {
+        String strings = OptionStringsTable.TABLE_NAME;
+        if (DatabaseUtils.queryNumEntries(db, "sqlite_master", "type = 'index' AND tbl_name = ?" +
+                " AND name LIKE 'sqlite_autoindex%'", new String[]{strings}) == 0) {
+            return;
+        }
+        String tmp = strings + "_new";
+        String fts = QuestionsFtsTable.TABLE_NAME;
+
+        db.execSQL("DROP TABLE IF EXISTS " + tmp);
+        db.execSQL(sqlCreateOptionStringsTable(tmp));
+        db.execSQL("INSERT INTO " + tmp + " (" + OptionStringsTable._ID + ", " +
+                OptionStringsTable.COLUMN_TEXT + ") SELECT " + OptionStringsTable._ID + ", " +
+                OptionStringsTable.COLUMN_TEXT + " FROM " + strings);
+        // View und Such-Trigger lesen die Texte, ALTER TABLE scheitert sonst an
+        // ihnen. Der FTS-Index selbst bleibt, _id und Texte ändern sich nicht
+        db.execSQL("DROP VIEW IF EXISTS " + QuestionsTextView.TABLE_NAME);
+        for (String trigger : new String[]{"_bu", "_bd", "_au", "_ai"}) {
+            db.execSQL("DROP TRIGGER IF EXISTS " + fts + trigger);
+        }
+        db.execSQL("DROP TABLE " + strings);
+        db.execSQL("ALTER TABLE " + tmp + " RENAME TO " + strings);
+        createSearchIndex(db);
+        deleteOrphanedOptionStrings(db);
+    }
+
+    // Texte, auf die keine Frage mehr zeigt; liest quiz_questions einmal ganz
+    private static int deleteOrphanedOptionStrings(SQLiteDatabase db) {
+        String q = QuestionsTable.TABLE_NAME;
+        StringBuilder used = new StringBuilder();
+        for (String column : new String[]{QuestionsTable.COLUMN_OPTION1_ID,
+                QuestionsTable.COLUMN_OPTION2_ID, QuestionsTable.COLUMN_OPTION3_ID}) {
+            // NOT IN mit einem NULL in der Liste trifft nie
+            used.append(used.length() == 0 ? "" : " UNION ALL ").append("SELECT ").append(column)
+                    .append(" FROM ").append(q).append(" WHERE ").append(column).append(" IS NOT NULL");
+        }
+        return db.delete(OptionStringsTable.TABLE_NAME,
+                OptionStringsTable._ID + " NOT IN (" + used + ")", null);
+    }
+
+    /**
+     * Altes Layout (Antwort-Texte in option1..3, difficulty evtl. noch als
+     * TEXT "Einfach" ...) auf das aktuelle umstellen: jeder Text kommt einmal
+     * nach quiz_option_strings, die Frage speichert nur noch die IDs. SQLite
+     * kann Spalten nicht ändern, also neue Tabelle, kopieren, umbenennen.
+     * IDs der Fragen bleiben gleich. Ist die Tabelle schon umgestellt,
+     * passiert nichts.
+     */
+    private static void rebuildQuestionsTable(SQLiteDatabase db) {
+        String q = QuestionsTable.TABLE_NAME;
+        if (hasColumn(db, q, QuestionsTable.COLUMN_OPTION1_ID)) {
+            return;
+        }
+        String tmp = q + "_new";
+        String strings = OptionStringsTable.TABLE_NAME;
+        String[] options = {QuestionsTable.COLUMN_OPTION1, QuestionsTable.COLUMN_OPTION2,
+                QuestionsTable.COLUMN_OPTION3};
+
+        createOptionStringsTable(db);
+        // die Tabelle hat keinen Index auf text, nur für diese Migration einen anlegen
+        String textIndex = "idx_option_strings_text_migration";
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + textIndex + " ON " + strings + " (" +
+                OptionStringsTable.COLUMN_TEXT + ")");
+        StringBuilder optionIds = new StringBuilder();
+        for (String option : options) {
+            db.execSQL("INSERT INTO " + strings + " (" + OptionStringsTable.COLUMN_TEXT +
+                    ") SELECT DISTINCT " + option + " FROM " + q + " WHERE " + option +
+                    " IS NOT NULL AND " + option + " NOT IN (SELECT " + OptionStringsTable.COLUMN_TEXT +
+                    " FROM " + strings + ")");
+            optionIds.append("(SELECT ").append(OptionStringsTable._ID).append(" FROM ")
+                    .append(strings).append(" WHERE ").append(OptionStringsTable.COLUMN_TEXT)
+                    .append(" = ").append(option).append("), ");
+        }
+
+        // schon umgestellte Werte bleiben über ELSE unverändert
+        StringBuilder toCode = new StringBuilder("CASE ").append(QuestionsTable.COLUMN_DIFFICULTY);
+        for (Question.Difficulty difficulty : Question.Difficulty.values()) {
+            toCode.append(" WHEN '").append(difficulty.getLabel())
+                    .append("' THEN ").append(difficulty.getCode());
+        }
+        toCode.append(" ELSE ").append(QuestionsTable.COLUMN_DIFFICULTY).append(" END");
+
+        db.execSQL("DROP TABLE IF EXISTS " + tmp);
+        createQuestionsTable(db, tmp);
+        db.execSQL("INSERT INTO " + tmp + " (" +
+                QuestionsTable._ID + ", " +
+                QuestionsTable.COLUMN_QUESTION + ", " +
+                QuestionsTable.COLUMN_OPTION1_ID + ", " +
+                QuestionsTable.COLUMN_OPTION2_ID + ", " +
+                QuestionsTable.COLUMN_OPTION3_ID + ", " +
+                QuestionsTable.COLUMN_ANSWER_NR + ", " +
+                QuestionsTable.COLUMN_DIFFICULTY + ", " +
+                QuestionsTable.COLUMN_CATEGORY_ID + ") SELECT " +
+                QuestionsTable._ID + ", " +
+                QuestionsTable.COLUMN_QUESTION + ", " +
+                optionIds +
+                QuestionsTable.COLUMN_ANSWER_NR + ", " +
+                toCode + ", " +
+                QuestionsTable.COLUMN_CATEGORY_ID + " FROM " + q);
+        db.execSQL("DROP INDEX " + textIndex);
+        // ALTER TABLE scheitert an einer View auf die gelöschte Tabelle; Indizes
+        // und Trigger verschwinden mit der alten Tabelle
+        db.execSQL("DROP VIEW IF EXISTS " + QuestionsTextView.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + QuestionsFtsTable.TABLE_NAME);
+        db.execSQL("DROP TABLE " + q);
+        db.execSQL("ALTER TABLE " + tmp + " RENAME TO " + q);
+        createQuestionIndexes(db);
+        createCategoryCounts(db);
+        // der FTS-Index liest jetzt über die View, einmal komplett neu aufbauen
+        createSearchIndex(db);
+        db.execSQL("INSERT INTO " + QuestionsFtsTable.TABLE_NAME + "(" +
+                QuestionsFtsTable.TABLE_NAME + ") VALUES ('rebuild')");
+    }
+
+    private static void createSyncStateTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + SyncStateTable.TABLE_NAME + " ( " +
+                SyncStateTable._ID + " INTEGER PRIMARY KEY, " +
+                SyncStateTable.COLUMN_CONTENT_VERSION + " INTEGER NOT NULL, " +
+                SyncStateTable.COLUMN_ETAG + " TEXT" +
+                ")");
+    }
+
+    // due_at-Indizes für getDueQuestions(), mit und ohne Kategorie
+    private static void createReviewTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + ReviewStateTable.TABLE_NAME + " ( " +
+                ReviewStateTable.COLUMN_QUESTION_ID + " INTEGER PRIMARY KEY, " +
+                ReviewStateTable.COLUMN_CATEGORY_ID + " INTEGER, " +
+                ReviewStateTable.COLUMN_REPETITIONS + " INTEGER, " +
+                ReviewStateTable.COLUMN_INTERVAL_DAYS + " INTEGER, " +
+                ReviewStateTable.COLUMN_EASE_FACTOR + " REAL, " +
+                ReviewStateTable.COLUMN_DUE_AT + " INTEGER" +
+                ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_review_category_due ON " +
+                ReviewStateTable.TABLE_NAME + " (" +
+                ReviewStateTable.COLUMN_CATEGORY_ID + ", " +
+                ReviewStateTable.COLUMN_DUE_AT + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_review_due ON " +
+                ReviewStateTable.TABLE_NAME + " (" + ReviewStateTable.COLUMN_DUE_AT + ")");
+    }
+
+    // einmalig alle bisherigen Antworten in zeitlicher Reihenfolge nachspielen
+    private static void rebuildReviewStates(SQLiteDatabase db) {
+        HashMap<Integer, ReviewState> states = new HashMap<>();
+        Cursor c = db.query(AnswersTable.TABLE_NAME, new String[]{
+                        AnswersTable.COLUMN_QUESTION_ID,
+                        AnswersTable.COLUMN_CHOSEN_NR,
+                        AnswersTable.COLUMN_CORRECT,
+                        AnswersTable.COLUMN_TIME_TAKEN,
+                        AnswersTable.COLUMN_ANSWERED_AT},
+                null, null, null, null,
+                AnswersTable.COLUMN_ANSWERED_AT + ", " + AnswersTable._ID);
+        try {
+            while (c.moveToNext()) {
+                applyReview(db, states, c.getInt(0),
+                        SpacedRepetition.quality(c.getInt(1), c.getInt(2) != 0, c.getLong(3)),
+                        c.getLong(4));
+            }
+        } finally {
+            c.close();
+        }
+        db.delete(ReviewStateTable.TABLE_NAME, null, null);
+        writeReviewStates(db, states);
+    }
+
+    // Indizes decken beide Sortierrichtungen von queryQuestionStats() ab: mit
+    // category_id als Bereich, für die gemischte Kategorie über alle Zeilen
+    private static void createStatsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + QuestionStatsTable.TABLE_NAME + " ( " +
+                QuestionStatsTable.COLUMN_QUESTION_ID + " INTEGER PRIMARY KEY, " +
+                QuestionStatsTable.COLUMN_CATEGORY_ID + " INTEGER, " +
+                QuestionStatsTable.COLUMN_ANSWER_COUNT + " INTEGER, " +
+                QuestionStatsTable.COLUMN_CORRECT_COUNT + " INTEGER, " +
+                QuestionStatsTable.COLUMN_TIME_SUM + " INTEGER, " +
+                QuestionStatsTable.COLUMN_CORRECT_RATE + " REAL, " +
+                QuestionStatsTable.COLUMN_MEDIAN_TIME + " INTEGER, " +
+                QuestionStatsTable.COLUMN_TIME_SKETCH + " BLOB" +
+                ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_question_stats_rate ON " +
+                QuestionStatsTable.TABLE_NAME + " (" +
+                QuestionStatsTable.COLUMN_CATEGORY_ID + ", " +
+                QuestionStatsTable.COLUMN_CORRECT_RATE + ", " +
+                QuestionStatsTable.COLUMN_MEDIAN_TIME + " DESC)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_question_stats_rate_all ON " +
+                QuestionStatsTable.TABLE_NAME + " (" +
+                QuestionStatsTable.COLUMN_CORRECT_RATE + ", " +
+                QuestionStatsTable.COLUMN_MEDIAN_TIME + " DESC)");
+    }
+
+    // einmalig aus den bisher gespeicherten Antworten aufbauen
+    private static void rebuildQuestionStats(SQLiteDatabase db) {
+        HashMap<Integer, StatsDelta> deltas = new HashMap<>();
+        Cursor c = db.query(AnswersTable.TABLE_NAME, new String[]{
+                        AnswersTable.COLUMN_QUESTION_ID,
+                        AnswersTable.COLUMN_CORRECT,
+                        AnswersTable.COLUMN_TIME_TAKEN},
+                null, null, null, null, null);
+        try {
+            while (c.moveToNext()) {
+                StatsDelta.of(deltas, c.getInt(0)).add(c.getInt(1) != 0, c.getLong(2));
+            }
+        } finally {
+            c.close();
+        }
+        db.delete(QuestionStatsTable.TABLE_NAME, null, null);
+        updateQuestionStats(db, deltas);
+    }
+
+    private static void createJournalTables(SQLiteDatabase db) {
+        db.execSQL(sqlCreateSessionsTable(SessionsTable.TABLE_NAME));
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + AnswersTable.TABLE_NAME + " ( " +
+                AnswersTable._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                AnswersTable.COLUMN_SESSION_ID + " INTEGER, " +
+                AnswersTable.COLUMN_QUESTION_ID + " INTEGER, " +
+                AnswersTable.COLUMN_CHOSEN_NR + " INTEGER, " +
+                AnswersTable.COLUMN_CORRECT + " INTEGER, " +
+                AnswersTable.COLUMN_TIME_TAKEN + " INTEGER, " +
+                AnswersTable.COLUMN_ANSWERED_AT + " INTEGER" +
+                ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_answers_session ON " +
+                AnswersTable.TABLE_NAME + " (" + AnswersTable.COLUMN_SESSION_ID + ")");
+    }
+
+    private static String sqlCreateSessionsTable(String tableName) {
+        return "CREATE TABLE IF NOT EXISTS " + tableName + " ( " +
+                SessionsTable._ID + " INTEGER PRIMARY KEY, " +
+                SessionsTable.COLUMN_CATEGORY_ID + " INTEGER, " +
+                SessionsTable.COLUMN_CATEGORY_NAME + " TEXT, " +
+                SessionsTable.COLUMN_DIFFICULTY + " INTEGER, " +
+                SessionsTable.COLUMN_QUESTION_IDS + " BLOB, " +
+                SessionsTable.COLUMN_STARTED_AT + " INTEGER, " +
+                SessionsTable.COLUMN_FINISHED_AT + " INTEGER, " +
+                SessionsTable.COLUMN_SCORE + " INTEGER" +
+                ")";
+    }
+
+    // bis Version 15 mit difficulty als Bezeichnung, wie rebuildLeaderboardTables()
+    private static void rebuildSessionsTable(SQLiteDatabase db) {
+        String sessions = SessionsTable.TABLE_NAME;
+        if (!"TEXT".equalsIgnoreCase(columnType(db, sessions, SessionsTable.COLUMN_DIFFICULTY))) {
+            return;
+        }
+        String tmp = sessions + "_new";
+
+        db.execSQL("DROP TABLE IF EXISTS " + tmp);
+        db.execSQL(sqlCreateSessionsTable(tmp));
+        db.execSQL("INSERT INTO " + tmp + " SELECT " +
+                SessionsTable._ID + ", " +
+                SessionsTable.COLUMN_CATEGORY_ID + ", " +
+                SessionsTable.COLUMN_CATEGORY_NAME + ", " +
+                selectionCodeOf(SessionsTable.COLUMN_DIFFICULTY) + ", " +
+                SessionsTable.COLUMN_QUESTION_IDS + ", " +
+                SessionsTable.COLUMN_STARTED_AT + ", " +
+                SessionsTable.COLUMN_FINISHED_AT + ", " +
+                SessionsTable.COLUMN_SCORE + " FROM " + sessions);
+        db.execSQL("DROP TABLE " + sessions);
+        db.execSQL("ALTER TABLE " + tmp + " RENAME TO " + sessions);
+    }
+
+    /**
+     * FTS4 mit externem Inhalt: der Index speichert keine Kopie der Texte,
+     * sondern liest sie über die View quiz_questions_text, die die Antwort-IDs
+     * auflöst. Trigger halten ihn bei INSERT/UPDATE/DELETE aktuell.
+     */
+    private static void createSearchIndex(SQLiteDatabase db) {
+        execAll(db, sqlCreateSearchIndex());
+    }
+
+    private static String[] sqlCreateSearchIndex() {
+        String fts = QuestionsFtsTable.TABLE_NAME;
+        String view = QuestionsTextView.TABLE_NAME;
+        String q = QuestionsTable.TABLE_NAME;
+        String columns = QuestionsTable.COLUMN_QUESTION + ", " +
+                QuestionsTable.COLUMN_OPTION1 + ", " +
+                QuestionsTable.COLUMN_OPTION2 + ", " +
+                QuestionsTable.COLUMN_OPTION3;
+        String newValues = "new." + QuestionsTable._ID + ", " +
+                "new." + QuestionsTable.COLUMN_QUESTION + ", " +
+                optionText("new." + QuestionsTable.COLUMN_OPTION1_ID) + ", " +
+                optionText("new." + QuestionsTable.COLUMN_OPTION2_ID) + ", " +
+                optionText("new." + QuestionsTable.COLUMN_OPTION3_ID);
+        String deleteOld = "DELETE FROM " + fts + " WHERE " +
+                QuestionsFtsTable.COLUMN_DOCID + " = old." + QuestionsTable._ID + "; ";
+        String insertNew = "INSERT INTO " + fts + "(" + QuestionsFtsTable.COLUMN_DOCID + ", " +
+                columns + ") VALUES (" + newValues + "); ";
+
+        return new String[]{"CREATE VIEW IF NOT EXISTS " + view + " AS SELECT " +
+                QuestionsTable._ID + " AS " + QuestionsTextView.COLUMN_ROWID + ", " +
+                QuestionsTable.COLUMN_QUESTION + ", " +
+                optionText(QuestionsTable.COLUMN_OPTION1_ID) + " AS " + QuestionsTable.COLUMN_OPTION1 + ", " +
+                optionText(QuestionsTable.COLUMN_OPTION2_ID) + " AS " + QuestionsTable.COLUMN_OPTION2 + ", " +
+                optionText(QuestionsTable.COLUMN_OPTION3_ID) + " AS " + QuestionsTable.COLUMN_OPTION3 +
+                " FROM " + q,
+                "CREATE VIRTUAL TABLE IF NOT EXISTS " + fts +
+                        " USING fts4(content=\"" + view + "\", " + columns + ")",
+                "CREATE TRIGGER IF NOT EXISTS " + fts + "_bu BEFORE UPDATE ON " + q +
+                        " BEGIN " + deleteOld + "END",
+                "CREATE TRIGGER IF NOT EXISTS " + fts + "_bd BEFORE DELETE ON " + q +
+                        " BEGIN " + deleteOld + "END",
+                "CREATE TRIGGER IF NOT EXISTS " + fts + "_au AFTER UPDATE ON " + q +
+                        " BEGIN " + insertNew + "END",
+                "CREATE TRIGGER IF NOT EXISTS " + fts + "_ai AFTER INSERT ON " + q +
+                        " BEGIN " + insertNew + "END"};
+    }
+
+    // Unterabfrage: Antwort-Text zur ID in idColumn
+    private static String optionText(String idColumn) {
+        return "(SELECT " + OptionStringsTable.COLUMN_TEXT + " FROM " + OptionStringsTable.TABLE_NAME +
+                " WHERE " + OptionStringsTable._ID + " = " + idColumn + ")";
+    }
+
+    private static void createQuestionIndexes(SQLiteDatabase db) {
+        execAll(db, SQL_CREATE_QUESTION_INDEXES);
+    }
+
+    private static void execAll(SQLiteDatabase db, String... statements) {
+        for (String sql : statements) {
+            db.execSQL(sql);
+        }
     }
 
     // bei Änderung der DAtenbank
@@ -107,102 +907,457 @@ public class QuizDbHelper extends SQLiteOpenHelper {
     public void onConfigure(SQLiteDatabase db) {
         super.onConfigure(db);
         db.setForeignKeyConstraintsEnabled(true);
+        // WAL: Lesen läuft über eigene Verbindungen weiter, während ein Import schreibt
+        db.enableWriteAheadLogging();
     }
 
     public void addCategory(Category category) {
-        db = getWritableDatabase();
-        insertCategory(category);
+        SQLiteDatabase db = getWritableDatabase();
+        try {
+            insertCategory(db, category);
+        } finally {
+            invalidateCategories();
+        }
     }
 
+    /**
+     * Alle Kategorien oder Exception.
+     *
+     * @throws IllegalStateException wenn der Thread unterbrochen wurde, die
+     *         fertigen Blöcke bleiben gespeichert (siehe addCategories(List, int, ...))
+     */
     public void addCategories(List<Category> categories) {
-        db = getWritableDatabase();
+        requireComplete(addCategories(categories, 0, null), categories.size());
+    }
 
-        for (Category category : categories) {
-            insertCategory(category);
+    /**
+     * Kategorien in Blöcken von IMPORT_CHUNK_SIZE pro Transaktion einfügen.
+     *
+     * @return Index hinter der letzten gespeicherten Kategorie
+     */
+    public int addCategories(List<Category> categories, int startIndex,
+                             @Nullable ImportProgressListener listener) {
+        SQLiteDatabase db = getWritableDatabase();
+
+        SQLiteStatement statement = db.compileStatement(SQL_INSERT_CATEGORY);
+        try {
+            int total = categories.size();
+            int index = startIndex;
+            while (index < total && !Thread.currentThread().isInterrupted()) {
+                int end = Math.min(index + IMPORT_CHUNK_SIZE, total);
+                db.beginTransaction();
+                try {
+                    for (int i = index; i < end; i++) {
+                        statement.clearBindings();
+                        bindStringOrNull(statement, 1, categories.get(i).getName());
+                        statement.bindLong(2, categories.get(i).isMixed() ? 1 : 0);
+                        statement.executeInsert();
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                index = end;
+                if (listener != null) {
+                    listener.onProgress(index, total);
+                }
+            }
+            return index;
+        } finally {
+            statement.close();
+            invalidateCategories();
         }
     }
 
-    private void insertCategory(Category category) {
+    private static void insertCategory(SQLiteDatabase db, Category category) {
         ContentValues cv = new ContentValues();
         cv.put(CategoriesTables.COLUMN_NAME, category.getName());
+        cv.put(CategoriesTables.COLUMN_MIXED, category.isMixed());
         db.insert(CategoriesTables.TABLE_NAME, null, cv);
     }
 
-    private void fillCategoriesTable() {
+    private static void fillCategoriesTable(SQLiteDatabase db) {
         Category c1 = new Category("Programmierung");
-        insertCategory(c1);
+        insertCategory(db, c1);
         Category c2 = new Category("Geographie");
-        insertCategory(c2);
+        insertCategory(db, c2);
         Category c3 = new Category("Mathe");
-        insertCategory(c3);
+        insertCategory(db, c3);
         Category c4 = new Category("Kunst");
-        insertCategory(c4);
+        insertCategory(db, c4);
         Category c5 = new Category("Geschichte");
-        insertCategory(c5);
+        insertCategory(db, c5);
         Category c6 = new Category("Mischen");
-        insertCategory(c6);
+        c6.setMixed(true);
+        insertCategory(db, c6);
 
 
     }
 
-    private void fillQuestionsTable() {
+    private static void fillQuestionsTable(SQLiteDatabase db, OptionDictionary options) {
         Question q1 = new Question("Einfach A ist korrekt",
                 "A", "B", "C", 1,
                 Question.DIFFICULTY_EASY, Category.PROGRAMMING);
-        insertQuestion(q1);
+        insertQuestion(db, options, q1);
         Question q2 = new Question("Geographie, Mittel, B ist korrekt",
                 "A", "B", "C", 2,
                 Question.DIFFICULTY_MEDIUM, Category.GEOGRAPHY);
-        insertQuestion(q2);
+        insertQuestion(db, options, q2);
         Question q3 = new Question("Mathe, Schwer C ist korrekt",
                 "A", "B", "C", 3,
                 Question.DIFFICULTY_HARD, Category.MATH);
-        insertQuestion(q3);
+        insertQuestion(db, options, q3);
         Question q4 = new Question("Mathe, Einfach A ist korrekt",
                 "A", "B", "C", 1,
                 Question.DIFFICULTY_EASY, Category.MATH);
-        insertQuestion(q4);
+        insertQuestion(db, options, q4);
         // android.database.sqlite.SQLiteConstraintException: FOREIGN KEY constraint failed (code 787)
         Question q5 = new Question(" Kunst, Einfach A ist korrekt",
                 "A", "B", "C", 1,
                 Question.DIFFICULTY_EASY, Category.ART);
-        insertQuestion(q5);
+        insertQuestion(db, options, q5);
         Question q6 = new Question("Geschichte, Mittel B ist korrekt",
                 "A", "B", "C", 2,
                 Question.DIFFICULTY_MEDIUM, Category.HISTORY);
-        insertQuestion(q6);
+        insertQuestion(db, options, q6);
 
     }
 
     public void addQuestion(Question question) {
-        db = getWritableDatabase();
-        insertQuestion(question);
+        SQLiteDatabase db = getWritableDatabase();
+        // neue Antwort-Texte und Frage gemeinsam oder gar nicht
+        db.beginTransaction();
+        try {
+            insertQuestion(db, optionDictionary, question);
+            db.setTransactionSuccessful();
+        } catch (RuntimeException e) {
+            optionDictionary.invalidate();
+            throw e;
+        } finally {
+            db.endTransaction();
+            invalidateQuestions();
+        }
     }
 
+    /**
+     * Alle Fragen oder Exception.
+     *
+     * @throws IllegalStateException wenn der Thread unterbrochen wurde, die
+     *         fertigen Blöcke bleiben gespeichert (siehe addQuestions(List, int, ...))
+     */
     public void addQuestions(List<Question> questions) {
-        db = getWritableDatabase();
+        requireComplete(addQuestions(questions, 0, null), questions.size());
+    }
+
+    // ein abgebrochener Import darf nicht wie ein fertiger aussehen
+    private static void requireComplete(int imported, int total) {
+        if (imported < total) {
+            throw new IllegalStateException("Import unterbrochen nach " + imported + " von " + total);
+        }
+    }
+
+    /**
+     * Massen-Import: ein vorkompiliertes Statement, eine Transaktion pro Block
+     * statt einem fsync pro Frage. Bricht der Import ab (Exception oder
+     * Thread.interrupt()), bleiben alle fertigen Blöcke gespeichert und der
+     * zuletzt gemeldete Fortschritt kann als startIndex übergeben werden.
+     *
+     * @return Index hinter der letzten gespeicherten Frage
+     */
+    public int addQuestions(List<Question> questions, int startIndex,
+                            @Nullable ImportProgressListener listener) {
+        SQLiteDatabase db = getWritableDatabase();
+
+        SQLiteStatement statement = db.compileStatement(SQL_INSERT_QUESTION);
+        SQLiteStatement insertOption = db.compileStatement(OptionDictionary.SQL_INSERT);
+        try {
+            int total = questions.size();
+            int index = startIndex;
+            while (index < total && !Thread.currentThread().isInterrupted()) {
+                int end = Math.min(index + IMPORT_CHUNK_SIZE, total);
+                db.beginTransaction();
+                try {
+                    for (int i = index; i < end; i++) {
+                        bindQuestion(db, statement, insertOption, questions.get(i));
+                        statement.executeInsert();
+                    }
+                    db.setTransactionSuccessful();
+                } catch (RuntimeException e) {
+                    // im Block neu angelegte Texte sind mit zurückgerollt
+                    optionDictionary.invalidate();
+                    throw e;
+                } finally {
+                    db.endTransaction();
+                }
+                index = end;
+                if (listener != null) {
+                    listener.onProgress(index, total);
+                }
+            }
+            return index;
+        } finally {
+            insertOption.close();
+            statement.close();
+            invalidateQuestions();
+        }
+    }
+
+    /**
+     * Changeset vom Inhalts-Server anwenden, zusammen mit dem neuen
+     * Inhaltsstand in einer Transaktion. Jede Änderung ist ein Zugriff über
+     * den Primärschlüssel, Zähler und Suchindex ziehen die Trigger nach: der
+     * Aufwand hängt an der Größe des Changesets, nicht am Katalog.
+     *
+     * @throws IllegalStateException wenn das Changeset nicht auf dem aktuellen Stand aufsetzt
+     */
+    public void applyChangeset(ContentChangeset changeset, @Nullable String etag) {
+        SQLiteDatabase db = getWritableDatabase();
+
+        SQLiteStatement updateQuestion = db.compileStatement(SQL_UPDATE_QUESTION);
+        SQLiteStatement insertQuestion = db.compileStatement(SQL_INSERT_QUESTION_WITH_ID);
+        SQLiteStatement insertOption = db.compileStatement(OptionDictionary.SQL_INSERT);
+        boolean questionsChanged = false;
+        db.beginTransaction();
+        try {
+            long contentVersion = readContentVersion(db);
+            if (changeset.getBaseVersion() != contentVersion) {
+                throw new IllegalStateException("Changeset ab Version " + changeset.getBaseVersion() +
+                        ", Stand ist " + contentVersion);
+            }
+            for (ContentChangeset.Change change : changeset.getChanges()) {
+                switch (change.getType()) {
+                    case ContentChangeset.PUT_CATEGORY:
+                        putCategory(db, change.getCategory());
+                        break;
+                    case ContentChangeset.PUT_QUESTION:
+                        checkServerQuestionId(change.getId());
+                        // kein INSERT OR REPLACE: das löscht ohne Trigger (Zähler, Suchindex)
+                        bindQuestion(db, updateQuestion, insertOption, change.getQuestion());
+                        updateQuestion.bindLong(8, change.getId());
+                        if (updateQuestion.executeUpdateDelete() == 0) {
+                            bindQuestion(db, insertQuestion, insertOption, change.getQuestion());
+                            insertQuestion.bindLong(8, change.getId());
+                            insertQuestion.executeInsert();
+                        }
+                        questionsChanged = true;
+                        break;
+                    case ContentChangeset.DELETE_QUESTION:
+                        checkServerQuestionId(change.getId());
+                        deleteQuestion(db, change.getId());
+                        questionsChanged = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unbekannte Änderung " + change.getType());
+                }
+            }
+            // geänderte und gelöschte Fragen lassen Antwort-Texte ohne Verweis zurück
+            if (questionsChanged && deleteOrphanedOptionStrings(db) > 0) {
+                optionDictionary.invalidate();
+            }
 
-        for (Question question : questions) {
-            insertQuestion(question);
+            ContentValues cv = new ContentValues();
+            cv.put(SyncStateTable._ID, 1);
+            cv.put(SyncStateTable.COLUMN_CONTENT_VERSION, changeset.getTargetVersion());
+            cv.put(SyncStateTable.COLUMN_ETAG, etag);
+            db.insertWithOnConflict(SyncStateTable.TABLE_NAME, null, cv,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+            db.setTransactionSuccessful();
+        } catch (RuntimeException e) {
+            optionDictionary.invalidate();
+            throw e;
+        } finally {
+            db.endTransaction();
+            insertOption.close();
+            insertQuestion.close();
+            updateQuestion.close();
+            invalidateQuestions();
         }
     }
 
+    // Bereich ab FIRST_LOCAL_ID gehört den lokal angelegten Fragen
+    private static void checkServerQuestionId(int questionID) {
+        if (questionID <= 0 || questionID >= QuestionsTable.FIRST_LOCAL_ID) {
+            throw new IllegalArgumentException("Frage-ID " + questionID + " außerhalb des Server-Bereichs");
+        }
+    }
 
-    private void insertQuestion(Question question) {
+    // wie bei den Fragen: UPDATE, sonst INSERT. REPLACE würde per CASCADE die Fragen löschen
+    private static void putCategory(SQLiteDatabase db, Category category) {
+        String[] idArg = {String.valueOf(category.getId())};
         ContentValues cv = new ContentValues();
-        cv.put(QuestionsTable.COLUMN_QUESTION, question.getQuestion());
-        cv.put(QuestionsTable.COLUMN_OPTION1, question.getOption1());
-        cv.put(QuestionsTable.COLUMN_OPTION2, question.getOption2());
-        cv.put(QuestionsTable.COLUMN_OPTION3, question.getOption3());
-        cv.put(QuestionsTable.COLUMN_ANSWER_NR,question.getAnswerNr());
-        cv.put(QuestionsTable.COLUMN_DIFFICULTY, question.getDifficulty());
-        cv.put(QuestionsTable.COLUMN_CATEGORY_ID, question.getCategoryID());
-        db.insert(QuestionsTable.TABLE_NAME, null, cv);
+        cv.put(CategoriesTables.COLUMN_NAME, category.getName());
+        cv.put(CategoriesTables.COLUMN_MIXED, category.isMixed() ? 1 : 0);
+        if (db.update(CategoriesTables.TABLE_NAME, cv, CategoriesTables._ID + " = ?", idArg) == 0) {
+            cv.put(CategoriesTables._ID, category.getId());
+            db.insertOrThrow(CategoriesTables.TABLE_NAME, null, cv);
+        }
+    }
+
+    // Statistik und Lernstand gehören zur Frage, das Antwort-Journal bleibt
+    private static void deleteQuestion(SQLiteDatabase db, int questionID) {
+        String[] idArg = {String.valueOf(questionID)};
+        db.delete(QuestionsTable.TABLE_NAME, QuestionsTable._ID + " = ?", idArg);
+        db.delete(QuestionStatsTable.TABLE_NAME, QuestionStatsTable.COLUMN_QUESTION_ID + " = ?", idArg);
+        db.delete(ReviewStateTable.TABLE_NAME, ReviewStateTable.COLUMN_QUESTION_ID + " = ?", idArg);
+    }
+
+    /**
+     * Antwort-Texte löschen, auf die keine Frage mehr zeigt, z.B. nach direktem
+     * Löschen von Fragen. applyChangeset() räumt selbst auf.
+     *
+     * @return Anzahl gelöschter Texte
+     */
+    public int collectOptionStrings() {
+        SQLiteDatabase db = getWritableDatabase();
+        int deleted;
+        db.beginTransaction();
+        try {
+            deleted = deleteOrphanedOptionStrings(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            optionDictionary.invalidate();
+        }
+        return deleted;
+    }
+
+    // Inhaltsstand für ContentSyncClient.fetch(), 0 solange nie synchronisiert wurde
+    public long getContentVersion() {
+        return readContentVersion(getReadableDatabase());
+    }
+
+    @Nullable
+    public String getContentEtag() {
+        Cursor c = getReadableDatabase().query(SyncStateTable.TABLE_NAME,
+                new String[]{SyncStateTable.COLUMN_ETAG}, null, null, null, null, null);
+        try {
+            return c.moveToFirst() ? c.getString(0) : null;
+        } finally {
+            c.close();
+        }
+    }
+
+    private static long readContentVersion(SQLiteDatabase db) {
+        Cursor c = db.query(SyncStateTable.TABLE_NAME,
+                new String[]{SyncStateTable.COLUMN_CONTENT_VERSION}, null, null, null, null, null);
+        try {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        } finally {
+            c.close();
+        }
+    }
+
+    private void bindQuestion(SQLiteDatabase db, SQLiteStatement statement,
+                              SQLiteStatement insertOption, Question question) {
+        statement.clearBindings();
+        bindStringOrNull(statement, 1, question.getQuestion());
+        bindOptionId(statement, 2, optionDictionary.idFor(db, insertOption, question.getOption1()));
+        bindOptionId(statement, 3, optionDictionary.idFor(db, insertOption, question.getOption2()));
+        bindOptionId(statement, 4, optionDictionary.idFor(db, insertOption, question.getOption3()));
+        statement.bindLong(5, question.getAnswerNr());
+        bindDifficulty(statement, 6, question);
+        statement.bindLong(7, question.getCategoryID());
+    }
+
+    private static void bindDifficulty(SQLiteStatement statement, int index, Question question) {
+        if (question.getDifficultyLevel() == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, question.getDifficultyCode());
+        }
+    }
+
+    // Bezeichnung als Abfrage-Parameter, unbekannte Bezeichnungen finden nichts
+    static String difficultyArg(String difficulty) {
+        Question.Difficulty level = Question.Difficulty.fromLabel(difficulty);
+        return String.valueOf(level == null ? 0 : level.getCode());
+    }
+
+    // 0 = keine Antwort, siehe OptionDictionary.idFor()
+    private static void bindOptionId(SQLiteStatement statement, int index, int optionId) {
+        if (optionId == 0) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, optionId);
+        }
+    }
+
+    // bindString() wirft bei null eine Exception
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+
+    private static void insertQuestion(SQLiteDatabase db, OptionDictionary options, Question question) {
+        SQLiteStatement insertOption = db.compileStatement(OptionDictionary.SQL_INSERT);
+        try {
+            ContentValues cv = new ContentValues();
+            cv.put(QuestionsTable.COLUMN_QUESTION, question.getQuestion());
+            putOptionId(cv, QuestionsTable.COLUMN_OPTION1_ID,
+                    options.idFor(db, insertOption, question.getOption1()));
+            putOptionId(cv, QuestionsTable.COLUMN_OPTION2_ID,
+                    options.idFor(db, insertOption, question.getOption2()));
+            putOptionId(cv, QuestionsTable.COLUMN_OPTION3_ID,
+                    options.idFor(db, insertOption, question.getOption3()));
+            cv.put(QuestionsTable.COLUMN_ANSWER_NR,question.getAnswerNr());
+            if (question.getDifficultyLevel() != null) {
+                cv.put(QuestionsTable.COLUMN_DIFFICULTY, question.getDifficultyCode());
+            }
+            cv.put(QuestionsTable.COLUMN_CATEGORY_ID, question.getCategoryID());
+            db.insert(QuestionsTable.TABLE_NAME, null, cv);
+        } finally {
+            insertOption.close();
+        }
+    }
+
+    // 0 = keine Antwort, die Spalte bleibt NULL
+    private static void putOptionId(ContentValues cv, String column, int optionId) {
+        if (optionId != 0) {
+            cv.put(column, optionId);
+        }
     }
 
     public List<Category> getAllCategories() {
+        return getCategoryRegistry().getCategories();
+    }
+
+    /**
+     * Beim ersten Aufruf aus der DB, danach aus dem Speicher. Wird während des
+     * Ladens invalidiert, bekommt nur dieser Aufruf das Ergebnis, im Speicher
+     * landet es nicht (wie QuestionCache.putIfCurrent()).
+     */
+    public CategoryRegistry getCategoryRegistry() {
+        CategoryRegistry registry = categoryRegistry;
+        if (registry == null) {
+            int generation;
+            synchronized (categoryLock) {
+                generation = categoryGeneration;
+            }
+            registry = loadCategoryRegistry();
+            synchronized (categoryLock) {
+                if (generation == categoryGeneration) {
+                    categoryRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    private void invalidateCategories() {
+        synchronized (categoryLock) {
+            categoryGeneration++;
+            categoryRegistry = null;
+        }
+    }
+
+    private CategoryRegistry loadCategoryRegistry() {
+        long start = QuizMetrics.start();
         List<Category> categoryList = new ArrayList<>();
-        db = getReadableDatabase();
+        SQLiteDatabase db = getReadableDatabase();
         Cursor c = db.rawQuery("SELECT * FROM " + CategoriesTables.TABLE_NAME, null);
 
         if (c.moveToFirst()) {
@@ -210,22 +1365,382 @@ public class QuizDbHelper extends SQLiteOpenHelper {
                 Category category = new Category();
                 category.setId(c.getInt(c.getColumnIndex(CategoriesTables._ID)));
                 category.setName(c.getString(c.getColumnIndex(CategoriesTables.COLUMN_NAME)));
+                category.setMixed(c.getInt(c.getColumnIndex(CategoriesTables.COLUMN_MIXED)) != 0);
                 categoryList.add(category);
             } while (c.moveToNext());
         }
         c.close();
-        return categoryList;
+
+        // wenige Zeilen: (Kategorie, Schwierigkeit) aus dem Primärschlüssel
+        c = db.query(CategoryCountsTable.TABLE_NAME, new String[]{
+                        CategoryCountsTable.COLUMN_CATEGORY_ID,
+                        CategoryCountsTable.COLUMN_DIFFICULTY,
+                        CategoryCountsTable.COLUMN_QUESTION_COUNT},
+                null, null, null, null, null);
+        try {
+            while (c.moveToNext()) {
+                for (Category category : categoryList) {
+                    if (category.getId() == c.getInt(0)) {
+                        category.addQuestionCount(c.getInt(1), c.getInt(2));
+                    }
+                }
+            }
+        } finally {
+            c.close();
+        }
+        QuizMetrics.DB_CATEGORIES.stop(start);
+        return new CategoryRegistry(categoryList);
+    }
+
+    // gemischte Kategorie -> QuestionCache.ALL_CATEGORIES, sonst unverändert
+    private int resolveCategory(int categoryID) {
+        return getCategoryRegistry().isMixed(categoryID) ? QuestionCache.ALL_CATEGORIES : categoryID;
+    }
+
+    public QuestionCache getQuestionCache() {
+        return questionCache;
+    }
+
+    /**
+     * Fragen statt aus SQLite aus einer Fragen-Pack-Datei lesen (siehe
+     * QuestionPackWriter.export()). Mit null zurück auf SQLite. Das Pack ist
+     * ein Schnappschuss und wird bei addQuestion(s) wieder abgeschaltet.
+     */
+    public void setQuestionPack(@Nullable QuestionPackReader questionPack) {
+        this.questionPack = questionPack;
+        questionCache.invalidate();
     }
 
-    // Fragen laden
+    /**
+     * Schaltet auf eine Fragen-Pack-Datei in dir um, siehe BuildConfig.QUESTION_PACK.
+     * Im Namen stehen Format und Stand der Fragen (Inhalts-Version, Anzahl,
+     * höchste ID), nur eine Datei zum aktuellen Stand wird geöffnet, sonst neu
+     * exportiert. Ändern sich die Fragen währenddessen, bleibt es bei SQLite
+     * und das Ergebnis ist false. Nicht auf dem Main-Thread aufrufen.
+     */
+    public boolean useQuestionPack(File dir) throws IOException {
+        int generation = questionCache.generation();
+        File file = new File(dir, "questions-v" + QuestionPackFormat.VERSION + "-" +
+                getContentVersion() + "-" + questionsStamp() + ".pack");
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File old : files) {
+                if (!old.equals(file)) {
+                    old.delete();
+                }
+            }
+        }
+        if (!file.exists()) {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Verzeichnis " + dir + " nicht angelegt");
+            }
+            QuestionPackWriter.export(getReadableDatabase(), file);
+        }
+        QuestionPackReader pack = QuestionPackReader.open(file);
+        synchronized (questionPackLock) {
+            if (questionCache.generation() != generation) {
+                return false;
+            }
+            setQuestionPack(pack);
+        }
+        return true;
+    }
+
+    // Anzahl und höchste ID: lokale Fragen ändern die Inhalts-Version nicht, IDs werden nie wiederverwendet
+    private String questionsStamp() {
+        Cursor c = getReadableDatabase().rawQuery("SELECT COUNT(*), IFNULL(MAX(" +
+                QuestionsTable._ID + "), 0) FROM " + QuestionsTable.TABLE_NAME, null);
+        try {
+            c.moveToFirst();
+            return c.getLong(0) + "-" + c.getLong(1);
+        } finally {
+            c.close();
+        }
+    }
+
+    // auch für Tests, die direkt in die DB schreiben
+    void invalidateQuestions() {
+        synchronized (questionPackLock) {
+            questionPack = null;
+            questionCache.invalidate();
+        }
+        invalidateCategories();
+    }
+
+    // Fragen laden, Kopie der Liste aus dem Cache
     public ArrayList<Question> getAllQuestions(String difficulty) {
-        ArrayList<Question> questionList = new ArrayList<>();
-        db = getReadableDatabase();
+        return new ArrayList<>(getPartition(QuestionCache.ALL_CATEGORIES, difficulty));
+    }
+
+    public ArrayList<Question> getQuestions(int categoryID, String difficulty) {
+        return new ArrayList<>(getPartition(resolveCategory(categoryID), difficulty));
+    }
+
+    /**
+     * Neuer Durchgang in zufälliger Reihenfolge. Kleine Partitionen kommen aus
+     * dem Cache bzw. werden dort abgelegt, große werden über die IDs gestreamt.
+     * Die gemischte Kategorie steht für alle Kategorien. Über prefetchExecutor
+     * lädt eine gestreamte Quelle den nächsten Block im Hintergrund vor.
+     */
+    public QuestionSource openQuestionSource(int categoryID, String difficulty, Random random,
+                                             @Nullable Executor prefetchExecutor) {
+        categoryID = resolveCategory(categoryID);
+        QuestionPackReader pack = questionPack;
+        if (pack != null) {
+            int[] records = pack.getRecords(categoryID, difficulty);
+            LazyQuestionSource.shuffle(records, random);
+            return new PackQuestionSource(pack, records);
+        }
+        String key = QuestionCache.key(categoryID, difficulty);
+        int generation = questionCache.generation();
+        List<Question> cached = questionCache.getCopy(key);
+        if (cached != null) {
+            QuizMetrics.QUESTION_CACHE_HIT.increment();
+            return ListQuestionSource.shuffled(cached, random);
+        }
+        QuizMetrics.QUESTION_CACHE_MISS.increment();
+
+        int[] questionIds = categoryID == QuestionCache.ALL_CATEGORIES
+                ? getAllQuestionIds(difficulty)
+                : getQuestionIds(categoryID, difficulty);
+        if (questionIds.length <= QuestionCache.MAX_PARTITION_ROWS) {
+            List<Question> questions = queryPartition(categoryID, difficulty);
+            questionCache.putIfCurrent(key, questions, generation);
+            return ListQuestionSource.shuffled(questions, random);
+        }
+        LazyQuestionSource.shuffle(questionIds, random);
+        return new LazyQuestionSource(this, questionIds, prefetchExecutor);
+    }
+
+    /**
+     * n zufällige Fragen, ohne die ganze Partition zu laden und zu mischen:
+     * zufällige _IDs aus dem Bereich der Partition werden über den Index
+     * geprüft (siehe probeQuestions()), gelesen werden nur die Treffer.
+     * Gleicher seed und gleicher Datenbestand ergeben dieselbe Runde.
+     * Die gemischte Kategorie steht für alle Kategorien.
+     */
+    public ArrayList<Question> sampleQuestions(int categoryID, String difficulty, int n, long seed) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        categoryID = resolveCategory(categoryID);
+        Random random = new Random(seed);
+
+        QuestionPackReader pack = questionPack;
+        if (pack != null) {
+            int[] records = pack.getRecords(categoryID, difficulty);
+            int count = sample(records, n, random);
+            ArrayList<Question> questionList = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                questionList.add(pack.get(records[i]));
+            }
+            return questionList;
+        }
 
-        String selection = QuestionsTable.COLUMN_DIFFICULTY + " = ? ";
-        String[] selectionArgs = new String[]{difficulty}; // zahl in String
+        String selection;
+        String[] selectionArgs;
+        if (categoryID == QuestionCache.ALL_CATEGORIES) {
+            selection = SELECTION_DIFFICULTY;
+            selectionArgs = new String[]{difficultyArg(difficulty)};
+        } else {
+            selection = SELECTION_CATEGORY_DIFFICULTY;
+            selectionArgs = new String[]{String.valueOf(categoryID), difficultyArg(difficulty)};
+        }
+        ArrayList<Question> sampled = probeQuestions(selection, selectionArgs, n, random);
+        if (sampled != null) {
+            return sampled;
+        }
+        // Partition klein oder dünn im _ID-Bereich: aus allen IDs ziehen
+        int[] questionIds = queryQuestionIds(selection, selectionArgs);
+        int count = sample(questionIds, n, random);
+        return getQuestionsInOrder(questionIds, count);
+    }
+
+    /**
+     * Zieht zufällige _IDs zwischen der kleinsten und größten ID der Partition
+     * und liest per IN-Abfrage nur die, die es in der Partition gibt. Jede
+     * Frage der Partition wird mit gleicher Wahrscheinlichkeit getroffen,
+     * doppelte Treffer werden verworfen. Min/Max und die Lookups laufen über
+     * idx_questions_*, die Kosten hängen also von n und der Dichte der
+     * Partition im _ID-Bereich ab, nicht von ihrer Größe. Null, wenn das
+     * Durchlaufen der ID-Liste billiger wäre oder die Proben nicht reichen.
+     */
+    private ArrayList<Question> probeQuestions(String selection, String[] selectionArgs,
+                                               int n, Random random) {
+        long start = QuizMetrics.start();
+        SQLiteDatabase db = getReadableDatabase();
+        long count = queryLong(db, sampleCountSql(selection), selectionArgs);
+        long minId = queryLong(db, sampleBoundSql("min", selection), selectionArgs);
+        long maxId = queryLong(db, sampleBoundSql("max", selection), selectionArgs);
+        long range = maxId - minId + 1;
+        long maxProbes = sampleProbeBudget(n, range, count);
+        if (maxProbes <= 0) {
+            return null;
+        }
+
+        HashMap<Integer, Question> chosen = new HashMap<>(n * 2);
+        ArrayList<Question> questionList = new ArrayList<>(n);
+        long probes = 0;
+        while (questionList.size() < n) {
+            int batch = sampleBatchSize(n - questionList.size(), range, count);
+            if (probes + batch > maxProbes) {
+                QuizMetrics.DB_SAMPLE.stop(start);
+                return null;
+            }
+            probes += batch;
+
+            int[] candidates = new int[batch];
+            String[] batchArgs = new String[batch + selectionArgs.length];
+            for (int i = 0; i < batch; i++) {
+                candidates[i] = (int) (minId + (long) (random.nextDouble() * range));
+                batchArgs[i] = String.valueOf(candidates[i]);
+            }
+            System.arraycopy(selectionArgs, 0, batchArgs, batch, selectionArgs.length);
+
+            Cursor c = db.rawQuery(sampleProbeSql(batch, selection), batchArgs);
+            HashMap<Integer, Question> found = new HashMap<>();
+            try {
+                for (Question question : readQuestions(db, c)) {
+                    found.put(question.getId(), question);
+                }
+            } finally {
+                c.close();
+            }
+            // in Proben-Reihenfolge übernehmen, damit der seed die Runde festlegt
+            for (int i = 0; i < batch && questionList.size() < n; i++) {
+                Question question = found.get(candidates[i]);
+                if (question != null && !chosen.containsKey(candidates[i])) {
+                    chosen.put(candidates[i], question);
+                    questionList.add(question);
+                }
+            }
+        }
+        QuizMetrics.DB_SAMPLE.stop(start);
+        return questionList;
+    }
+
+    // Größe der Partition aus den Zählern, ohne die Fragen-Tabelle anzufassen
+    static String sampleCountSql(String selection) {
+        return "SELECT sum(" + CategoryCountsTable.COLUMN_QUESTION_COUNT + ") FROM " +
+                CategoryCountsTable.TABLE_NAME + " WHERE " + selection;
+    }
+
+    // getrennt für min und max: nur ein einzelnes min() bzw. max() wird über den Index gelöst
+    static String sampleBoundSql(String aggregate, String selection) {
+        return "SELECT " + aggregate + "(" + QuestionsTable._ID + ") FROM " +
+                QuestionsTable.TABLE_NAME + " WHERE " + selection;
+    }
+
+    // batch Kandidaten-IDs, danach die Argumente von selection
+    static String sampleProbeSql(int batch, String selection) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM ")
+                .append(QuestionsTable.TABLE_NAME).append(" WHERE ")
+                .append(QuestionsTable._ID).append(" IN (");
+        for (int i = 0; i < batch; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(") AND ").append(selection).toString();
+    }
+
+    /**
+     * Höchstzahl Proben für n Fragen aus count Fragen im _ID-Bereich range,
+     * 0 wenn das Durchlaufen der ID-Liste billiger ist. Erwartet werden
+     * n * range / count Proben, erlaubt ist das Doppelte plus ein Batch.
+     */
+    static long sampleProbeBudget(int n, long range, long count) {
+        if (count <= 0 || range <= 0) {
+            return 0;
+        }
+        long expected = (long) n * range / count;
+        if (expected * SAMPLE_PROBE_COST > count) {
+            return 0;
+        }
+        return 2 * expected + MAX_SQL_VARIABLES;
+    }
+
+    // etwas mehr als für remaining Treffer erwartet, damit meist ein Batch reicht
+    static int sampleBatchSize(int remaining, long range, long count) {
+        long expected = remaining * range / count;
+        return (int) Math.min(MAX_SQL_VARIABLES, expected + expected / 4 + 1);
+    }
+
+    private static long queryLong(SQLiteDatabase db, String sql, String[] selectionArgs) {
+        Cursor c = db.rawQuery(sql, selectionArgs);
+        try {
+            return c.moveToFirst() && !c.isNull(0) ? c.getLong(0) : 0;
+        } finally {
+            c.close();
+        }
+    }
+
+    // partieller Fisher-Yates: danach sind die ersten n Einträge die Stichprobe
+    static int sample(int[] values, int n, Random random) {
+        int count = Math.min(n, values.length);
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(values.length - i);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+        return count;
+    }
+
+    // Fragen zu ids[0] .. ids[count - 1] in genau dieser Reihenfolge
+    private ArrayList<Question> getQuestionsInOrder(int[] ids, int count) {
+        HashMap<Integer, Question> byId = new HashMap<>(count * 2);
+        for (int from = 0; from < count; from += MAX_SQL_VARIABLES) {
+            for (Question question : getQuestionsByIds(ids, from,
+                    Math.min(from + MAX_SQL_VARIABLES, count))) {
+                byId.put(question.getId(), question);
+            }
+        }
+        ArrayList<Question> questionList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Question question = byId.get(ids[i]);
+            if (question != null) {
+                questionList.add(question);
+            }
+        }
+        return questionList;
+    }
+
+    private List<Question> getPartition(int categoryID, String difficulty) {
+        String key = QuestionCache.key(categoryID, difficulty);
+        int generation = questionCache.generation();
+        List<Question> questions = questionCache.getCopy(key);
+        if (questions == null) {
+            QuizMetrics.QUESTION_CACHE_MISS.increment();
+            questions = queryPartition(categoryID, difficulty);
+            questionCache.putIfCurrent(key, questions, generation);
+        } else {
+            QuizMetrics.QUESTION_CACHE_HIT.increment();
+        }
+        return questions;
+    }
+
+    private List<Question> queryPartition(int categoryID, String difficulty) {
+        ArrayList<Question> questionList;
+        QuestionPackReader pack = questionPack;
+        if (pack != null) {
+            int[] records = pack.getRecords(categoryID, difficulty);
+            questionList = new ArrayList<>(records.length);
+            for (int record : records) {
+                questionList.add(pack.get(record));
+            }
+        } else if (categoryID == QuestionCache.ALL_CATEGORIES) {
+            questionList = queryQuestions(SELECTION_DIFFICULTY, new String[]{difficultyArg(difficulty)});
+        } else {
+            String[] selectionArgs = new String[]{String.valueOf(categoryID), difficultyArg(difficulty)}; // zahl in String
+            questionList = queryQuestions(SELECTION_CATEGORY_DIFFICULTY, selectionArgs);
+        }
+        // wird geteilt, darf nicht verändert werden
+        return Collections.unmodifiableList(questionList);
+    }
+
+    private ArrayList<Question> queryQuestions(String selection, String[] selectionArgs) {
+        long start = QuizMetrics.start();
+        SQLiteDatabase db = getReadableDatabase();
 
-        //Cursor c = db.rawQuery("SELECT * FROM " + QuestionsTable.TABLE_NAME, null);
         Cursor c = db.query(
                 QuestionsTable.TABLE_NAME,
                 null,
@@ -235,125 +1750,646 @@ public class QuizDbHelper extends SQLiteOpenHelper {
                 null,
                 null
         );
-
-        if (c.moveToFirst()) {
-            do {
-                Question question = new Question();
-                question.setId(c.getInt(c.getColumnIndex(QuestionsTable._ID)));
-                question.setQuestion(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_QUESTION)));
-                question.setOption1(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_OPTION1)));
-                question.setOption2(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_OPTION2)));
-                question.setOption3(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_OPTION3)));
-                question.setAnswerNr(c.getInt(c.getColumnIndex(QuestionsTable.COLUMN_ANSWER_NR)));
-                question.setDifficulty(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_DIFFICULTY)));
-                question.setCategoryID(c.getInt(c.getColumnIndex(QuestionsTable.COLUMN_CATEGORY_ID)));
-                questionList.add(question);
-            } while (c.moveToNext());
-        }
+        ArrayList<Question> questionList = readQuestions(db, c);
 
         c.close();
+        QuizMetrics.DB_QUERY_QUESTIONS.stop(start);
         return questionList;
-    } // getAllQuestions
+    }
 
-    public ArrayList<Question> getQuestions(int categoryID, String difficulty) {
-        ArrayList<Question> questionList = new ArrayList<>();
-        db = getReadableDatabase();
+    private ArrayList<Question> readQuestions(SQLiteDatabase db, Cursor c) {
+        ArrayList<Question> questionList = new ArrayList<>(c.getCount());
+        QuestionRowMapper mapper = new QuestionRowMapper(c, db, optionDictionary);
+        while (c.moveToNext()) {
+            questionList.add(mapper.map(c));
+        }
+        return questionList;
+    }
+
+    // nur die IDs laden, die Fragen selbst holt LazyQuestionSource bei Bedarf
+    public int[] getAllQuestionIds(String difficulty) {
+        return queryQuestionIds(SELECTION_DIFFICULTY, new String[]{difficultyArg(difficulty)});
+    }
 
-        String selection = QuestionsTable.COLUMN_CATEGORY_ID + " = ? " +
-                " AND " + QuestionsTable.COLUMN_DIFFICULTY + " = ? ";
-        String[] selectionArgs = new String[]{String.valueOf(categoryID), difficulty}; // zahl in String
+    public int[] getQuestionIds(int categoryID, String difficulty) {
+        return queryQuestionIds(SELECTION_CATEGORY_DIFFICULTY,
+                new String[]{String.valueOf(categoryID), difficultyArg(difficulty)});
+    }
+
+    private int[] queryQuestionIds(String selection, String[] selectionArgs) {
+        long start = QuizMetrics.start();
+        SQLiteDatabase db = getReadableDatabase();
 
         Cursor c = db.query(
                 QuestionsTable.TABLE_NAME,
-                null,
+                new String[]{QuestionsTable._ID},
                 selection,
                 selectionArgs,
                 null,
                 null,
-                null
+                QuestionsTable._ID // feste Reihenfolge für sampleQuestions(seed)
         );
-        if (c.moveToFirst()) {
-            do {
-                Question question = new Question();
-                question.setId(c.getInt(c.getColumnIndex(QuestionsTable._ID)));
-                question.setQuestion(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_QUESTION)));
-                question.setOption1(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_OPTION1)));
-                question.setOption2(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_OPTION2)));
-                question.setOption3(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_OPTION3)));
-                question.setAnswerNr(c.getInt(c.getColumnIndex(QuestionsTable.COLUMN_ANSWER_NR)));
-                question.setDifficulty(c.getString(c.getColumnIndex(QuestionsTable.COLUMN_DIFFICULTY)));
-                question.setCategoryID(c.getInt(c.getColumnIndex(QuestionsTable.COLUMN_CATEGORY_ID)));
-                questionList.add(question);
-            } while (c.moveToNext());
+        int[] ids = new int[c.getCount()];
+        int i = 0;
+        while (c.moveToNext()) {
+            ids[i++] = c.getInt(0);
         }
 
         c.close();
+        QuizMetrics.DB_QUERY_IDS.stop(start);
+        return ids;
+    }
+
+    /**
+     * Volltextsuche in Frage und Antworten. Jedes Wort der Eingabe muss (als
+     * Präfix) vorkommen, Sonderzeichen der FTS-Syntax werden ignoriert.
+     * Sortiert nach Anzahl der Treffer, seitenweise über limit/offset.
+     */
+    public ArrayList<Question> searchQuestions(String query, int limit, int offset) {
+        String match = toMatchExpression(query);
+        if (match.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long start = QuizMetrics.start();
+        SQLiteDatabase db = getReadableDatabase();
+
+        Cursor c = db.rawQuery(SQL_SEARCH,
+                new String[]{match, String.valueOf(limit), String.valueOf(offset)});
+        ArrayList<Question> questionList = readQuestions(db, c);
+
+        c.close();
+        QuizMetrics.DB_SEARCH.stop(start);
         return questionList;
-    } // getAllQuestions
+    }
 
+    // "Haupt stadt" -> "Haupt*" "stadt*"
+    static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String word : query.split("[\\s\"*^():]+")) {
+            if (!word.isEmpty() && !word.equals("-")) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append('"').append(word).append("*\"");
+            }
+        }
+        return match.toString();
+    }
 
-    private void copyDatabaseFromAssets(SQLiteDatabase db) {
-        Log.i(TAG, "copyDatabase");
-        InputStream myInput = null;
-        OutputStream myOutput = null;
+    // Fragen zu ids[from] .. ids[to - 1], Reihenfolge nicht garantiert
+    public ArrayList<Question> getQuestionsByIds(int[] ids, int from, int to) {
+        if (from >= to) {
+            return new ArrayList<>();
+        }
+
+        StringBuilder selection = new StringBuilder(QuestionsTable._ID).append(" IN (");
+        String[] selectionArgs = new String[to - from];
+        for (int i = from; i < to; i++) {
+            selection.append(i == from ? "?" : ", ?");
+            selectionArgs[i - from] = String.valueOf(ids[i]);
+        }
+        selection.append(")");
+
+        return queryQuestions(selection.toString(), selectionArgs);
+    }
+
+    // ein Batch von SessionJournal, alles in einer Transaktion
+    void writeJournal(List<SessionJournal.Event> events) {
+        SQLiteDatabase db = getWritableDatabase();
+        // Statistik pro Frage erst sammeln, dann eine Zeile pro Frage schreiben
+        HashMap<Integer, StatsDelta> deltas = new HashMap<>();
+        HashMap<Integer, ReviewState> reviewStates = new HashMap<>();
+
+        SQLiteStatement insertAnswer = db.compileStatement("INSERT INTO " +
+                AnswersTable.TABLE_NAME + " (" +
+                AnswersTable.COLUMN_SESSION_ID + ", " +
+                AnswersTable.COLUMN_QUESTION_ID + ", " +
+                AnswersTable.COLUMN_CHOSEN_NR + ", " +
+                AnswersTable.COLUMN_CORRECT + ", " +
+                AnswersTable.COLUMN_TIME_TAKEN + ", " +
+                AnswersTable.COLUMN_ANSWERED_AT + ") VALUES (?, ?, ?, ?, ?, ?)");
+        db.beginTransaction();
         try {
-            // Open db packaged as asset as the input stream
-            myInput = context.getAssets().open("databases/" + DATABASE_NAME);
+            for (SessionJournal.Event event : events) {
+                switch (event.type) {
+                    case SessionJournal.Event.START:
+                        // ältere, nicht beendete Durchgänge gelten als abgebrochen
+                        ContentValues abandoned = new ContentValues();
+                        abandoned.put(SessionsTable.COLUMN_FINISHED_AT, event.timestamp);
+                        db.update(SessionsTable.TABLE_NAME, abandoned,
+                                SessionsTable.COLUMN_FINISHED_AT + " IS NULL", null);
 
-            // Open the db in the application package context:
-            myOutput = new FileOutputStream(db.getPath());
+                        ContentValues session = new ContentValues();
+                        session.put(SessionsTable._ID, event.sessionId);
+                        session.put(SessionsTable.COLUMN_CATEGORY_ID, event.categoryID);
+                        session.put(SessionsTable.COLUMN_CATEGORY_NAME, event.categoryName);
+                        session.put(SessionsTable.COLUMN_DIFFICULTY, Question.selectionCode(event.difficulty));
+                        session.put(SessionsTable.COLUMN_QUESTION_IDS, toBlob(event.questionIds));
+                        session.put(SessionsTable.COLUMN_STARTED_AT, event.timestamp);
+                        db.insert(SessionsTable.TABLE_NAME, null, session);
+                        break;
+                    case SessionJournal.Event.ANSWER:
+                        insertAnswer.bindLong(1, event.sessionId);
+                        insertAnswer.bindLong(2, event.questionId);
+                        insertAnswer.bindLong(3, event.chosenNr);
+                        insertAnswer.bindLong(4, event.correct ? 1 : 0);
+                        insertAnswer.bindLong(5, event.timeTakenMillis);
+                        insertAnswer.bindLong(6, event.timestamp);
+                        insertAnswer.executeInsert();
+                        StatsDelta.of(deltas, event.questionId)
+                                .add(event.correct, event.timeTakenMillis);
+                        applyReview(db, reviewStates, event.questionId,
+                                SpacedRepetition.quality(event.chosenNr, event.correct,
+                                        event.timeTakenMillis),
+                                event.timestamp);
+                        break;
+                    case SessionJournal.Event.FINISH:
+                        ContentValues finished = new ContentValues();
+                        finished.put(SessionsTable.COLUMN_FINISHED_AT, event.timestamp);
+                        finished.put(SessionsTable.COLUMN_SCORE, event.score);
+                        db.update(SessionsTable.TABLE_NAME, finished,
+                                SessionsTable._ID + " = ?",
+                                new String[]{String.valueOf(event.sessionId)});
+                        break;
+                    default:
+                        break;
+                }
+            }
+            updateQuestionStats(db, deltas);
+            writeReviewStates(db, reviewStates);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insertAnswer.close();
+        }
+    }
+
+    // Änderungen eines Batches an der Statistik einer Frage
+    private static class StatsDelta {
+        int answerCount;
+        int correctCount;
+        long timeSum;
+        final AnswerTimeSketch sketch = new AnswerTimeSketch();
+
+        static StatsDelta of(HashMap<Integer, StatsDelta> deltas, int questionId) {
+            StatsDelta delta = deltas.get(questionId);
+            if (delta == null) {
+                delta = new StatsDelta();
+                deltas.put(questionId, delta);
+            }
+            return delta;
+        }
 
-            // Transfer db file contents:
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = myInput.read(buffer)) > 0) {
-                myOutput.write(buffer, 0, length);
+        void add(boolean correct, long timeTakenMillis) {
+            answerCount++;
+            if (correct) {
+                correctCount++;
             }
-            myOutput.flush();
+            timeSum += timeTakenMillis;
+            sketch.add(timeTakenMillis);
+        }
+    }
 
-            // Set the version of the copied database to the current
-            // version:
-            SQLiteDatabase copiedDb = context.openOrCreateDatabase(
-                    DATABASE_NAME, 0, null);
-            copiedDb.execSQL("PRAGMA user_version = " + DATABASE_VERSION);
-            copiedDb.close();
+    // liest die bisherige Zeile, addiert den Batch und schreibt sie zurück
+    private static void updateQuestionStats(SQLiteDatabase db, HashMap<Integer, StatsDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        SQLiteStatement replace = db.compileStatement("INSERT OR REPLACE INTO " +
+                QuestionStatsTable.TABLE_NAME + " (" +
+                QuestionStatsTable.COLUMN_QUESTION_ID + ", " +
+                QuestionStatsTable.COLUMN_CATEGORY_ID + ", " +
+                QuestionStatsTable.COLUMN_ANSWER_COUNT + ", " +
+                QuestionStatsTable.COLUMN_CORRECT_COUNT + ", " +
+                QuestionStatsTable.COLUMN_TIME_SUM + ", " +
+                QuestionStatsTable.COLUMN_CORRECT_RATE + ", " +
+                QuestionStatsTable.COLUMN_MEDIAN_TIME + ", " +
+                QuestionStatsTable.COLUMN_TIME_SKETCH + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+        // Kategorie aus quiz_questions, die bisherige Zeile auch dann, wenn die Frage gelöscht ist
+        String select = "SELECT (SELECT " + QuestionsTable.COLUMN_CATEGORY_ID + " FROM " +
+                QuestionsTable.TABLE_NAME + " WHERE " + QuestionsTable._ID + " = ?1), s." +
+                QuestionStatsTable.COLUMN_CATEGORY_ID + ", s." +
+                QuestionStatsTable.COLUMN_ANSWER_COUNT + ", s." +
+                QuestionStatsTable.COLUMN_CORRECT_COUNT + ", s." +
+                QuestionStatsTable.COLUMN_TIME_SUM + ", s." +
+                QuestionStatsTable.COLUMN_TIME_SKETCH +
+                " FROM (SELECT 1) LEFT JOIN " + QuestionStatsTable.TABLE_NAME + " s ON s." +
+                QuestionStatsTable.COLUMN_QUESTION_ID + " = ?1";
+        try {
+            for (Map.Entry<Integer, StatsDelta> entry : deltas.entrySet()) {
+                StatsDelta delta = entry.getValue();
+                int categoryID = 0;
+                int answerCount = delta.answerCount;
+                int correctCount = delta.correctCount;
+                long timeSum = delta.timeSum;
+                AnswerTimeSketch sketch = delta.sketch;
 
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new Error(TAG + " Error copying database");
-        } finally {
-            // Close the streams
-            try {
-                if (myOutput != null) {
-                    myOutput.close();
-                }
-                if (myInput != null) {
-                    myInput.close();
+                Cursor c = db.rawQuery(select, new String[]{String.valueOf(entry.getKey())});
+                try {
+                    c.moveToFirst();
+                    if (!c.isNull(2)) {
+                        categoryID = c.getInt(1);
+                        answerCount += c.getInt(2);
+                        correctCount += c.getInt(3);
+                        timeSum += c.getLong(4);
+                        sketch = AnswerTimeSketch.fromBlob(c.getBlob(5));
+                        sketch.addAll(delta.sketch);
+                    }
+                    if (!c.isNull(0)) {
+                        categoryID = c.getInt(0);
+                    }
+                } finally {
+                    c.close();
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
-                throw new Error(TAG + " Error closing streams");
+
+                replace.bindLong(1, entry.getKey());
+                replace.bindLong(2, categoryID);
+                replace.bindLong(3, answerCount);
+                replace.bindLong(4, correctCount);
+                replace.bindLong(5, timeSum);
+                replace.bindDouble(6, (double) correctCount / answerCount);
+                replace.bindLong(7, sketch.median());
+                replace.bindBlob(8, sketch.toBlob());
+                replace.executeInsert();
+            }
+        } finally {
+            replace.close();
+        }
+    }
+
+    /**
+     * Die schwersten Fragen: niedrigste Trefferquote zuerst, bei Gleichstand
+     * die längste Median-Antwortzeit. Fragen mit weniger als minAnswers
+     * Antworten zählen nicht. Die gemischte Kategorie steht für alle Kategorien.
+     */
+    public List<QuestionStats> getHardestQuestions(int categoryID, int limit, int minAnswers) {
+        return queryQuestionStats(categoryID, limit, minAnswers, ORDER_STATS_HARDEST);
+    }
+
+    // Gegenstück zu getHardestQuestions()
+    public List<QuestionStats> getEasiestQuestions(int categoryID, int limit, int minAnswers) {
+        return queryQuestionStats(categoryID, limit, minAnswers, ORDER_STATS_EASIEST);
+    }
+
+    private List<QuestionStats> queryQuestionStats(int categoryID, int limit, int minAnswers,
+                                                   String orderBy) {
+        SQLiteDatabase db = getReadableDatabase();
+
+        String selection;
+        String[] selectionArgs;
+        if (getCategoryRegistry().isMixed(categoryID)) {
+            selection = SELECTION_STATS_ALL;
+            selectionArgs = new String[]{String.valueOf(minAnswers)};
+        } else {
+            selection = SELECTION_STATS_CATEGORY;
+            selectionArgs = new String[]{String.valueOf(categoryID), String.valueOf(minAnswers)};
+        }
+
+        Cursor c = db.query(QuestionStatsTable.TABLE_NAME, new String[]{
+                        QuestionStatsTable.COLUMN_QUESTION_ID,
+                        QuestionStatsTable.COLUMN_CATEGORY_ID,
+                        QuestionStatsTable.COLUMN_ANSWER_COUNT,
+                        QuestionStatsTable.COLUMN_CORRECT_COUNT,
+                        QuestionStatsTable.COLUMN_MEDIAN_TIME,
+                        QuestionStatsTable.COLUMN_TIME_SUM},
+                selection, selectionArgs, null, null, orderBy, String.valueOf(limit));
+        List<QuestionStats> stats = new ArrayList<>(c.getCount());
+        try {
+            while (c.moveToNext()) {
+                int answerCount = c.getInt(2);
+                stats.add(new QuestionStats(c.getInt(0), c.getInt(1), answerCount, c.getInt(3),
+                        c.getLong(4), answerCount == 0 ? 0 : c.getLong(5) / answerCount));
+            }
+        } finally {
+            c.close();
+        }
+        return stats;
+    }
+
+    // nächster Lernstand, der bisherige wird einmal pro Frage und Batch gelesen
+    private static void applyReview(SQLiteDatabase db, HashMap<Integer, ReviewState> states,
+                                    int questionId, int quality, long answeredAt) {
+        ReviewState state = states.get(questionId);
+        if (state == null) {
+            state = readReviewState(db, questionId);
+        }
+        states.put(questionId, SpacedRepetition.review(state, quality, answeredAt));
+    }
+
+    private static ReviewState readReviewState(SQLiteDatabase db, int questionId) {
+        Cursor c = db.query(ReviewStateTable.TABLE_NAME, new String[]{
+                        ReviewStateTable.COLUMN_REPETITIONS,
+                        ReviewStateTable.COLUMN_INTERVAL_DAYS,
+                        ReviewStateTable.COLUMN_EASE_FACTOR,
+                        ReviewStateTable.COLUMN_DUE_AT},
+                ReviewStateTable.COLUMN_QUESTION_ID + " = ?",
+                new String[]{String.valueOf(questionId)}, null, null, null);
+        try {
+            if (c.moveToFirst()) {
+                return new ReviewState(c.getInt(0), c.getInt(1), c.getDouble(2), c.getLong(3));
+            }
+            return ReviewState.initial();
+        } finally {
+            c.close();
+        }
+    }
+
+    // eine Zeile pro Frage, die Kategorie kommt aus quiz_questions
+    private static void writeReviewStates(SQLiteDatabase db, HashMap<Integer, ReviewState> states) {
+        if (states.isEmpty()) {
+            return;
+        }
+        SQLiteStatement replace = db.compileStatement("INSERT OR REPLACE INTO " +
+                ReviewStateTable.TABLE_NAME + " (" +
+                ReviewStateTable.COLUMN_QUESTION_ID + ", " +
+                ReviewStateTable.COLUMN_CATEGORY_ID + ", " +
+                ReviewStateTable.COLUMN_REPETITIONS + ", " +
+                ReviewStateTable.COLUMN_INTERVAL_DAYS + ", " +
+                ReviewStateTable.COLUMN_EASE_FACTOR + ", " +
+                ReviewStateTable.COLUMN_DUE_AT + ") SELECT " +
+                QuestionsTable._ID + ", " + QuestionsTable.COLUMN_CATEGORY_ID + ", ?, ?, ?, ? FROM " +
+                QuestionsTable.TABLE_NAME + " WHERE " + QuestionsTable._ID + " = ?");
+        try {
+            for (Map.Entry<Integer, ReviewState> entry : states.entrySet()) {
+                ReviewState state = entry.getValue();
+                replace.bindLong(1, state.getRepetitions());
+                replace.bindLong(2, state.getIntervalDays());
+                replace.bindDouble(3, state.getEaseFactor());
+                replace.bindLong(4, state.getDueAt());
+                replace.bindLong(5, entry.getKey());
+                replace.executeInsert();
+            }
+        } finally {
+            replace.close();
+        }
+    }
+
+    /**
+     * Fällige Fragen für die Wiederholung, am längsten überfällige zuerst.
+     * Bereichsabfrage über den due_at-Index, liest also nur die fälligen
+     * Zeilen. Die gemischte Kategorie steht für alle Kategorien.
+     */
+    public ArrayList<Question> getDueQuestions(int categoryID, long nowMillis, int limit) {
+        long start = QuizMetrics.start();
+        SQLiteDatabase db = getReadableDatabase();
+
+        String selection = "r." + ReviewStateTable.COLUMN_DUE_AT + " <= ?";
+        String[] selectionArgs;
+        if (getCategoryRegistry().isMixed(categoryID)) {
+            selectionArgs = new String[]{String.valueOf(nowMillis), String.valueOf(limit)};
+        } else {
+            selection = "r." + ReviewStateTable.COLUMN_CATEGORY_ID + " = ? AND " + selection;
+            selectionArgs = new String[]{String.valueOf(categoryID), String.valueOf(nowMillis),
+                    String.valueOf(limit)};
+        }
+
+        Cursor c = db.rawQuery("SELECT q.* FROM " + ReviewStateTable.TABLE_NAME + " r" +
+                " JOIN " + QuestionsTable.TABLE_NAME + " q ON q." + QuestionsTable._ID +
+                " = r." + ReviewStateTable.COLUMN_QUESTION_ID +
+                " WHERE " + selection +
+                " ORDER BY r." + ReviewStateTable.COLUMN_DUE_AT + " LIMIT ?", selectionArgs);
+        try {
+            return readQuestions(db, c);
+        } finally {
+            c.close();
+            QuizMetrics.DB_DUE_QUESTIONS.stop(start);
+        }
+    }
+
+    // letzter nicht beendeter Durchgang oder null
+    @Nullable
+    public SessionJournal.OpenSession getUnfinishedSession() {
+        SQLiteDatabase db = getReadableDatabase();
+
+        Cursor c = db.query(SessionsTable.TABLE_NAME, null,
+                SessionsTable.COLUMN_FINISHED_AT + " IS NULL", null,
+                null, null, SessionsTable._ID + " DESC", "1");
+        try {
+            if (!c.moveToFirst()) {
+                return null;
+            }
+            long sessionId = c.getLong(c.getColumnIndexOrThrow(SessionsTable._ID));
+
+            // zuletzt beantwortete Frage: übersprungene (gelöschte) Fragen stehen nicht im Journal
+            Cursor answers = db.rawQuery("SELECT COUNT(*), TOTAL(" + AnswersTable.COLUMN_CORRECT +
+                    "), (SELECT " + AnswersTable.COLUMN_QUESTION_ID + " FROM " + AnswersTable.TABLE_NAME +
+                    " WHERE " + AnswersTable.COLUMN_SESSION_ID + " = ?1 ORDER BY " + AnswersTable._ID +
+                    " DESC LIMIT 1) FROM " + AnswersTable.TABLE_NAME +
+                    " WHERE " + AnswersTable.COLUMN_SESSION_ID + " = ?1",
+                    new String[]{String.valueOf(sessionId)});
+            int answeredCount = 0;
+            int score = 0;
+            int lastQuestionID = 0;
+            if (answers.moveToFirst()) {
+                answeredCount = answers.getInt(0);
+                score = answers.getInt(1);
+                lastQuestionID = answers.getInt(2);
             }
+            answers.close();
+
+            int[] questionIds = fromBlob(c.getBlob(c.getColumnIndexOrThrow(SessionsTable.COLUMN_QUESTION_IDS)));
+            String difficulty = Question.selectionLabel(
+                    c.getInt(c.getColumnIndexOrThrow(SessionsTable.COLUMN_DIFFICULTY)));
+            int resumePosition;
+            if (Question.DIFFICULTY_ADAPTIVE.equals(difficulty)) {
+                // adaptiv ergibt sich die Reihenfolge erst beim Spielen: beantwortete Fragen nach vorn
+                questionIds = answeredFirst(questionIds, getAnsweredQuestionIds(db, sessionId));
+                resumePosition = answeredCount;
+            } else {
+                resumePosition = resumePosition(questionIds, answeredCount, lastQuestionID);
+            }
+            return new SessionJournal.OpenSession(sessionId,
+                    c.getInt(c.getColumnIndexOrThrow(SessionsTable.COLUMN_CATEGORY_ID)),
+                    c.getString(c.getColumnIndexOrThrow(SessionsTable.COLUMN_CATEGORY_NAME)),
+                    difficulty, questionIds, resumePosition, score);
+        } finally {
+            c.close();
+        }
+    }
+
+    // in der Reihenfolge der Antworten
+    private static int[] getAnsweredQuestionIds(SQLiteDatabase db, long sessionId) {
+        Cursor c = db.query(AnswersTable.TABLE_NAME, new String[]{AnswersTable.COLUMN_QUESTION_ID},
+                AnswersTable.COLUMN_SESSION_ID + " = ?", new String[]{String.valueOf(sessionId)},
+                null, null, AnswersTable._ID);
+        try {
+            int[] ids = new int[c.getCount()];
+            for (int i = 0; c.moveToNext(); i++) {
+                ids[i] = c.getInt(0);
+            }
+            return ids;
+        } finally {
+            c.close();
+        }
+    }
+
+    // answeredIds, danach die übrigen questionIds, insgesamt mindestens so viele wie vorher
+    static int[] answeredFirst(int[] questionIds, int[] answeredIds) {
+        Set<Integer> answered = new HashSet<>();
+        for (int id : answeredIds) {
+            answered.add(id);
+        }
+        int[] ids = Arrays.copyOf(answeredIds, Math.max(questionIds.length, answeredIds.length));
+        int pos = answeredIds.length;
+        for (int i = 0; i < questionIds.length && pos < ids.length; i++) {
+            if (!answered.contains(questionIds[i])) {
+                ids[pos++] = questionIds[i];
+            }
+        }
+        return ids;
+    }
+
+    // Position hinter der zuletzt beantworteten Frage, mindestens answeredCount
+    static int resumePosition(int[] questionIds, int answeredCount, int lastQuestionID) {
+        for (int i = Math.max(answeredCount - 1, 0); i < questionIds.length; i++) {
+            if (questionIds[i] == lastQuestionID) {
+                return i + 1;
+            }
+        }
+        return answeredCount;
+    }
+
+    /**
+     * Speichert einen beendeten Durchgang und liefert seinen Rang auf der
+     * Bestenliste, beides in einer Transaktion.
+     */
+    public LeaderboardRank addLeaderboardEntry(LeaderboardEntry entry) {
+        SQLiteDatabase db = getWritableDatabase();
+
+        ContentValues cv = new ContentValues();
+        cv.put(LeaderboardTable.COLUMN_PLAYER, entry.getPlayer());
+        cv.put(LeaderboardTable.COLUMN_CATEGORY_ID, entry.getCategoryID());
+        cv.put(LeaderboardTable.COLUMN_DIFFICULTY, Question.selectionCode(entry.getDifficulty()));
+        cv.put(LeaderboardTable.COLUMN_SCORE, entry.getScore());
+        cv.put(LeaderboardTable.COLUMN_QUESTION_COUNT, entry.getQuestionCount());
+        cv.put(LeaderboardTable.COLUMN_FINISHED_AT, entry.getFinishedAt());
+
+        db.beginTransaction();
+        try {
+            entry.setId(db.insertOrThrow(LeaderboardTable.TABLE_NAME, null, cv));
+            LeaderboardRank rank = queryLeaderboardRank(db, entry.getCategoryID(),
+                    Question.selectionCode(entry.getDifficulty()), entry.getScore());
+            db.setTransactionSuccessful();
+            return rank;
+        } finally {
+            db.endTransaction();
         }
     }
 
+    // beste Durchgänge einer Bestenliste, höchste Punktzahl zuerst
+    public List<LeaderboardEntry> getTopScores(int categoryID, String difficulty, int limit) {
+        return queryLeaderboard(SELECTION_LEADERBOARD,
+                new String[]{String.valueOf(categoryID),
+                        String.valueOf(Question.selectionCode(difficulty))}, limit);
+    }
+
+    // beste Durchgänge eines Spielers über alle Bestenlisten
+    public List<LeaderboardEntry> getPlayerTopScores(String player, int limit) {
+        return queryLeaderboard(LeaderboardTable.COLUMN_PLAYER + " = ?", new String[]{player}, limit);
+    }
+
+    // Rang einer Punktzahl, ohne sie zu speichern
+    public LeaderboardRank getLeaderboardRank(int categoryID, String difficulty, int score) {
+        return queryLeaderboardRank(getReadableDatabase(), categoryID,
+                Question.selectionCode(difficulty), score);
+    }
+
+    private List<LeaderboardEntry> queryLeaderboard(String selection, String[] selectionArgs, int limit) {
+        SQLiteDatabase db = getReadableDatabase();
+
+        Cursor c = db.query(LeaderboardTable.TABLE_NAME, new String[]{
+                        LeaderboardTable._ID,
+                        LeaderboardTable.COLUMN_PLAYER,
+                        LeaderboardTable.COLUMN_CATEGORY_ID,
+                        LeaderboardTable.COLUMN_DIFFICULTY,
+                        LeaderboardTable.COLUMN_SCORE,
+                        LeaderboardTable.COLUMN_QUESTION_COUNT,
+                        LeaderboardTable.COLUMN_FINISHED_AT},
+                selection, selectionArgs, null, null, ORDER_LEADERBOARD, String.valueOf(limit));
+        List<LeaderboardEntry> entries = new ArrayList<>(c.getCount());
+        try {
+            while (c.moveToNext()) {
+                LeaderboardEntry entry = new LeaderboardEntry(c.getString(1), c.getInt(2),
+                        Question.selectionLabel(c.getInt(3)), c.getInt(4), c.getInt(5), c.getLong(6));
+                entry.setId(c.getLong(0));
+                entries.add(entry);
+            }
+        } finally {
+            c.close();
+        }
+        return entries;
+    }
+
+    private static LeaderboardRank queryLeaderboardRank(SQLiteDatabase db, int categoryID,
+                                                        int difficultyCode, int score) {
+        Cursor c = db.rawQuery(SQL_LEADERBOARD_RANK, new String[]{String.valueOf(score),
+                String.valueOf(score), String.valueOf(categoryID), String.valueOf(difficultyCode)});
+        try {
+            c.moveToFirst();
+            return new LeaderboardRank(score, c.getInt(0), c.getInt(1), c.getInt(2));
+        } finally {
+            c.close();
+        }
+    }
+
+    private static byte[] toBlob(int[] ids) {
+        ByteBuffer buffer = ByteBuffer.allocate(ids.length * 4);
+        buffer.asIntBuffer().put(ids);
+        return buffer.array();
+    }
+
+    private static int[] fromBlob(byte[] blob) {
+        if (blob == null) {
+            return new int[0];
+        }
+        int[] ids = new int[blob.length / 4];
+        ByteBuffer.wrap(blob).asIntBuffer().get(ids);
+        return ids;
+    }
+
     @Override
-    public void onOpen(SQLiteDatabase db) {
-        Log.i(TAG, "onOpen db");
-        if (createDb) {// The db in the application package
-            // context is being created.
-            // So copy the contents from the db
-            // file packaged in the assets
-            // folder:
-            createDb = false;
-            copyDatabaseFromAssets(db);
+    public SQLiteDatabase getWritableDatabase() {
+        long start = QuizMetrics.start();
+        provisionDatabase();
+        SQLiteDatabase db = super.getWritableDatabase();
+        QuizMetrics.DB_OPEN.stop(start);
+        return db;
+    }
 
+    @Override
+    public SQLiteDatabase getReadableDatabase() {
+        long start = QuizMetrics.start();
+        provisionDatabase();
+        SQLiteDatabase db = super.getReadableDatabase();
+        QuizMetrics.DB_OPEN.stop(start);
+        return db;
+    }
+
+    /**
+     * Beim ersten Zugriff die DB aus den Assets installieren. Ist sie schon
+     * vorhanden, wird nichts kopiert. Schlägt das Kopieren fehl, legt onCreate()
+     * eine leere DB mit den Beispielfragen an. provisioned wird erst nach
+     * Erfolg gesetzt, nach einem Fehler versucht es der nächste Zugriff erneut.
+     */
+    private synchronized void provisionDatabase() {
+        if (provisioned) {
+            return;
         }
-        if (upgradeDb) {// The db in the application package
-            // context is being upgraded from a lower to a higher version.
-            upgradeDb = false;
-            // Your db upgrade logic here:
+        long start = QuizMetrics.start();
+        try {
+            new AssetDatabaseProvisioner(context, "databases/" + DATABASE_NAME)
+                    .provision(context.getDatabasePath(DATABASE_NAME));
+            provisioned = true;
+        } catch (IOException e) {
+            Log.e(TAG, "Error copying database", e);
+        } finally {
+            QuizMetrics.DB_PROVISION.stop(start);
         }
     }
 
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        Log.i(TAG, "onOpen db");
+    }
+
 }
@@ -0,0 +1,210 @@
+package de.bfw.cbo.myquizapp;
+
+/**
+ * Spielablauf eines Quiz-Durchgangs ohne Android-Views: nächste Frage,
+ * Antwort prüfen, Punkte, Zeitlimit und Ende. Die QuizActivity zeigt nur an,
+ * was über den Listener gemeldet wird; in Tests läuft die Uhr auf einer
+ * virtuellen Zeitquelle.
+ *
+ * Ablauf: showNextQuestion() - selectAnswer() - checkAnswer() - showNextQuestion() ...
+ * bis keine Frage mehr übrig ist oder finish() aufgerufen wird.
+ */
+public class QuizEngine {
+
+    public interface Listener {
+        // neue Frage, die Uhr läuft
+        void onQuestion(QuizEngine engine, Question question);
+
+        // jede Sekunde, für die Anzeige der Restzeit
+        void onTick(QuizEngine engine);
+
+        // answerNr = 0: keine Antwort gewählt, Zeit abgelaufen
+        void onAnswered(QuizEngine engine, Question question, int answerNr, boolean correct,
+                        long timeTakenMillis);
+
+        void onFinished(QuizEngine engine);
+    }
+
+    private final QuestionSource questionSource;
+    private final long questionMillis;
+    private final Listener listener;
+    private final QuizClock clock;
+
+    private int questionCounter;
+    private Question currentQuestion;
+    private int selectedAnswer;
+    private int score;
+    private boolean answered;
+    private boolean finished;
+
+    public QuizEngine(QuestionSource questionSource, long questionMillis,
+                      QuizClock.TimeSource timeSource, Listener listener) {
+        this.questionSource = questionSource;
+        this.questionMillis = questionMillis;
+        this.listener = listener;
+        clock = new QuizClock(timeSource, new QuizClock.Listener() {
+            @Override
+            public void onTick(QuizClock clock) {
+                QuizEngine.this.listener.onTick(QuizEngine.this);
+            }
+
+            @Override
+            public void onFinish(QuizClock clock) {
+                // Zeit abgelaufen: zählt die bis dahin gewählte Antwort
+                checkAnswer();
+            }
+        });
+    }
+
+    // Zeit pro Frage je Schwierigkeitslevel, null bei Adaptiv/Wiederholung
+    public static long timeLimitFor(Question.Difficulty difficulty) {
+        if (difficulty == null) {
+            return 40000;
+        }
+        switch (difficulty) {
+            case EASY :     return 45000;
+            case HARD :     return 30000;
+            default :       return 40000;
+        }
+    }
+
+    /**
+     * Spielstand nach einer Rotation oder aus dem Journal übernehmen, vor dem
+     * ersten showNextQuestion(). Bei questionCounter > 0 und !answered läuft
+     * die aktuelle Frage mit elapsedMillis weiter, sobald resume() kommt.
+     */
+    public void restore(int questionCounter, int score, boolean answered, long elapsedMillis) {
+        this.questionCounter = questionCounter;
+        this.score = score;
+        this.answered = answered;
+        currentQuestion = questionCounter > 0 ? questionSource.get(questionCounter - 1) : null;
+        // inzwischen gelöscht: gilt als erledigt, showNextQuestion() macht weiter
+        if (questionCounter > 0 && currentQuestion == null) {
+            this.answered = true;
+        }
+        clock.reset(questionMillis, elapsedMillis);
+    }
+
+    // aktuelle Frage nach restore() weiterlaufen lassen
+    public void resume() {
+        if (currentQuestion != null && !answered && !finished) {
+            clock.start();
+        }
+    }
+
+    /**
+     * Nächste Frage oder Ende des Durchgangs.
+     *
+     * @return false, wenn keine Frage mehr übrig war und onFinished() gemeldet wurde
+     */
+    public boolean showNextQuestion() {
+        if (finished) {
+            return false;
+        }
+        long start = QuizMetrics.start();
+        Question next = null;
+        // vom Inhalts-Sync gelöschte Fragen überspringen
+        while (next == null) {
+            if (questionCounter >= questionSource.size()) {
+                finish();
+                return false;
+            }
+            next = questionSource.get(questionCounter);
+            questionCounter++;
+        }
+        currentQuestion = next;
+        selectedAnswer = 0;
+        answered = false;
+
+        clock.reset(questionMillis, 0);
+        clock.start();
+        listener.onQuestion(this, currentQuestion);
+        QuizMetrics.SHOW_NEXT_QUESTION.stop(start);
+        return true;
+    }
+
+    // gewählte, noch nicht bestätigte Antwort (1-3), 0 = keine
+    public void selectAnswer(int answerNr) {
+        if (!answered) {
+            selectedAnswer = answerNr;
+        }
+    }
+
+    public void checkAnswer() {
+        if (answered || currentQuestion == null) {
+            return;
+        }
+        long start = QuizMetrics.start();
+        answered = true;
+        clock.stop();
+
+        boolean correct = selectedAnswer == currentQuestion.getAnswerNr();
+        long timeTaken = clock.elapsed();
+        // im adaptiven Modus bestimmt die Antwort das Level der nächsten Frage
+        if (questionSource instanceof ScheduledQuestionSource) {
+            ((ScheduledQuestionSource) questionSource).getScheduler()
+                    .onAnswered(currentQuestion, correct, timeTaken);
+        }
+        if (correct) {
+            score++;
+        }
+        listener.onAnswered(this, currentQuestion, selectedAnswer, correct, timeTaken);
+        QuizMetrics.CHECK_ANSWER.stop(start);
+    }
+
+    // Durchgang vorzeitig oder nach der letzten Frage beenden, meldet onFinished() einmal
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        clock.stop();
+        listener.onFinished(this);
+    }
+
+    // Uhr für den Takt von außen (QuizClock.tick()), z.B. über einen Handler
+    public QuizClock getClock() {
+        return clock;
+    }
+
+    public QuestionSource getQuestionSource() {
+        return questionSource;
+    }
+
+    public Question getCurrentQuestion() {
+        return currentQuestion;
+    }
+
+    // 1-basiert, 0 vor der ersten Frage
+    public int getQuestionNumber() {
+        return questionCounter;
+    }
+
+    public int getQuestionCount() {
+        return questionSource.size();
+    }
+
+    // beantwortete Fragen, eine abgelaufene Zeit zählt mit
+    public int getAnsweredCount() {
+        if (questionCounter == 0) {
+            return 0;
+        }
+        return answered ? questionCounter : questionCounter - 1;
+    }
+
+    public boolean hasNextQuestion() {
+        return questionCounter < questionSource.size();
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isAnswered() {
+        return answered;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+}
@@ -0,0 +1,158 @@
+package de.bfw.cbo.myquizapp;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zähler und Laufzeit-Histogramme für die heißen Pfade. Standardmäßig aus,
+ * dann kostet eine Messung nur das Lesen von enabled (siehe MetricsBenchmark):
+ *
+ * <pre>
+ * long start = QuizMetrics.start();
+ * ...
+ * QuizMetrics.DB_SEARCH.stop(start);
+ * </pre>
+ *
+ * Alle Metriken sind hier fest angelegt, ausgegeben wird mit logSnapshot()
+ * oder writeSnapshot().
+ */
+public final class QuizMetrics {
+
+    private static final String TAG = "QuizMetrics";
+
+    private static volatile boolean enabled;
+
+    private static final List<LatencyHistogram> timers = new ArrayList<>();
+    private static final List<Counter> counters = new ArrayList<>();
+
+    // getReadableDatabase()/getWritableDatabase(), beim ersten Mal mit DB_PROVISION
+    public static final LatencyHistogram DB_OPEN = timer("db.open");
+    // Asset-DB prüfen und ggf. kopieren, einmal pro Prozess
+    public static final LatencyHistogram DB_PROVISION = timer("db.provision");
+    public static final LatencyHistogram DB_QUERY_QUESTIONS = timer("db.query_questions");
+    public static final LatencyHistogram DB_QUERY_IDS = timer("db.query_ids");
+    public static final LatencyHistogram DB_SAMPLE = timer("db.sample");
+    public static final LatencyHistogram DB_SEARCH = timer("db.search");
+    public static final LatencyHistogram DB_DUE_QUESTIONS = timer("db.due_questions");
+    public static final LatencyHistogram DB_CATEGORIES = timer("db.categories");
+    public static final LatencyHistogram SHUFFLE = timer("shuffle");
+    // QuizEngine, inklusive der Anzeige in QuizActivity über den Listener
+    public static final LatencyHistogram SHOW_NEXT_QUESTION = timer("quiz.show_next_question");
+    public static final LatencyHistogram CHECK_ANSWER = timer("quiz.check_answer");
+
+    public static final Counter QUESTION_CACHE_HIT = counter("question_cache.hit");
+    public static final Counter QUESTION_CACHE_MISS = counter("question_cache.miss");
+
+    private QuizMetrics() {
+
+    }
+
+    public static class Counter {
+        private final String name;
+        private final AtomicLong value = new AtomicLong();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void increment() {
+            if (enabled) {
+                value.incrementAndGet();
+            }
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    private static LatencyHistogram timer(String name) {
+        LatencyHistogram timer = new LatencyHistogram(name);
+        timers.add(timer);
+        return timer;
+    }
+
+    private static Counter counter(String name) {
+        Counter counter = new Counter(name);
+        counters.add(counter);
+        return counter;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        QuizMetrics.enabled = enabled;
+    }
+
+    // Startzeit für LatencyHistogram.stop(), 0 wenn abgeschaltet
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void reset() {
+        for (LatencyHistogram timer : timers) {
+            timer.reset();
+        }
+        for (Counter counter : counters) {
+            counter.value.set(0);
+        }
+    }
+
+    // eine Zeile pro Metrik, Zeiten in Millisekunden
+    public static List<String> snapshot() {
+        List<String> lines = new ArrayList<>(timers.size() + counters.size());
+        for (LatencyHistogram timer : timers) {
+            LatencyHistogram.Snapshot s = timer.snapshot();
+            if (s.getCount() == 0) {
+                continue;
+            }
+            lines.add(String.format(Locale.ROOT,
+                    "%-26s n=%-6d mean=%8.3f p50=%8.3f p90=%8.3f p99=%8.3f max=%8.3f",
+                    s.getName(), s.getCount(), s.getMean() / 1e6,
+                    s.getValueAtPercentile(50) / 1e6, s.getValueAtPercentile(90) / 1e6,
+                    s.getValueAtPercentile(99) / 1e6, s.getMax() / 1e6));
+        }
+        for (Counter counter : counters) {
+            lines.add(String.format(Locale.ROOT, "%-26s %d", counter.getName(), counter.get()));
+        }
+        return lines;
+    }
+
+    public static void logSnapshot() {
+        for (String line : snapshot()) {
+            Log.i(TAG, line);
+        }
+    }
+
+    // anhängen, mit Zeitstempel davor; nicht auf dem Main-Thread aufrufen
+    public static void writeSnapshot(File file) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+        try {
+            out.write("# " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.ROOT).format(new Date()) + "\n");
+            for (String line : snapshot()) {
+                out.write(line);
+                out.write('\n');
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
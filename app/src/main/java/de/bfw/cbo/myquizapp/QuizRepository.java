@@ -0,0 +1,471 @@
+package de.bfw.cbo.myquizapp;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Alle DB-Zugriffe der Activities laufen hierüber im Hintergrund.
+ * Das Ergebnis kommt als Callback auf dem Main-Thread an oder über das Future.
+ */
+public class QuizRepository {
+
+    private static final String TAG = "QuizRepository";
+
+    private static final int THREAD_COUNT = 2;
+    private static final int QUEUE_CAPACITY = 64;
+
+    // Fragen pro Wiederholungs-Durchgang, wenn keine Anzahl vorgegeben ist
+    private static final int DEFAULT_REVIEW_COUNT = 20;
+
+    private static QuizRepository instance;
+
+    private final QuizDbHelper dbHelper;
+    private final ThreadPoolExecutor executor;
+    // eigener Thread fürs Vorladen von Fragen, ohne Grenze: darf nie abgelehnt werden
+    private final ThreadPoolExecutor prefetchExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Callback<T> {
+        void onSuccess(T result);
+
+        void onError(Exception e);
+    }
+
+    private QuizRepository(QuizDbHelper dbHelper) {
+        this.dbHelper = dbHelper;
+
+        // begrenzte Queue, damit sich bei Fehlern keine Aufträge endlos stauen
+        executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                backgroundThreads(TAG));
+        executor.allowCoreThreadTimeOut(true);
+        // ein Thread: Aufträge laufen der Reihe nach, loadQuestion() findet fertiges Vorladen vor
+        prefetchExecutor = new ThreadPoolExecutor(1, 1,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                backgroundThreads(TAG + "-prefetch"));
+        prefetchExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private static ThreadFactory backgroundThreads(final String name) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, name + "-" + count.incrementAndGet());
+            }
+        };
+    }
+
+    public static synchronized QuizRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new QuizRepository(QuizDbHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    /**
+     * Nur für Tests: Repository, Journal und QuizDbHelper neu auf einer eigenen
+     * DB, z.B. für einen kalten Start ohne die DB der App anzufassen.
+     * databaseName = null stellt wieder auf die App-DB um.
+     */
+    static synchronized void useDatabaseForTests(Context context, @Nullable String databaseName) {
+        QuizDbHelper.replaceInstance(databaseName == null
+                ? null : new QuizDbHelper(context.getApplicationContext(), databaseName));
+        SessionJournal.resetInstance();
+        instance = null;
+    }
+
+    public Future<List<Category>> loadCategories(@Nullable Callback<List<Category>> callback) {
+        return submit(new Callable<List<Category>>() {
+            @Override
+            public List<Category> call() {
+                return dbHelper.getAllCategories();
+            }
+        }, callback);
+    }
+
+    // Kategorien mit Fragen-Anzahlen, nach dem ersten Laden ohne DB-Zugriff
+    public Future<CategoryRegistry> loadCategoryRegistry(@Nullable Callback<CategoryRegistry> callback) {
+        return submit(new Callable<CategoryRegistry>() {
+            @Override
+            public CategoryRegistry call() {
+                return dbHelper.getCategoryRegistry();
+            }
+        }, callback);
+    }
+
+    /**
+     * Neuer Durchgang in zufälliger Reihenfolge, die ersten Fragen sind vorgeladen.
+     * Die gemischte Kategorie lädt alle Kategorien. Bei questionCount > 0
+     * werden nur so viele Fragen gezogen statt alle zu laden.
+     */
+    public Future<QuestionSource> loadQuestionSource(final int categoryID, final String difficulty,
+                                                     final int questionCount,
+                                                     @Nullable Callback<QuestionSource> callback) {
+        return submit(new Callable<QuestionSource>() {
+            @Override
+            public QuestionSource call() {
+                Random random = new Random();
+                if (questionCount > 0) {
+                    return new ListQuestionSource(dbHelper.sampleQuestions(
+                            categoryID, difficulty, questionCount, random.nextLong()));
+                }
+                return warmUp(dbHelper.openQuestionSource(categoryID, difficulty, random, prefetchExecutor), 0);
+            }
+        }, callback);
+    }
+
+    /**
+     * Adaptiver Durchgang über alle Schwierigkeitsgrade der Kategorie, die
+     * Fragen werden erst beim Spielen vom AdaptiveQuestionScheduler gezogen.
+     */
+    public Future<QuestionSource> loadAdaptiveQuestionSource(final int categoryID, final int questionCount,
+                                                             final long timeLimitMillis,
+                                                             @Nullable Callback<QuestionSource> callback) {
+        return submit(new Callable<QuestionSource>() {
+            @Override
+            public QuestionSource call() {
+                return new ScheduledQuestionSource(new AdaptiveQuestionScheduler(
+                        loadAdaptivePool(categoryID, new int[0]), timeLimitMillis, new Random()),
+                        questionCount);
+            }
+        }, callback);
+    }
+
+    // alle Schwierigkeitsgrade der Kategorie ohne die schon gespielten Fragen
+    private List<Question> loadAdaptivePool(int categoryID, int[] playedIds) {
+        Set<Integer> played = new HashSet<>();
+        for (int id : playedIds) {
+            played.add(id);
+        }
+        List<Question> pool = new ArrayList<>();
+        for (String difficulty : Question.getAllDifficultyLevels()) {
+            for (Question question : dbHelper.getQuestions(categoryID, difficulty)) {
+                if (!played.contains(question.getId())) {
+                    pool.add(question);
+                }
+            }
+        }
+        return pool;
+    }
+
+    // fällige Fragen der Wiederholung, am längsten überfällige zuerst
+    public Future<QuestionSource> loadReviewSource(final int categoryID, final int questionCount,
+                                                   @Nullable Callback<QuestionSource> callback) {
+        return submit(new Callable<QuestionSource>() {
+            @Override
+            public QuestionSource call() {
+                return new ListQuestionSource(dbHelper.getDueQuestions(categoryID,
+                        System.currentTimeMillis(),
+                        questionCount > 0 ? questionCount : DEFAULT_REVIEW_COUNT));
+            }
+        }, callback);
+    }
+
+    /**
+     * Nach einer Rotation oder Prozess-Ende: gleiche Reihenfolge, aktuelle Frage vorladen.
+     * Ein adaptiver Durchgang bekommt wieder einen AdaptiveQuestionScheduler mit
+     * dem gespeicherten Level, sein Pool sind die noch nicht gespielten Fragen der Kategorie.
+     */
+    public Future<QuestionSource> openQuestionSource(final QuizSession session, final int categoryID,
+                                                     final long timeLimitMillis,
+                                                     @Nullable Callback<QuestionSource> callback) {
+        return submit(new Callable<QuestionSource>() {
+            @Override
+            public QuestionSource call() throws IOException {
+                int[] ids = session.getQuestionIds();
+                if (!session.isAdaptive()) {
+                    return warmUp(new LazyQuestionSource(dbHelper, ids, prefetchExecutor),
+                            session.getQuestionCounter() - 1);
+                }
+                int[] playedIds = Arrays.copyOf(ids, Math.min(session.getQuestionCounter(), ids.length));
+                AdaptiveQuestionScheduler scheduler = new AdaptiveQuestionScheduler(
+                        loadAdaptivePool(categoryID, playedIds), timeLimitMillis, new Random());
+                scheduler.restoreState(session.getAdaptiveLevel(), session.getAdaptivePerformance());
+                return new ScheduledQuestionSource(scheduler, ids.length, playedIds,
+                        dbHelper.getQuestionsByIds(playedIds, 0, playedIds.length));
+            }
+        }, callback);
+    }
+
+    // für "Fortsetzen" nach einem Absturz, null wenn alles beendet ist
+    public Future<SessionJournal.OpenSession> loadUnfinishedSession(
+            @Nullable Callback<SessionJournal.OpenSession> callback) {
+        return submit(new Callable<SessionJournal.OpenSession>() {
+            @Override
+            public SessionJournal.OpenSession call() {
+                return dbHelper.getUnfinishedSession();
+            }
+        }, callback);
+    }
+
+    // Schwierigkeits-Kalibrierung, siehe QuizDbHelper.getHardestQuestions()
+    public Future<List<QuestionStats>> loadQuestionStats(final int categoryID, final boolean hardest,
+                                                         final int limit, final int minAnswers,
+                                                         @Nullable Callback<List<QuestionStats>> callback) {
+        return submit(new Callable<List<QuestionStats>>() {
+            @Override
+            public List<QuestionStats> call() {
+                return hardest
+                        ? dbHelper.getHardestQuestions(categoryID, limit, minAnswers)
+                        : dbHelper.getEasiestQuestions(categoryID, limit, minAnswers);
+            }
+        }, callback);
+    }
+
+    // beendeten Durchgang eintragen, Ergebnis ist sein Rang auf der Bestenliste
+    public Future<LeaderboardRank> recordRun(final LeaderboardEntry entry,
+                                             @Nullable Callback<LeaderboardRank> callback) {
+        return submit(new Callable<LeaderboardRank>() {
+            @Override
+            public LeaderboardRank call() {
+                return dbHelper.addLeaderboardEntry(entry);
+            }
+        }, callback);
+    }
+
+    public Future<List<LeaderboardEntry>> loadTopScores(final int categoryID, final String difficulty,
+                                                        final int limit,
+                                                        @Nullable Callback<List<LeaderboardEntry>> callback) {
+        return submit(new Callable<List<LeaderboardEntry>>() {
+            @Override
+            public List<LeaderboardEntry> call() {
+                return dbHelper.getTopScores(categoryID, difficulty, limit);
+            }
+        }, callback);
+    }
+
+    public Future<List<LeaderboardEntry>> loadPlayerTopScores(final String player, final int limit,
+                                                              @Nullable Callback<List<LeaderboardEntry>> callback) {
+        return submit(new Callable<List<LeaderboardEntry>>() {
+            @Override
+            public List<LeaderboardEntry> call() {
+                return dbHelper.getPlayerTopScores(player, limit);
+            }
+        }, callback);
+    }
+
+    public Future<LeaderboardRank> loadLeaderboardRank(final int categoryID, final String difficulty,
+                                                       final int score,
+                                                       @Nullable Callback<LeaderboardRank> callback) {
+        return submit(new Callable<LeaderboardRank>() {
+            @Override
+            public LeaderboardRank call() {
+                return dbHelper.getLeaderboardRank(categoryID, difficulty, score);
+            }
+        }, callback);
+    }
+
+    public Future<List<Question>> searchQuestions(final String query, final int limit, final int offset,
+                                                  @Nullable Callback<List<Question>> callback) {
+        return submit(new Callable<List<Question>>() {
+            @Override
+            public List<Question> call() {
+                return dbHelper.searchQuestions(query, limit, offset);
+            }
+        }, callback);
+    }
+
+    public Future<Void> addQuestion(final Question question, @Nullable Callback<Void> callback) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                dbHelper.addQuestion(question);
+                return null;
+            }
+        }, callback);
+    }
+
+    // Rückgabe: Index zum Fortsetzen, siehe QuizDbHelper.addQuestions()
+    public Future<Integer> addQuestions(final List<Question> questions, final int startIndex,
+                                        @Nullable final QuizDbHelper.ImportProgressListener listener,
+                                        @Nullable Callback<Integer> callback) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return dbHelper.addQuestions(questions, startIndex, listener);
+            }
+        }, callback);
+    }
+
+    /**
+     * Änderungen vom Inhalts-Server holen und anwenden.
+     * Ergebnis ist die Anzahl angewendeter Änderungen, 0 wenn nichts Neues da war.
+     */
+    public Future<Integer> syncContent(final ContentSyncClient client,
+                                       @Nullable Callback<Integer> callback) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws IOException {
+                long start = System.nanoTime();
+                ContentSyncClient.Update update = client.fetch(
+                        dbHelper.getContentVersion(), dbHelper.getContentEtag());
+                if (update == null) {
+                    return 0;
+                }
+                ContentChangeset changeset = update.getChangeset();
+                dbHelper.applyChangeset(changeset, update.getEtag());
+                Log.i(TAG, "Inhalt " + changeset.getBaseVersion() + " -> " +
+                        changeset.getTargetVersion() + ": " + changeset.size() + " Änderungen, " +
+                        update.getDownloadedBytes() + " Bytes, " +
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                return changeset.size();
+            }
+        }, callback);
+    }
+
+    // Fragen ab jetzt aus einer Fragen-Pack-Datei in dir, false wenn es bei SQLite bleibt
+    public Future<Boolean> useQuestionPack(final File dir, @Nullable Callback<Boolean> callback) {
+        return submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws IOException {
+                return dbHelper.useQuestionPack(dir);
+            }
+        }, callback);
+    }
+
+    // IDs eines großen Durchgangs für onSaveInstanceState sichern, siehe QuizSession.saveTo()
+    public Future<Void> saveSessionIds(final File file, final int[] questionIds,
+                                       @Nullable Callback<Void> callback) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                QuizSession.writeIds(file, questionIds);
+                return null;
+            }
+        }, callback);
+    }
+
+    // aktuellen Stand von QuizMetrics an file anhängen
+    public Future<Void> writeMetrics(final File file, @Nullable Callback<Void> callback) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                QuizMetrics.writeSnapshot(file);
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * Frage an position laden, dazu gelöschte bis zur nächsten vorhandenen,
+     * damit QuizEngine.showNextQuestion() auf dem UI-Thread nicht auf die DB
+     * wartet. Läuft hinter dem Vorladen auf dessen Thread.
+     */
+    public Future<Void> loadQuestion(final QuestionSource source, final int position,
+                                     @Nullable Callback<Void> callback) {
+        return submit(prefetchExecutor, new Callable<Void>() {
+            @Override
+            public Void call() {
+                int next = position;
+                while (next < source.size() && source.get(next) == null) {
+                    next++;
+                }
+                return null;
+            }
+        }, callback);
+    }
+
+    private static QuestionSource warmUp(QuestionSource source, int position) {
+        if (position >= 0 && position < source.size()) {
+            source.get(position);
+        }
+        return source;
+    }
+
+    /**
+     * Ist die Queue voll, kommt die RejectedExecutionException ebenfalls über
+     * onError an, das Future ist dann schon fehlgeschlagen.
+     */
+    private <T> Future<T> submit(final Callable<T> task, @Nullable final Callback<T> callback) {
+        return submit(executor, task, callback);
+    }
+
+    private <T> Future<T> submit(ThreadPoolExecutor executor, final Callable<T> task,
+                                 @Nullable final Callback<T> callback) {
+        try {
+            return executor.submit(wrap(task, callback));
+        } catch (final RejectedExecutionException e) {
+            Log.e(TAG, "DB-Zugriff abgelehnt, Queue voll", e);
+            if (callback != null) {
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onError(e);
+                    }
+                });
+            }
+            FutureTask<T> failed = new FutureTask<>(new Callable<T>() {
+                @Override
+                public T call() {
+                    throw e;
+                }
+            });
+            failed.run();
+            return failed;
+        }
+    }
+
+    private <T> Callable<T> wrap(final Callable<T> task, @Nullable final Callback<T> callback) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                try {
+                    final T result = task.call();
+                    if (callback != null) {
+                        mainHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                callback.onSuccess(result);
+                            }
+                        });
+                    }
+                    return result;
+                } catch (final Exception e) {
+                    Log.e(TAG, "DB-Zugriff fehlgeschlagen", e);
+                    if (callback != null) {
+                        mainHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                callback.onError(e);
+                            }
+                        });
+                    }
+                    throw e;
+                }
+            }
+        };
+    }
+}
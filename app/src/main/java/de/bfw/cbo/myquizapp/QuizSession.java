@@ -0,0 +1,220 @@
+package de.bfw.cbo.myquizapp;
+
+import android.os.Bundle;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Kompakter Spielstand für onSaveInstanceState: statt der Fragen nur ihre IDs
+ * in Spiel-Reihenfolge plus Zähler, Punkte und Timer. Die Fragen werden beim
+ * Wiederherstellen über QuizRepository neu geladen.
+ * Lange ID-Listen landen nicht im Bundle, sondern in einer Datei, damit die
+ * Binder-Transaktion klein bleibt (TransactionTooLargeException). Die Datei
+ * wird zu Beginn des Durchgangs im Hintergrund geschrieben (writeIds()),
+ * saveTo() selbst macht keine Datei-Zugriffe.
+ * Im adaptiven Modus stehen die bisher gezogenen Fragen vorn, dazu kommen
+ * Level und gleitender Mittelwert des AdaptiveQuestionScheduler.
+ */
+public class QuizSession {
+
+    // bis zu dieser Anzahl stehen die IDs direkt im Bundle (1 KB)
+    static final int MAX_BUNDLE_IDS = 256;
+
+    // kein adaptiver Durchgang
+    public static final int NOT_ADAPTIVE = -1;
+
+    private static final String KEY_SCORE = "keyScore";
+    private static final String KEY_QUESTION_COUNT = "keyQuestionCount";
+    private static final String KEY_MILLIS_LEFT = "keyMillisLeft";
+    private static final String KEY_ANSWERED = "keyAnswered";
+    private static final String KEY_QUESTION_IDS = "keyQuestionIds";
+    private static final String KEY_QUESTION_IDS_FILE = "keyQuestionIdsFile";
+    private static final String KEY_JOURNAL_SESSION_ID = "keyJournalSessionId";
+    private static final String KEY_ADAPTIVE_LEVEL = "keyAdaptiveLevel";
+    private static final String KEY_ADAPTIVE_PERFORMANCE = "keyAdaptivePerformance";
+
+    private int[] questionIds;
+    private final File questionIdsFile;
+    private final int questionCounter;
+    private final int score;
+    private final long timeLeftInMillis;
+    private final boolean answered;
+    private final long journalSessionId;
+    private final int adaptiveLevel;
+    private final double adaptivePerformance;
+
+    public QuizSession(int[] questionIds, int questionCounter, int score,
+                       long timeLeftInMillis, boolean answered, long journalSessionId) {
+        this(questionIds, questionCounter, score, timeLeftInMillis, answered, journalSessionId,
+                NOT_ADAPTIVE, 0);
+    }
+
+    public QuizSession(int[] questionIds, int questionCounter, int score,
+                       long timeLeftInMillis, boolean answered, long journalSessionId,
+                       int adaptiveLevel, double adaptivePerformance) {
+        this(questionIds, null, questionCounter, score, timeLeftInMillis, answered,
+                journalSessionId, adaptiveLevel, adaptivePerformance);
+    }
+
+    private QuizSession(int[] questionIds, File questionIdsFile, int questionCounter, int score,
+                        long timeLeftInMillis, boolean answered, long journalSessionId,
+                        int adaptiveLevel, double adaptivePerformance) {
+        this.questionIds = questionIds;
+        this.questionIdsFile = questionIdsFile;
+        this.questionCounter = questionCounter;
+        this.score = score;
+        this.timeLeftInMillis = timeLeftInMillis;
+        this.answered = answered;
+        this.journalSessionId = journalSessionId;
+        this.adaptiveLevel = adaptiveLevel;
+        this.adaptivePerformance = adaptivePerformance;
+    }
+
+    /**
+     * Durchgang aus dem SessionJournal: weiter mit der ersten unbeantworteten Frage.
+     * Das Journal kennt den Zustand des Schedulers nicht, ein adaptiver
+     * Durchgang beginnt wieder beim mittleren Level.
+     */
+    public static QuizSession resume(SessionJournal.OpenSession openSession) {
+        boolean adaptive = Question.DIFFICULTY_ADAPTIVE.equals(openSession.getDifficulty());
+        return new QuizSession(openSession.getQuestionIds(), openSession.getAnsweredCount(),
+                openSession.getScore(), 0, true, openSession.getSessionId(),
+                adaptive ? AdaptiveQuestionScheduler.LEVEL_MEDIUM : NOT_ADAPTIVE,
+                AdaptiveQuestionScheduler.NEUTRAL);
+    }
+
+    /**
+     * Für onSaveInstanceState, ohne Datei-Zugriff. Große ID-Listen müssen
+     * vorher mit writeIds() nach idsFile geschrieben worden sein, im Bundle
+     * steht dann nur der Pfad. Ist die Datei (noch) nicht geschrieben,
+     * idsFile = null: dann kommen auch große Listen ins Bundle.
+     */
+    public void saveTo(Bundle outState, @Nullable File idsFile) {
+        outState.putInt(KEY_SCORE, score);
+        outState.putInt(KEY_QUESTION_COUNT, questionCounter);
+        outState.putLong(KEY_MILLIS_LEFT, timeLeftInMillis);
+        outState.putBoolean(KEY_ANSWERED, answered);
+        outState.putLong(KEY_JOURNAL_SESSION_ID, journalSessionId);
+        outState.putInt(KEY_ADAPTIVE_LEVEL, adaptiveLevel);
+        outState.putDouble(KEY_ADAPTIVE_PERFORMANCE, adaptivePerformance);
+        if (fitsInBundle(questionIds) || idsFile == null) {
+            outState.putIntArray(KEY_QUESTION_IDS, questionIds);
+        } else {
+            outState.putString(KEY_QUESTION_IDS_FILE, idsFile.getPath());
+        }
+    }
+
+    // false: die IDs gehören vorab mit writeIds() in eine Datei
+    public static boolean fitsInBundle(int[] questionIds) {
+        return questionIds.length <= MAX_BUNDLE_IDS;
+    }
+
+    // null, wenn im Bundle kein Spielstand steht
+    public static QuizSession restoreFrom(Bundle savedInstanceState) {
+        if (savedInstanceState == null) {
+            return null;
+        }
+        int[] questionIds = savedInstanceState.getIntArray(KEY_QUESTION_IDS);
+        String idsPath = savedInstanceState.getString(KEY_QUESTION_IDS_FILE);
+        if (questionIds == null && idsPath == null) {
+            return null;
+        }
+        return new QuizSession(questionIds, idsPath == null ? null : new File(idsPath),
+                savedInstanceState.getInt(KEY_QUESTION_COUNT),
+                savedInstanceState.getInt(KEY_SCORE),
+                savedInstanceState.getLong(KEY_MILLIS_LEFT),
+                savedInstanceState.getBoolean(KEY_ANSWERED),
+                savedInstanceState.getLong(KEY_JOURNAL_SESSION_ID),
+                savedInstanceState.getInt(KEY_ADAPTIVE_LEVEL, NOT_ADAPTIVE),
+                savedInstanceState.getDouble(KEY_ADAPTIVE_PERFORMANCE));
+    }
+
+    // liest die IDs ggf. aus der Datei, daher nicht auf dem Main-Thread aufrufen
+    public synchronized int[] getQuestionIds() throws IOException {
+        if (questionIds == null) {
+            questionIds = readIds(questionIdsFile);
+        }
+        return questionIds;
+    }
+
+    public int getQuestionCounter() {
+        return questionCounter;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getTimeLeftInMillis() {
+        return timeLeftInMillis;
+    }
+
+    public boolean isAnswered() {
+        return answered;
+    }
+
+    public long getJournalSessionId() {
+        return journalSessionId;
+    }
+
+    public boolean isAdaptive() {
+        return adaptiveLevel != NOT_ADAPTIVE;
+    }
+
+    // Level des AdaptiveQuestionScheduler, NOT_ADAPTIVE in den anderen Modi
+    public int getAdaptiveLevel() {
+        return adaptiveLevel;
+    }
+
+    public double getAdaptivePerformance() {
+        return adaptivePerformance;
+    }
+
+    // Datei, aus der die IDs wiederhergestellt werden, null wenn sie im Bundle standen
+    @Nullable
+    public File getQuestionIdsFile() {
+        return questionIdsFile;
+    }
+
+    // schreibt atomar über eine temporäre Datei, nicht auf dem Main-Thread aufrufen
+    public static void writeIds(File file, int[] ids) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temp)));
+        try {
+            out.writeInt(ids.length);
+            for (int id : ids) {
+                out.writeInt(id);
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(temp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int[] readIds(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)));
+        try {
+            int[] ids = new int[in.readInt()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = in.readInt();
+            }
+            return ids;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.bfw.cbo.myquizapp;
+
+/**
+ * Lernstand einer Frage für die Wiederholung, siehe SpacedRepetition.
+ */
+public class ReviewState {
+
+    public static final double INITIAL_EASE_FACTOR = 2.5;
+
+    private final int repetitions;
+    private final int intervalDays;
+    private final double easeFactor;
+    private final long dueAt;
+
+    public ReviewState(int repetitions, int intervalDays, double easeFactor, long dueAt) {
+        this.repetitions = repetitions;
+        this.intervalDays = intervalDays;
+        this.easeFactor = easeFactor;
+        this.dueAt = dueAt;
+    }
+
+    // noch nie beantwortet
+    public static ReviewState initial() {
+        return new ReviewState(0, 0, INITIAL_EASE_FACTOR, 0);
+    }
+
+    // Anzahl richtiger Antworten in Folge
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    public int getIntervalDays() {
+        return intervalDays;
+    }
+
+    public double getEaseFactor() {
+        return easeFactor;
+    }
+
+    // fällig ab diesem Zeitpunkt, Millisekunden seit 1970
+    public long getDueAt() {
+        return dueAt;
+    }
+}
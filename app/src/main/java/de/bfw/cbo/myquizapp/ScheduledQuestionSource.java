@@ -0,0 +1,86 @@
+package de.bfw.cbo.myquizapp;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fragen, die erst beim ersten get() vom QuestionScheduler gezogen werden.
+ * Dadurch fließt jede Antwort in die Wahl der nächsten Frage ein.
+ */
+public class ScheduledQuestionSource implements QuestionSource {
+
+    private final QuestionScheduler scheduler;
+    private final Question[] picked;
+    // IDs getrennt, gelöschte Fragen stehen in picked als null
+    private final int[] pickedIds;
+    private int pickedCount;
+
+    // size = 0: alle Fragen des Pools
+    public ScheduledQuestionSource(QuestionScheduler scheduler, int size) {
+        this.scheduler = scheduler;
+        int available = scheduler.remaining();
+        picked = new Question[size > 0 ? Math.min(size, available) : available];
+        pickedIds = new int[picked.length];
+    }
+
+    /**
+     * Nach einer Rotation: die schon gezogenen Fragen bleiben vorn, danach
+     * zieht der Scheduler weiter. Er darf pickedIds nicht mehr enthalten.
+     * pickedQuestions in beliebiger Reihenfolge, fehlende gelten als gelöscht.
+     */
+    public ScheduledQuestionSource(QuestionScheduler scheduler, int size, int[] pickedIds,
+                                   List<Question> pickedQuestions) {
+        this.scheduler = scheduler;
+        int available = pickedIds.length + scheduler.remaining();
+        picked = new Question[Math.max(pickedIds.length,
+                size > 0 ? Math.min(size, available) : available)];
+        this.pickedIds = new int[picked.length];
+
+        Map<Integer, Question> byId = new HashMap<>();
+        for (Question question : pickedQuestions) {
+            byId.put(question.getId(), question);
+        }
+        for (int id : pickedIds) {
+            this.pickedIds[pickedCount] = id;
+            picked[pickedCount++] = byId.get(id);
+        }
+    }
+
+    public QuestionScheduler getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public int size() {
+        return picked.length;
+    }
+
+    @Override
+    public Question get(int position) {
+        while (pickedCount <= position) {
+            Question question = scheduler.next();
+            picked[pickedCount] = question;
+            pickedIds[pickedCount++] = question.getId();
+        }
+        return picked[position];
+    }
+
+    @Override
+    public boolean isLoaded(int position) {
+        return true;
+    }
+
+    // gezogene Fragen, danach der Rest des Pools in beliebiger Reihenfolge
+    @Override
+    public int[] getIds() {
+        int[] ids = new int[picked.length];
+        System.arraycopy(pickedIds, 0, ids, 0, pickedCount);
+        if (pickedCount < ids.length) {
+            int[] rest = new int[scheduler.remaining()];
+            scheduler.copyRemainingIds(rest, 0);
+            System.arraycopy(rest, 0, ids, pickedCount, ids.length - pickedCount);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,249 @@
+package de.bfw.cbo.myquizapp;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journal der Quiz-Durchgänge, damit ein Quiz nach einem Absturz fortgesetzt
+ * werden kann. Die Methoden stellen nur ein Ereignis in die Queue und kehren
+ * sofort zurück; ein eigener Thread schreibt alles, was sich angesammelt hat,
+ * in einer Transaktion (QuizDbHelper.writeJournal()).
+ */
+public class SessionJournal {
+
+    private static final String TAG = "SessionJournal";
+
+    // höchstens so viele Ereignisse pro Transaktion
+    private static final int MAX_BATCH = 256;
+    // Pause vor dem zweiten Versuch, z.B. wenn die DB gerade gesperrt ist
+    private static final long RETRY_DELAY_MILLIS = 200;
+
+    private static SessionJournal instance;
+
+    private final QuizDbHelper dbHelper;
+    private final LinkedBlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+    // IDs aus der Uhrzeit, damit sie auch nach einem Neustart größer werden
+    private final AtomicLong lastSessionId = new AtomicLong(System.currentTimeMillis());
+
+    static class Event {
+        static final int START = 1;
+        static final int ANSWER = 2;
+        static final int FINISH = 3;
+        static final int FLUSH = 4;
+
+        final int type;
+        final long sessionId;
+        final long timestamp = System.currentTimeMillis();
+
+        int categoryID;
+        String categoryName;
+        String difficulty;
+        int[] questionIds;
+
+        int questionId;
+        int chosenNr;
+        boolean correct;
+        long timeTakenMillis;
+
+        int score;
+
+        CountDownLatch flushed;
+
+        Event(int type, long sessionId) {
+            this.type = type;
+            this.sessionId = sessionId;
+        }
+    }
+
+    // nicht beendeter Durchgang aus dem Journal
+    public static class OpenSession {
+        private final long sessionId;
+        private final int categoryID;
+        private final String categoryName;
+        private final String difficulty;
+        private final int[] questionIds;
+        private final int answeredCount;
+        private final int score;
+
+        OpenSession(long sessionId, int categoryID, String categoryName, String difficulty,
+                    int[] questionIds, int answeredCount, int score) {
+            this.sessionId = sessionId;
+            this.categoryID = categoryID;
+            this.categoryName = categoryName;
+            this.difficulty = difficulty;
+            this.questionIds = questionIds;
+            this.answeredCount = answeredCount;
+            this.score = score;
+        }
+
+        public long getSessionId() {
+            return sessionId;
+        }
+
+        public int getCategoryID() {
+            return categoryID;
+        }
+
+        public String getCategoryName() {
+            return categoryName;
+        }
+
+        public String getDifficulty() {
+            return difficulty;
+        }
+
+        public int[] getQuestionIds() {
+            return questionIds;
+        }
+
+        public int getAnsweredCount() {
+            return answeredCount;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+
+    SessionJournal(QuizDbHelper dbHelper) {
+        this.dbHelper = dbHelper;
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, TAG);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static synchronized SessionJournal getInstance(Context context) {
+        if (instance == null) {
+            instance = new SessionJournal(QuizDbHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    // nur für Tests: beim nächsten getInstance() mit dem dann aktuellen QuizDbHelper
+    static synchronized void resetInstance() {
+        instance = null;
+    }
+
+    /**
+     * Neuer Durchgang, ältere nicht beendete Durchgänge gelten damit als abgebrochen.
+     *
+     * @return ID für recordAnswer() und finishSession()
+     */
+    public long startSession(int categoryID, String categoryName, String difficulty,
+                             int[] questionIds) {
+        long sessionId;
+        long last;
+        do {
+            last = lastSessionId.get();
+            sessionId = Math.max(last + 1, System.currentTimeMillis());
+        } while (!lastSessionId.compareAndSet(last, sessionId));
+
+        Event event = new Event(Event.START, sessionId);
+        event.categoryID = categoryID;
+        event.categoryName = categoryName;
+        event.difficulty = difficulty;
+        event.questionIds = questionIds;
+        queue.offer(event);
+        return sessionId;
+    }
+
+    public void recordAnswer(long sessionId, int questionId, int chosenNr, boolean correct,
+                             long timeTakenMillis) {
+        Event event = new Event(Event.ANSWER, sessionId);
+        event.questionId = questionId;
+        event.chosenNr = chosenNr;
+        event.correct = correct;
+        event.timeTakenMillis = timeTakenMillis;
+        queue.offer(event);
+    }
+
+    public void finishSession(long sessionId, int score) {
+        Event event = new Event(Event.FINISH, sessionId);
+        event.score = score;
+        queue.offer(event);
+    }
+
+    // wartet, bis alle bisherigen Ereignisse geschrieben sind (für Tests)
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        Event event = new Event(Event.FLUSH, 0);
+        event.flushed = new CountDownLatch(1);
+        queue.offer(event);
+        return event.flushed.await(timeout, unit);
+    }
+
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            write(batch);
+            for (Event event : batch) {
+                if (event.flushed != null) {
+                    event.flushed.countDown();
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Schlägt die Transaktion fehl, wird sie nach einer kurzen Pause wiederholt.
+     * Scheitert auch das, wird jedes Ereignis einzeln geschrieben: verworfen
+     * (und geloggt) wird dann nur, was selbst nicht geschrieben werden kann.
+     */
+    private void write(List<Event> batch) {
+        try {
+            dbHelper.writeJournal(batch);
+            return;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Journal nicht geschrieben, neuer Versuch mit " + batch.size() + " Ereignissen", e);
+        }
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            dbHelper.writeJournal(batch);
+            return;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Journal wieder nicht geschrieben, Ereignisse einzeln", e);
+        }
+        int dropped = 0;
+        for (Event event : batch) {
+            if (event.type == Event.FLUSH) {
+                continue;
+            }
+            try {
+                dbHelper.writeJournal(Collections.singletonList(event));
+            } catch (RuntimeException e) {
+                // das Journal ist nur eine Absicherung, das Quiz läuft weiter
+                Log.e(TAG, "Ereignis " + event.type + " von Durchgang " + event.sessionId +
+                        " verworfen", e);
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            Log.e(TAG, dropped + " von " + batch.size() + " Ereignissen verworfen");
+        }
+    }
+}
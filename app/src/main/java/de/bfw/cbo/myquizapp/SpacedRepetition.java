@@ -0,0 +1,67 @@
+package de.bfw.cbo.myquizapp;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wiederholungsplanung nach SM-2 (Wozniak). Reine Rechnung ohne Android,
+ * damit sie als JVM-Test läuft.
+ */
+public final class SpacedRepetition {
+
+    // Antwortqualität 0..5 wie bei SM-2, ab PASSING gilt die Frage als gewusst
+    public static final int QUALITY_NO_ANSWER = 0;
+    public static final int QUALITY_WRONG = 1;
+    public static final int PASSING = 3;
+    public static final int QUALITY_PERFECT = 5;
+
+    static final double MIN_EASE_FACTOR = 1.3;
+
+    // Antwortzeiten für Qualität 5 bzw. 4, langsamer = 3
+    static final long FAST_MILLIS = 10000;
+    static final long NORMAL_MILLIS = 20000;
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private SpacedRepetition() {
+    }
+
+    // Qualität aus der Antwort im Quiz, chosenNr == 0 heißt keine Antwort
+    public static int quality(int chosenNr, boolean correct, long timeTakenMillis) {
+        if (chosenNr == 0) {
+            return QUALITY_NO_ANSWER;
+        }
+        if (!correct) {
+            return QUALITY_WRONG;
+        }
+        if (timeTakenMillis <= FAST_MILLIS) {
+            return QUALITY_PERFECT;
+        }
+        return timeTakenMillis <= NORMAL_MILLIS ? 4 : PASSING;
+    }
+
+    public static ReviewState review(ReviewState state, int quality, long nowMillis) {
+        int repetitions;
+        int intervalDays;
+        if (quality < PASSING) {
+            // vergessen: von vorne, morgen wieder
+            repetitions = 0;
+            intervalDays = 1;
+        } else {
+            repetitions = state.getRepetitions() + 1;
+            if (repetitions == 1) {
+                intervalDays = 1;
+            } else if (repetitions == 2) {
+                intervalDays = 6;
+            } else {
+                intervalDays = (int) Math.round(state.getIntervalDays() * state.getEaseFactor());
+            }
+        }
+
+        int miss = QUALITY_PERFECT - quality;
+        double easeFactor = Math.max(MIN_EASE_FACTOR,
+                state.getEaseFactor() + 0.1 - miss * (0.08 + miss * 0.02));
+
+        return new ReviewState(repetitions, intervalDays, easeFactor,
+                nowMillis + intervalDays * DAY_MILLIS);
+    }
+}
@@ -1,38 +1,76 @@
 package de.bfw.cbo.myquizapp;
 
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
+import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.Spinner;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class StartScreenActivity extends AppCompatActivity {
 
+    private static final String TAG = "StartScreenActivity";
+
     private static final int REQUEST_CODE_QUIZ = 1;
     public static final String EXTRA_CATEGORY_ID = "extraCategoryID";
     public static final String EXTRA_CATEGORY_NAME = "extraCategoryName";
     public static final String EXTRA_DIFFICULTY = "extraDifficulty";
+    // optional, Anzahl Fragen pro Runde, 0 = alle
+    public static final String EXTRA_QUESTION_COUNT = "extraQuestionCount";
+    // letzten nicht beendeten Durchgang aus dem SessionJournal fortsetzen
+    public static final String EXTRA_RESUME = "extraResume";
 
     public static final String SHARED_PREFS = "sharedPrefs";
+    // alter globaler Highscore, wird einmalig in die Bestenliste übernommen
     public static final String KEY_HIGHSCORE = "keyHighscore";
+    public static final String KEY_PLAYER_NAME = "keyPlayerName";
+    // Messwerte aus QuizMetrics, nur im Debug-Build
+    public static final String METRICS_FILE = "metrics.txt";
+    // Fragen-Pack-Dateien bei BuildConfig.QUESTION_PACK, siehe QuizDbHelper.useQuestionPack()
+    private static final String QUESTION_PACK_DIR = "question_pack";
+
+    // Auswahl im Spinner für EXTRA_QUESTION_COUNT, 0 = alle
+    private static final int[] QUESTION_COUNTS = {0, 10, 20, 50};
 
     private TextView textViewHighscore;
     private Spinner spinnerCategory;
     private Spinner spinnerDifficulty;
+    private Spinner spinnerQuestionCount;
+    private Button buttonResumeQuiz;
+
+    private SessionJournal.OpenSession openSession;
+    // einmal pro Start nach neuen Fragen fragen, siehe loadUnfinishedSession()
+    private boolean contentSyncPending;
 
-    private int highscore;
+    private CategoryRegistry categoryRegistry;
+    // Übernahme von KEY_HIGHSCORE läuft, siehe migrateLegacyHighscore()
+    private boolean legacyHighscorePending;
+    // Kategorien im Spinner, passend zur gewählten Schwierigkeit
+    private List<Category> shownCategories = new ArrayList<>();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // vor dem ersten DB-Zugriff, damit das Öffnen mitgemessen wird
+        QuizMetrics.setEnabled(BuildConfig.DEBUG);
         setContentView(R.layout.activity_start_screen);
+        if (BuildConfig.QUESTION_PACK && savedInstanceState == null) {
+            useQuestionPack();
+        }
 
 //        // neue Kategorie hinzufügen
 //        Category c4 = new Category("Test");
@@ -47,12 +85,34 @@ public class StartScreenActivity extends AppCompatActivity {
         textViewHighscore = findViewById(R.id.text_view_highscore);
         spinnerCategory = findViewById(R.id.spinner_category);
         spinnerDifficulty = findViewById(R.id.spinner_difficulty);
+        spinnerQuestionCount = findViewById(R.id.spinner_question_count);
 
         // Auswahl Schwierigkeitsgrad, Array muss an Spinner übergeben werden
 
-        loadCategories();
         loadDifficultyLevels();
-        loadHighscore();
+        loadQuestionCounts();
+        loadCategories();
+        contentSyncPending = savedInstanceState == null;
+
+        // Highscore gilt pro Kategorie und Schwierigkeit
+        spinnerCategory.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                loadHighscore();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+
+        buttonResumeQuiz = findViewById(R.id.button_resume_quiz);
+        buttonResumeQuiz.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                resumeQuiz();
+            }
+        });
 
         Button buttonStartQuiz = findViewById(R.id.button_start_quiz);
         buttonStartQuiz.setOnClickListener(new View.OnClickListener() {
@@ -66,7 +126,10 @@ public class StartScreenActivity extends AppCompatActivity {
     }
 
     private void startQuiz() {
-        Category selectedCategory = (Category) spinnerCategory.getSelectedItem();
+        Category selectedCategory = getSelectedCategory();
+        if (selectedCategory == null) {
+            return; // Kategorien noch nicht geladen
+        }
         int categoryID = selectedCategory.getId();
         String categoryName = selectedCategory.getName();
         String difficulty = spinnerDifficulty.getSelectedItem().toString();
@@ -75,60 +138,361 @@ public class StartScreenActivity extends AppCompatActivity {
         intent.putExtra(EXTRA_CATEGORY_ID, categoryID);
         intent.putExtra(EXTRA_CATEGORY_NAME, categoryName);
         intent.putExtra(EXTRA_DIFFICULTY, difficulty);
+        intent.putExtra(EXTRA_QUESTION_COUNT,
+                QUESTION_COUNTS[Math.max(0, spinnerQuestionCount.getSelectedItemPosition())]);
+        startActivityForResult(intent, REQUEST_CODE_QUIZ);
+    }
+
+    @Nullable
+    private Category getSelectedCategory() {
+        int position = spinnerCategory.getSelectedItemPosition();
+        if (position < 0 || position >= shownCategories.size()) {
+            return null;
+        }
+        return shownCategories.get(position);
+    }
+
+    private void resumeQuiz() {
+        if (openSession == null) {
+            return;
+        }
+        Intent intent = new Intent(StartScreenActivity.this, QuizActivity.class);
+        intent.putExtra(EXTRA_CATEGORY_ID, openSession.getCategoryID());
+        intent.putExtra(EXTRA_CATEGORY_NAME, openSession.getCategoryName());
+        intent.putExtra(EXTRA_DIFFICULTY, openSession.getDifficulty());
+        intent.putExtra(EXTRA_RESUME, true);
         startActivityForResult(intent, REQUEST_CODE_QUIZ);
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        loadUnfinishedSession();
+    }
+
+    // Messwerte ins Log und nach files/metrics.txt, z.B. per adb run-as auslesen
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (QuizMetrics.isEnabled()) {
+            QuizMetrics.logSnapshot();
+            QuizRepository.getInstance(this).writeMetrics(new File(getFilesDir(), METRICS_FILE),
+                    new QuizRepository.Callback<Void>() {
+                        @Override
+                        public void onSuccess(Void result) {
+
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            Log.e(TAG, "Messwerte nicht geschrieben", e);
+                        }
+                    });
+        }
+    }
+
+    // "Fortsetzen" nur anzeigen, wenn ein Durchgang abgebrochen wurde
+    private void loadUnfinishedSession() {
+        QuizRepository.getInstance(this).loadUnfinishedSession(
+                new QuizRepository.Callback<SessionJournal.OpenSession>() {
+                    @Override
+                    public void onSuccess(SessionJournal.OpenSession result) {
+                        if (isDestroyed()) {
+                            return;
+                        }
+                        openSession = result;
+                        if (openSession != null) {
+                            buttonResumeQuiz.setText(getString(R.string.resume_quiz,
+                                    openSession.getAnsweredCount() + 1,
+                                    openSession.getQuestionIds().length));
+                            buttonResumeQuiz.setVisibility(View.VISIBLE);
+                        } else {
+                            buttonResumeQuiz.setVisibility(View.GONE);
+                            // nicht bei offenem Durchgang: gelöschte Fragen fehlen sonst beim Fortsetzen
+                            if (contentSyncPending) {
+                                contentSyncPending = false;
+                                syncContent();
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        buttonResumeQuiz.setVisibility(View.GONE);
+                    }
+                });
+    }
+
+    // neue Fragen vom Inhalts-Server, danach Kategorien und Anzahlen neu laden
+    private void syncContent() {
+        String url = getString(R.string.content_sync_url);
+        if (url.isEmpty()) {
+            return;
+        }
+        ContentSyncClient client;
+        try {
+            client = new ContentSyncClient(url);
+        } catch (MalformedURLException e) {
+            Log.e(TAG, "content_sync_url ungültig", e);
+            return;
+        }
+        QuizRepository.getInstance(this).syncContent(client,
+                new QuizRepository.Callback<Integer>() {
+                    @Override
+                    public void onSuccess(Integer changes) {
+                        if (!isDestroyed() && changes > 0) {
+                            loadCategories();
+                            // der Sync hat das Pack abgeschaltet, zum neuen Stand exportieren
+                            if (BuildConfig.QUESTION_PACK) {
+                                useQuestionPack();
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        // offline o.ä., beim nächsten Start wieder
+                    }
+                });
+    }
+
+    // im Hintergrund exportieren und umschalten, bei Fehlern bleibt es bei SQLite
+    private void useQuestionPack() {
+        QuizRepository.getInstance(this).useQuestionPack(new File(getFilesDir(), QUESTION_PACK_DIR),
+                new QuizRepository.Callback<Boolean>() {
+                    @Override
+                    public void onSuccess(Boolean enabled) {
+                        Log.i(TAG, enabled ? "Fragen aus dem Fragen-Pack" : "Fragen geändert, weiter aus SQLite");
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Fragen-Pack nicht verfügbar", e);
+                    }
+                });
+    }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
 
         if (requestCode == REQUEST_CODE_QUIZ) {
             if (resultCode == RESULT_OK) {
-                int score = data.getIntExtra(QuizActivity.EXTRA_SCORE, 0);
-                if (score > highscore) {
-                    updateHighscore(score);
-                }
+                recordRun(data);
             }
         }
     }
 
+    // im Hintergrund eintragen, danach Rang anzeigen und Highscore neu laden
+    private void recordRun(Intent data) {
+        LeaderboardEntry entry = new LeaderboardEntry(getPlayerName(),
+                data.getIntExtra(EXTRA_CATEGORY_ID, 0),
+                data.getStringExtra(EXTRA_DIFFICULTY),
+                data.getIntExtra(QuizActivity.EXTRA_SCORE, 0),
+                data.getIntExtra(EXTRA_QUESTION_COUNT, 0),
+                System.currentTimeMillis());
+        QuizRepository.getInstance(this).recordRun(entry,
+                new QuizRepository.Callback<LeaderboardRank>() {
+                    @Override
+                    public void onSuccess(LeaderboardRank rank) {
+                        if (isDestroyed()) {
+                            return;
+                        }
+                        Toast.makeText(StartScreenActivity.this, getString(R.string.leaderboard_rank,
+                                rank.getRank(), rank.getRunCount(), Math.round(rank.getPercentile())),
+                                Toast.LENGTH_LONG).show();
+                        loadHighscore();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Toast.makeText(StartScreenActivity.this,
+                                R.string.toast_saving_failed, Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
     private void loadCategories() {
-        QuizDbHelper dbHelper = QuizDbHelper.getInstance(this); // nur 1 DB Verbindung
-        // kein String-Array[] wie in Difficulty sondern eine Liste
-        List<Category> categories = dbHelper.getAllCategories();
+        // kein String-Array[] wie in Difficulty sondern eine Liste, im Hintergrund geladen
+        QuizRepository.getInstance(this).loadCategoryRegistry(
+                new QuizRepository.Callback<CategoryRegistry>() {
+                    @Override
+                    public void onSuccess(CategoryRegistry registry) {
+                        if (isDestroyed()) {
+                            return;
+                        }
+                        categoryRegistry = registry;
+                        showCategories();
+                        migrateLegacyHighscore(registry);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Toast.makeText(StartScreenActivity.this,
+                                R.string.toast_loading_failed, Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    /**
+     * Nur Kategorien mit Fragen für die gewählte Schwierigkeit, mit Anzahl.
+     * Die Anzahlen kommen aus der CategoryRegistry, gezählt wird hier nichts.
+     */
+    private void showCategories() {
+        if (categoryRegistry == null) {
+            return;
+        }
+        int position = spinnerCategory.getSelectedItemPosition();
+        Category selected = position >= 0 && position < shownCategories.size()
+                ? shownCategories.get(position) : null;
+
+        // null bei Adaptiv/Wiederholung: dann zählen alle Schwierigkeiten
+        Question.Difficulty difficulty = Question.Difficulty.fromLabel(
+                String.valueOf(spinnerDifficulty.getSelectedItem()));
+        shownCategories = categoryRegistry.getAvailable(difficulty);
+
+        List<String> labels = new ArrayList<>(shownCategories.size());
+        int selectedPosition = 0;
+        for (int i = 0; i < shownCategories.size(); i++) {
+            Category category = shownCategories.get(i);
+            labels.add(category.getName() + " (" + category.getQuestionCount(difficulty) + ")");
+            if (selected != null && category.getId() == selected.getId()) {
+                selectedPosition = i;
+            }
+        }
 
-        ArrayAdapter<Category> adapterCategories = new ArrayAdapter<>(this,
-                android.R.layout.simple_spinner_item,categories);
+        ArrayAdapter<String> adapterCategories = new ArrayAdapter<>(
+                StartScreenActivity.this, android.R.layout.simple_spinner_item, labels);
         adapterCategories.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spinnerCategory.setAdapter(adapterCategories);
-
+        spinnerCategory.setSelection(selectedPosition);
     }
 
     private void loadDifficultyLevels(){
-        String[] difficultyLevels = Question.getAllDifficultyLevels();
+        String[] levels = Question.getAllDifficultyLevels();
+        String[] difficultyLevels = Arrays.copyOf(levels, levels.length + 2);
+        difficultyLevels[levels.length] = Question.DIFFICULTY_ADAPTIVE;
+        difficultyLevels[levels.length + 1] = Question.DIFFICULTY_REVIEW;
 
         // vorgefertigte SpinnerItems Adapter
         ArrayAdapter<String> adapterDifficulty = new ArrayAdapter<String>(this,
                 android.R.layout.simple_spinner_item, difficultyLevels); //difficultyLevels String Array
         adapterDifficulty.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spinnerDifficulty.setAdapter(adapterDifficulty);
+        spinnerDifficulty.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                showCategories();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
     }
 
+    private void loadQuestionCounts() {
+        String[] labels = new String[QUESTION_COUNTS.length];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = QUESTION_COUNTS[i] == 0
+                    ? getString(R.string.question_count_all)
+                    : getString(R.string.question_count, QUESTION_COUNTS[i]);
+        }
+        ArrayAdapter<String> adapterQuestionCount = new ArrayAdapter<String>(this,
+                android.R.layout.simple_spinner_item, labels);
+        adapterQuestionCount.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerQuestionCount.setAdapter(adapterQuestionCount);
+    }
+
+    // bester Durchgang für die aktuelle Auswahl, aus der Bestenliste
     private void loadHighscore() {
-        SharedPreferences prefs = getSharedPreferences(SHARED_PREFS, MODE_PRIVATE);
-        highscore = prefs.getInt(KEY_HIGHSCORE, 0);
-        textViewHighscore.setText("Highscore: " + highscore);
+        Category category = getSelectedCategory();
+        if (category == null) {
+            textViewHighscore.setText(getString(R.string.highscore, 0));
+            return;
+        }
+        final int categoryID = category.getId();
+        final String difficulty = spinnerDifficulty.getSelectedItem().toString();
+        QuizRepository.getInstance(this).loadTopScores(categoryID, difficulty, 1,
+                new QuizRepository.Callback<List<LeaderboardEntry>>() {
+                    @Override
+                    public void onSuccess(List<LeaderboardEntry> result) {
+                        Category selected = getSelectedCategory();
+                        // Auswahl hat sich inzwischen geändert, die neuere Abfrage läuft schon
+                        if (isDestroyed() || selected == null || selected.getId() != categoryID
+                                || !difficulty.equals(spinnerDifficulty.getSelectedItem().toString())) {
+                            return;
+                        }
+                        int best = result.isEmpty() ? 0 : result.get(0).getScore();
+                        textViewHighscore.setText(getString(R.string.highscore, best));
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        textViewHighscore.setText(getString(R.string.highscore, 0));
+                    }
+                });
     }
 
-    private void updateHighscore(int highscoreNew) {
-        highscore = highscoreNew;
-        textViewHighscore.setText("Highscore: " + highscore);
+    /**
+     * Der alte Highscore kennt weder Kategorie noch Schwierigkeit. Er landet
+     * einmalig unter der gemischten Kategorie und der Schwierigkeit, die der
+     * alte Startbildschirm vorausgewählt hatte, in der Bestenliste des
+     * Spielers, damit loadHighscore() ihn für diese Auswahl anzeigt. Der Schlüssel wird erst gelöscht, wenn das
+     * Eintragen geklappt hat, sonst beim nächsten Start neu versucht.
+     */
+    private void migrateLegacyHighscore(CategoryRegistry registry) {
+        final SharedPreferences prefs = getSharedPreferences(SHARED_PREFS, MODE_PRIVATE);
+        if (legacyHighscorePending || !prefs.contains(KEY_HIGHSCORE)) {
+            return;
+        }
+        final int legacyHighscore = prefs.getInt(KEY_HIGHSCORE, 0);
+        if (legacyHighscore <= 0) {
+            prefs.edit().remove(KEY_HIGHSCORE).apply();
+            return;
+        }
+        Category mixed = null;
+        for (Category category : registry.getCategories()) {
+            if (category.isMixed()) {
+                mixed = category;
+                break;
+            }
+        }
+        if (mixed == null) {
+            // ohne gemischte Kategorie bleibt der alte Wert liegen
+            return;
+        }
 
-        SharedPreferences prefs = getSharedPreferences(SHARED_PREFS, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(KEY_HIGHSCORE,highscore);
-        editor.apply();
+        legacyHighscorePending = true;
+        final String categoryName = mixed.getName();
+        // erster Eintrag im Spinner, wie schon vor der Bestenliste
+        final String difficulty = Question.getAllDifficultyLevels()[0];
+        QuizRepository.getInstance(this).recordRun(new LeaderboardEntry(getPlayerName(),
+                        mixed.getId(), difficulty, legacyHighscore, 0, System.currentTimeMillis()),
+                new QuizRepository.Callback<LeaderboardRank>() {
+                    @Override
+                    public void onSuccess(LeaderboardRank rank) {
+                        legacyHighscorePending = false;
+                        prefs.edit().remove(KEY_HIGHSCORE).apply();
+                        if (!isDestroyed()) {
+                            Toast.makeText(StartScreenActivity.this, getString(
+                                    R.string.legacy_highscore_migrated, legacyHighscore, categoryName, difficulty),
+                                    Toast.LENGTH_LONG).show();
+                            loadHighscore();
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        legacyHighscorePending = false;
+                    }
+                });
+    }
 
+    // noch ohne Eingabe im UI, deshalb meist der Standardname
+    private String getPlayerName() {
+        SharedPreferences prefs = getSharedPreferences(SHARED_PREFS, MODE_PRIVATE);
+        return prefs.getString(KEY_PLAYER_NAME, getString(R.string.default_player));
     }
 
 }
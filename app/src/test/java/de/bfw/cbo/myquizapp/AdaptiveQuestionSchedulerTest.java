@@ -0,0 +1,154 @@
+package de.bfw.cbo.myquizapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveQuestionSchedulerTest {
+
+    private static final long TIME_LIMIT = 30000;
+
+    private static List<Question> pool(int perLevel) {
+        List<Question> questions = new ArrayList<>();
+        int id = 1;
+        for (String difficulty : Question.getAllDifficultyLevels()) {
+            for (int i = 0; i < perLevel; i++) {
+                Question question = new Question("Frage " + id, "A", "B", "C", 1, difficulty, Category.MATH);
+                question.setId(id++);
+                questions.add(question);
+            }
+        }
+        return questions;
+    }
+
+    @Test
+    public void next_drawsEveryQuestionOnce() {
+        AdaptiveQuestionScheduler scheduler =
+                new AdaptiveQuestionScheduler(pool(50), TIME_LIMIT, new Random(1));
+        Random answers = new Random(2);
+        Set<Integer> seen = new HashSet<>();
+        Question question;
+        while ((question = scheduler.next()) != null) {
+            assertTrue(seen.add(question.getId()));
+            scheduler.onAnswered(question, answers.nextBoolean(), 5000);
+        }
+        assertEquals(150, seen.size());
+        assertEquals(0, scheduler.remaining());
+    }
+
+    @Test
+    public void fastCorrectAnswers_raiseLevel() {
+        AdaptiveQuestionScheduler scheduler =
+                new AdaptiveQuestionScheduler(pool(20), TIME_LIMIT, new Random(1));
+        assertEquals(AdaptiveQuestionScheduler.LEVEL_MEDIUM, scheduler.getLevel());
+        for (int i = 0; i < 10; i++) {
+            scheduler.onAnswered(scheduler.next(), true, 2000);
+        }
+        assertEquals(AdaptiveQuestionScheduler.LEVEL_HARD, scheduler.getLevel());
+        assertEquals(Question.DIFFICULTY_HARD, scheduler.next().getDifficulty());
+    }
+
+    @Test
+    public void wrongAnswers_lowerLevel() {
+        AdaptiveQuestionScheduler scheduler =
+                new AdaptiveQuestionScheduler(pool(20), TIME_LIMIT, new Random(1));
+        for (int i = 0; i < 10; i++) {
+            scheduler.onAnswered(scheduler.next(), false, 2000);
+        }
+        assertEquals(AdaptiveQuestionScheduler.LEVEL_EASY, scheduler.getLevel());
+        assertEquals(Question.DIFFICULTY_EASY, scheduler.next().getDifficulty());
+    }
+
+    @Test
+    public void slowCorrectAnswers_keepLevel() {
+        AdaptiveQuestionScheduler scheduler =
+                new AdaptiveQuestionScheduler(pool(20), TIME_LIMIT, new Random(1));
+        for (int i = 0; i < 10; i++) {
+            scheduler.onAnswered(scheduler.next(), true, TIME_LIMIT);
+        }
+        assertEquals(AdaptiveQuestionScheduler.LEVEL_MEDIUM, scheduler.getLevel());
+    }
+
+    @Test
+    public void emptyLevel_fallsBackToNearest() {
+        List<Question> questions = new ArrayList<>();
+        for (Question question : pool(5)) {
+            if (question.getDifficulty().equals(Question.DIFFICULTY_EASY)) {
+                questions.add(question);
+            }
+        }
+        AdaptiveQuestionScheduler scheduler =
+                new AdaptiveQuestionScheduler(questions, TIME_LIMIT, new Random(1));
+        assertEquals(Question.DIFFICULTY_EASY, scheduler.next().getDifficulty());
+    }
+
+    @Test
+    public void scheduledSource_idsCoverPickedAndRemaining() {
+        ScheduledQuestionSource source = new ScheduledQuestionSource(
+                new AdaptiveQuestionScheduler(pool(10), TIME_LIMIT, new Random(1)), 0);
+        int first = source.get(0).getId();
+        int second = source.get(1).getId();
+
+        int[] ids = source.getIds();
+        assertEquals(30, ids.length);
+        assertEquals(first, ids[0]);
+        assertEquals(second, ids[1]);
+        Set<Integer> unique = new HashSet<>();
+        for (int id : ids) {
+            unique.add(id);
+        }
+        assertEquals(30, unique.size());
+    }
+
+    // nach einer Rotation: gespielte Fragen vorn, der neue Scheduler zieht mit dem alten Level weiter
+    @Test
+    public void restoredSource_keepsPlayedQuestionsAndLevel() {
+        List<Question> questions = pool(10);
+        ScheduledQuestionSource source = new ScheduledQuestionSource(
+                new AdaptiveQuestionScheduler(questions, TIME_LIMIT, new Random(1)), 12);
+        AdaptiveQuestionScheduler scheduler = (AdaptiveQuestionScheduler) source.getScheduler();
+        for (int i = 0; i < 5; i++) {
+            scheduler.onAnswered(source.get(i), true, 1000);
+        }
+        int[] ids = source.getIds();
+        int[] playedIds = Arrays.copyOf(ids, 5);
+
+        Set<Integer> played = new HashSet<>();
+        List<Question> playedQuestions = new ArrayList<>();
+        List<Question> rest = new ArrayList<>();
+        for (int id : playedIds) {
+            played.add(id);
+        }
+        for (Question question : questions) {
+            (played.contains(question.getId()) ? playedQuestions : rest).add(question);
+        }
+        // die zweite gespielte Frage wurde inzwischen gelöscht
+        playedQuestions.remove(questions.get(playedIds[1] - 1));
+
+        AdaptiveQuestionScheduler restored = new AdaptiveQuestionScheduler(rest, TIME_LIMIT, new Random(2));
+        restored.restoreState(scheduler.getLevel(), scheduler.getPerformance());
+        ScheduledQuestionSource restoredSource =
+                new ScheduledQuestionSource(restored, ids.length, playedIds, playedQuestions);
+
+        assertEquals(12, restoredSource.size());
+        assertEquals(playedIds[0], restoredSource.get(0).getId());
+        assertNull(restoredSource.get(1));
+        assertEquals(scheduler.getLevel(), restored.getLevel());
+        assertEquals(Question.DIFFICULTY_HARD, restoredSource.get(5).getDifficulty());
+        assertFalse(played.contains(restoredSource.get(5).getId()));
+        assertArrayEquals(playedIds, Arrays.copyOf(restoredSource.getIds(), 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void restoreState_rejectsUnknownLevel() {
+        new AdaptiveQuestionScheduler(pool(1), TIME_LIMIT, new Random(1))
+                .restoreState(QuizSession.NOT_ADAPTIVE, AdaptiveQuestionScheduler.NEUTRAL);
+    }
+}
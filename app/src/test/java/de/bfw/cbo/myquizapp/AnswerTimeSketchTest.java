@@ -0,0 +1,72 @@
+package de.bfw.cbo.myquizapp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AnswerTimeSketchTest {
+
+    // halbe Bucket-Breite plus etwas Luft für die Rangberechnung
+    private static final double RELATIVE_ERROR = 0.15;
+
+    @Test
+    public void emptySketch_hasNoMedian() {
+        assertEquals(0, new AnswerTimeSketch().median());
+    }
+
+    @Test
+    public void median_matchesExactWithinBucketError() {
+        Random random = new Random(7);
+        long[] times = new long[100000];
+        AnswerTimeSketch sketch = new AnswerTimeSketch();
+        for (int i = 0; i < times.length; i++) {
+            // grob log-normal wie echte Antwortzeiten
+            times[i] = (long) Math.exp(8 + random.nextGaussian() * 0.6);
+            sketch.add(times[i]);
+        }
+        Arrays.sort(times);
+
+        for (double q : new double[]{0.1, 0.5, 0.9}) {
+            long exact = times[(int) Math.ceil(q * times.length) - 1];
+            assertEquals("q=" + q, exact, sketch.quantile(q), exact * RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    public void blobRoundTrip_keepsCounts() {
+        AnswerTimeSketch sketch = new AnswerTimeSketch();
+        sketch.add(50);
+        sketch.add(1200);
+        sketch.add(1300);
+        sketch.add(10000000);
+
+        AnswerTimeSketch copy = AnswerTimeSketch.fromBlob(sketch.toBlob());
+        assertEquals(4, copy.count());
+        assertEquals(sketch.median(), copy.median());
+        assertEquals(sketch.quantile(1), copy.quantile(1));
+    }
+
+    @Test
+    public void addAll_equalsAddingIndividually() {
+        AnswerTimeSketch a = new AnswerTimeSketch();
+        AnswerTimeSketch b = new AnswerTimeSketch();
+        AnswerTimeSketch all = new AnswerTimeSketch();
+        for (int i = 1; i <= 1000; i++) {
+            (i % 2 == 0 ? a : b).add(i * 37);
+            all.add(i * 37);
+        }
+        a.addAll(b);
+        assertEquals(all.count(), a.count());
+        assertEquals(all.median(), a.median());
+        assertArrayEquals(all.toBlob(), a.toBlob());
+    }
+
+    @Test
+    public void fromBlob_ignoresForeignFormat() {
+        assertEquals(0, AnswerTimeSketch.fromBlob(null).count());
+        assertEquals(0, AnswerTimeSketch.fromBlob(new byte[3]).count());
+    }
+}
@@ -0,0 +1,81 @@
+package de.bfw.cbo.myquizapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CategoryRegistryTest {
+
+    private static Category category(int id, String name, boolean mixed) {
+        Category category = new Category(name);
+        category.setId(id);
+        category.setMixed(mixed);
+        return category;
+    }
+
+    private static CategoryRegistry registry() {
+        Category math = category(3, "Mathe", false);
+        math.addQuestionCount(Question.Difficulty.EASY.getCode(), 4);
+        math.addQuestionCount(Question.Difficulty.HARD.getCode(), 2);
+        Category art = category(4, "Kunst", false);
+        art.addQuestionCount(Question.Difficulty.EASY.getCode(), 1);
+        Category mixed = category(9, "Mischen", true);
+
+        List<Category> categories = new ArrayList<>();
+        categories.add(math);
+        categories.add(art);
+        categories.add(mixed);
+        return new CategoryRegistry(categories);
+    }
+
+    @Test
+    public void mixedCategory_sumsAllCategories() {
+        CategoryRegistry registry = registry();
+        Category mixed = registry.get(9);
+
+        assertTrue(registry.isMixed(9));
+        assertFalse(registry.isMixed(3));
+        assertEquals(5, mixed.getQuestionCount(Question.Difficulty.EASY));
+        assertEquals(2, mixed.getQuestionCount(Question.Difficulty.HARD));
+        assertEquals(7, mixed.getQuestionCount(null));
+    }
+
+    @Test
+    public void getAvailable_skipsEmptyCategories() {
+        CategoryRegistry registry = registry();
+
+        List<Category> hard = registry.getAvailable(Question.Difficulty.HARD);
+        assertEquals(2, hard.size());
+        assertEquals(3, hard.get(0).getId());
+        assertEquals(9, hard.get(1).getId());
+
+        assertEquals(0, registry.getAvailable(Question.Difficulty.MEDIUM).size());
+        assertEquals(3, registry.getAvailable(null).size());
+    }
+
+    @Test
+    public void get_unknownIdIsNull() {
+        assertNull(registry().get(42));
+        assertFalse(registry().isMixed(42));
+    }
+
+    // geteilte Registry: weder die Quell-Liste noch herausgegebene Objekte ändern sie
+    @Test
+    public void categories_areCopies() {
+        Category math = category(3, "Mathe", false);
+        List<Category> source = new ArrayList<>();
+        source.add(math);
+        CategoryRegistry registry = new CategoryRegistry(source);
+
+        math.setName("Geändert");
+        registry.get(3).setName("Auch geändert");
+        registry.getCategories().get(0).addQuestionCount(Question.Difficulty.EASY.getCode(), 5);
+
+        assertEquals("Mathe", registry.get(3).getName());
+        assertEquals(0, registry.get(3).getQuestionCount(null));
+        assertNotSame(registry.get(3), registry.get(3));
+    }
+}
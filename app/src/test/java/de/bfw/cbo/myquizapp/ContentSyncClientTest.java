@@ -0,0 +1,208 @@
+package de.bfw.cbo.myquizapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ContentSyncClientTest {
+
+    private static final int BANK_SIZE = 5000;
+
+    /**
+     * Inhalts-Server im Test: versions.get(v - 1) führt von Version v - 1
+     * auf v, ausgeliefert wird alles ab since, zusammengefasst und mit gzip.
+     */
+    private static class StubServer implements HttpHandler {
+        final List<ContentChangeset> versions = new ArrayList<>();
+        final List<String> requests = new ArrayList<>();
+        boolean gzip = true;
+        HttpServer server;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String query = exchange.getRequestURI().getQuery();
+            requests.add(query);
+            long since = Long.parseLong(query.substring(query.indexOf("since=") + 6));
+            String etag = "\"v" + versions.size() + "\"";
+
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))
+                    || since == versions.size()) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            ContentChangeset delta = new ContentChangeset(since, versions.size());
+            for (ContentChangeset version : versions.subList((int) since, versions.size())) {
+                for (ContentChangeset.Change change : version.getChanges()) {
+                    add(delta, change);
+                }
+            }
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            boolean compress = gzip && "gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            OutputStream out = compress ? new GZIPOutputStream(body) : body;
+            delta.writeTo(out);
+            out.close();
+            if (compress) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.sendResponseHeaders(200, body.size());
+            exchange.getResponseBody().write(body.toByteArray());
+            exchange.close();
+        }
+
+        String start() throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/questions", this);
+            server.start();
+            return "http://" + server.getAddress().getHostString() + ":" +
+                    server.getAddress().getPort() + "/questions";
+        }
+    }
+
+    private StubServer server;
+    private String url;
+    private ContentSyncClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer();
+        ContentChangeset initial = new ContentChangeset(0, 1);
+        Category category = new Category("Allgemein");
+        category.setId(1);
+        initial.putCategory(category);
+        for (int i = 1; i <= BANK_SIZE; i++) {
+            initial.putQuestion(question(i, "Frage " + i));
+        }
+        server.versions.add(initial);
+        url = server.start();
+        client = new ContentSyncClient(url);
+    }
+
+    @After
+    public void tearDown() {
+        server.server.stop(0);
+    }
+
+    private static Question question(int id, String text) {
+        Question question = new Question(text, "Wahr", "Falsch", id % 2 == 0 ? null : "Antwort " + id,
+                id % 2 + 1, Question.getAllDifficultyLevels()[id % 3], 1);
+        question.setId(id);
+        return question;
+    }
+
+    private static void add(ContentChangeset changeset, ContentChangeset.Change change) {
+        switch (change.getType()) {
+            case ContentChangeset.PUT_CATEGORY:
+                changeset.putCategory(change.getCategory());
+                break;
+            case ContentChangeset.PUT_QUESTION:
+                changeset.putQuestion(change.getQuestion());
+                break;
+            default:
+                changeset.deleteQuestion(change.getId());
+        }
+    }
+
+    @Test
+    public void changeset_roundTripKeepsAllFields() throws IOException {
+        ContentChangeset changeset = new ContentChangeset(3, 4)
+                .putQuestion(question(7, "Grüße aus Köln?"))
+                .putQuestion(question(8, "Ohne dritte Antwort"))
+                .deleteQuestion(9);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        changeset.writeTo(out);
+
+        ContentChangeset copy = ContentChangeset.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(3, copy.getBaseVersion());
+        assertEquals(4, copy.getTargetVersion());
+        assertEquals(3, copy.size());
+        Question q = copy.getChanges().get(0).getQuestion();
+        assertEquals(7, q.getId());
+        assertEquals("Grüße aus Köln?", q.getQuestion());
+        assertEquals("Antwort 7", q.getOption3());
+        assertEquals(2, q.getAnswerNr());
+        assertEquals(Question.DIFFICULTY_MEDIUM, q.getDifficulty());
+        assertNull(copy.getChanges().get(1).getQuestion().getOption3());
+        assertEquals(ContentChangeset.DELETE_QUESTION, copy.getChanges().get(2).getType());
+        assertEquals(9, copy.getChanges().get(2).getId());
+    }
+
+    @Test(expected = IOException.class)
+    public void changeset_truncatedInputFails() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ContentChangeset(0, 1).putQuestion(question(1, "Frage")).writeTo(out);
+        byte[] bytes = out.toByteArray();
+        ContentChangeset.readFrom(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    @Test
+    public void fetch_fromScratchLoadsWholeBank() throws IOException {
+        ContentSyncClient.Update update = client.fetch(0, null);
+
+        assertNotNull(update);
+        assertEquals(1, update.getChangeset().getTargetVersion());
+        assertEquals(BANK_SIZE + 1, update.getChangeset().size());
+        assertEquals("\"v1\"", update.getEtag());
+        assertEquals("since=0", server.requests.get(0));
+    }
+
+    @Test
+    public void fetch_sizeFollowsChangeNotBank() throws IOException {
+        ContentSyncClient.Update full = client.fetch(0, null);
+        server.versions.add(new ContentChangeset(1, 2)
+                .putQuestion(question(42, "Frage 42, korrigiert"))
+                .putQuestion(question(BANK_SIZE + 1, "Neue Frage"))
+                .deleteQuestion(7));
+
+        ContentSyncClient.Update delta = client.fetch(1, full.getEtag());
+
+        assertNotNull(delta);
+        assertEquals(1, delta.getChangeset().getBaseVersion());
+        assertEquals(2, delta.getChangeset().getTargetVersion());
+        assertEquals(3, delta.getChangeset().size());
+        assertEquals("Frage 42, korrigiert", delta.getChangeset().getChanges().get(0).getQuestion().getQuestion());
+        assertTrue(delta.getDownloadedBytes() + " Bytes", delta.getDownloadedBytes() < 200);
+        assertTrue(full.getDownloadedBytes() > 100 * delta.getDownloadedBytes());
+    }
+
+    @Test
+    public void fetch_gzipShrinksPayload() throws IOException {
+        long compressed = client.fetch(0, null).getDownloadedBytes();
+        server.gzip = false;
+        long plain = client.fetch(0, null).getDownloadedBytes();
+
+        assertTrue(compressed + " / " + plain, compressed * 3 < plain);
+    }
+
+    @Test
+    public void fetch_currentEtagReturnsNull() throws IOException {
+        ContentSyncClient.Update update = client.fetch(0, null);
+
+        assertNull(client.fetch(0, update.getEtag()));
+        assertNull(client.fetch(1, null));
+    }
+
+    @Test(expected = IOException.class)
+    public void fetch_serverErrorFails() throws IOException {
+        new ContentSyncClient(url.replace("/questions", "/missing")).fetch(0, null);
+    }
+}
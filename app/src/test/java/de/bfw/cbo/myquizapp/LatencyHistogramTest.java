@@ -0,0 +1,120 @@
+package de.bfw.cbo.myquizapp;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @After
+    public void tearDown() {
+        QuizMetrics.setEnabled(false);
+        QuizMetrics.reset();
+    }
+
+    @Test
+    public void index_bucketsAreContiguous() {
+        for (int i = 0; i < LatencyHistogram.index(LatencyHistogram.MAX_VALUE); i++) {
+            long highest = LatencyHistogram.highestValue(i);
+            assertEquals(i, LatencyHistogram.index(highest));
+            assertEquals(i + 1, LatencyHistogram.index(highest + 1));
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE,
+                LatencyHistogram.highestValue(LatencyHistogram.index(LatencyHistogram.MAX_VALUE)));
+    }
+
+    @Test
+    public void percentiles_withinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        Random random = new Random(1);
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            // 10 µs bis 100 ms, log-gleichverteilt wie echte Laufzeiten
+            values[i] = (long) Math.pow(10, 4 + 4 * random.nextDouble());
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = snapshot.getValueAtPercentile(percentile);
+            assertTrue(percentile + ": " + estimate + " < " + exact, estimate >= exact);
+            assertTrue(percentile + ": " + estimate + " > " + exact,
+                    estimate - exact <= exact / LatencyHistogram.SUB_BUCKETS);
+        }
+        assertEquals(snapshot.getMax(), snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void record_clampsOutOfRange() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getMax());
+    }
+
+    @Test
+    public void disabled_recordsNothing() {
+        QuizMetrics.setEnabled(false);
+        long start = QuizMetrics.start();
+        QuizMetrics.SHUFFLE.stop(start);
+        QuizMetrics.QUESTION_CACHE_HIT.increment();
+
+        assertEquals(0, start);
+        assertEquals(0, QuizMetrics.SHUFFLE.snapshot().getCount());
+        assertEquals(0, QuizMetrics.QUESTION_CACHE_HIT.get());
+    }
+
+    @Test
+    public void enabled_recordsInstrumentedPath() {
+        QuizMetrics.setEnabled(true);
+        LazyQuestionSource.shuffle(new int[]{1, 2, 3, 4, 5}, new Random(1));
+        QuizMetrics.QUESTION_CACHE_MISS.increment();
+
+        assertEquals(1, QuizMetrics.SHUFFLE.snapshot().getCount());
+        assertEquals(1, QuizMetrics.QUESTION_CACHE_MISS.get());
+        assertTrue(QuizMetrics.snapshot().get(0).startsWith("shuffle"));
+
+        QuizMetrics.reset();
+        assertEquals(0, QuizMetrics.SHUFFLE.snapshot().getCount());
+        assertEquals(0, QuizMetrics.QUESTION_CACHE_MISS.get());
+    }
+
+    @Test
+    public void record_concurrentThreadsAddUp() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram("test");
+        final int perThread = 50000;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 1; i <= perThread; i++) {
+                        histogram.record(i + offset);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(threads.length * perThread, snapshot.getCount());
+        assertEquals(perThread + threads.length - 1, snapshot.getMax());
+        assertEquals(perThread / 2.0 + 2, snapshot.getMean(), 0.01);
+    }
+}
@@ -0,0 +1,152 @@
+package de.bfw.cbo.myquizapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuizClockTest {
+
+    private static final long DURATION = 30000;
+
+    // virtuelle Zeit, wird nur von Hand weitergestellt
+    private static class VirtualTimeSource implements QuizClock.TimeSource {
+        long now;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    private static class CountingListener implements QuizClock.Listener {
+        int ticks;
+        int finishes;
+
+        @Override
+        public void onTick(QuizClock clock) {
+            ticks++;
+        }
+
+        @Override
+        public void onFinish(QuizClock clock) {
+            finishes++;
+        }
+    }
+
+    private VirtualTimeSource time;
+    private CountingListener listener;
+    private QuizClock clock;
+    private char[] buffer;
+
+    @Before
+    public void setUp() {
+        time = new VirtualTimeSource();
+        time.now = 1000000;
+        listener = new CountingListener();
+        clock = new QuizClock(time, listener);
+        buffer = new char[QuizClock.FORMAT_LENGTH];
+    }
+
+    private String formatted() {
+        return new String(buffer, 0, clock.format(buffer));
+    }
+
+    @Test
+    public void format_writesMinutesAndSeconds() {
+        clock.reset(DURATION, 0);
+        assertEquals("00:30", formatted());
+
+        clock.reset(DURATION, 20500);
+        assertEquals("00:09", formatted());
+
+        clock.reset(125000, 0);
+        assertEquals("02:05", formatted());
+    }
+
+    @Test
+    public void ticksOnSecondBoundaries_untilFinish() {
+        clock.reset(DURATION, 0);
+        clock.start();
+        while (clock.isRunning()) {
+            time.now += clock.millisUntilNextTick();
+            clock.tick();
+        }
+        assertEquals(29, listener.ticks);
+        assertEquals(1, listener.finishes);
+        assertEquals(0, clock.remaining());
+    }
+
+    @Test
+    public void lateTicks_doNotDrift() {
+        clock.reset(DURATION, 0);
+        clock.start();
+        // Ticks kommen 300 ms zu spät, die Restzeit stimmt trotzdem
+        for (int i = 0; i < 10; i++) {
+            time.now += clock.millisUntilNextTick() + 300;
+            clock.tick();
+        }
+        assertEquals(DURATION - (time.now - 1000000), clock.remaining());
+        // der nächste Tick holt die Verspätung wieder auf
+        assertEquals(clock.remaining() % 1000, clock.millisUntilNextTick());
+    }
+
+    @Test
+    public void stopAndRestart_keepsElapsedTime() {
+        clock.reset(DURATION, 0);
+        clock.start();
+        time.now += 12000;
+        clock.stop();
+
+        // Rotation: Restzeit speichern, neue Uhr, gleiche Restzeit
+        long remaining = clock.remaining();
+        time.now += 5000;
+        QuizClock restored = new QuizClock(time, listener);
+        restored.reset(DURATION, DURATION - remaining);
+        assertEquals(18000, restored.remaining());
+
+        restored.start();
+        time.now += 3000;
+        assertEquals(15000, restored.elapsed());
+    }
+
+    @Test
+    public void simulatedRun_allocatesNothingPerQuestion() {
+        Random random = new Random(1);
+        long[] answerTimes = new long[1000];
+        for (int i = 0; i < answerTimes.length; i++) {
+            answerTimes[i] = random.nextInt((int) DURATION + 5000);
+        }
+        runQuestions(answerTimes); // Warmlauf, JIT
+
+        long before = allocatedBytes();
+        runQuestions(answerTimes);
+        long allocated = allocatedBytes() - before;
+
+        // ein paar hundert Bytes kommen von der JVM selbst (Messung, Safepoints),
+        // schon ein Objekt pro Frage wären mindestens 16000
+        assertTrue("allokierte Bytes: " + allocated, allocated < 2048);
+    }
+
+    private void runQuestions(long[] answerTimes) {
+        for (long answerAt : answerTimes) {
+            clock.reset(DURATION, 0);
+            clock.start();
+            while (clock.isRunning() && clock.elapsed() < answerAt) {
+                time.now += clock.millisUntilNextTick();
+                clock.tick();
+                clock.format(buffer);
+            }
+            clock.stop();
+        }
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
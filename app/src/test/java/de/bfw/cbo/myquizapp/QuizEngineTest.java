@@ -0,0 +1,273 @@
+package de.bfw.cbo.myquizapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuizEngineTest {
+
+    private static final long TIME_LIMIT = 30000;
+
+    private static class VirtualTimeSource implements QuizClock.TimeSource {
+        long now = 1000000;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    // merkt sich die Meldungen der Engine wie die QuizActivity
+    private static class RecordingListener implements QuizEngine.Listener {
+        int questions;
+        int ticks;
+        int answers;
+        int finishes;
+        int lastAnswerNr = -1;
+        boolean lastCorrect;
+        long lastTimeTaken;
+
+        @Override
+        public void onQuestion(QuizEngine engine, Question question) {
+            questions++;
+        }
+
+        @Override
+        public void onTick(QuizEngine engine) {
+            ticks++;
+        }
+
+        @Override
+        public void onAnswered(QuizEngine engine, Question question, int answerNr, boolean correct,
+                               long timeTakenMillis) {
+            answers++;
+            lastAnswerNr = answerNr;
+            lastCorrect = correct;
+            lastTimeTaken = timeTakenMillis;
+        }
+
+        @Override
+        public void onFinished(QuizEngine engine) {
+            finishes++;
+        }
+    }
+
+    private VirtualTimeSource time;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        time = new VirtualTimeSource();
+        listener = new RecordingListener();
+    }
+
+    private static List<Question> questions(int count) {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            // richtige Antwort reihum 1, 2, 3
+            Question question = new Question("Frage " + i, "A", "B", "C", (i - 1) % 3 + 1,
+                    Question.DIFFICULTY_MEDIUM, Category.MATH);
+            question.setId(i);
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    private QuizEngine engine(int questionCount) {
+        return new QuizEngine(new ListQuestionSource(questions(questionCount)), TIME_LIMIT,
+                time, listener);
+    }
+
+    @Test
+    public void correctAndWrongAnswers_countScore() {
+        QuizEngine engine = engine(3);
+
+        assertTrue(engine.showNextQuestion());
+        time.now += 4000;
+        engine.selectAnswer(1);
+        engine.checkAnswer();
+        assertTrue(listener.lastCorrect);
+        assertEquals(4000, listener.lastTimeTaken);
+
+        assertTrue(engine.showNextQuestion());
+        engine.selectAnswer(1);
+        engine.checkAnswer();
+        assertFalse(listener.lastCorrect);
+
+        assertTrue(engine.showNextQuestion());
+        assertFalse(engine.hasNextQuestion());
+        engine.selectAnswer(3);
+        engine.checkAnswer();
+
+        assertFalse(engine.showNextQuestion());
+        assertEquals(2, engine.getScore());
+        assertEquals(3, listener.questions);
+        assertEquals(3, listener.answers);
+        assertEquals(1, listener.finishes);
+        assertTrue(engine.isFinished());
+    }
+
+    @Test
+    public void checkAnswer_onlyCountsOnce() {
+        QuizEngine engine = engine(2);
+        engine.showNextQuestion();
+        engine.selectAnswer(1);
+        engine.checkAnswer();
+        engine.selectAnswer(2);
+        engine.checkAnswer();
+
+        assertEquals(1, listener.answers);
+        assertEquals(1, engine.getScore());
+    }
+
+    @Test
+    public void timeout_checksSelectedAnswer() {
+        QuizEngine engine = engine(2);
+        engine.showNextQuestion();
+        engine.selectAnswer(1);
+
+        QuizClock clock = engine.getClock();
+        while (clock.isRunning()) {
+            time.now += clock.millisUntilNextTick();
+            clock.tick();
+        }
+
+        assertEquals(29, listener.ticks);
+        assertEquals(1, listener.answers);
+        assertEquals(1, listener.lastAnswerNr);
+        assertEquals(TIME_LIMIT, listener.lastTimeTaken);
+        assertTrue(engine.isAnswered());
+        assertEquals(1, engine.getScore());
+    }
+
+    @Test
+    public void timeout_withoutSelection_isWrong() {
+        QuizEngine engine = engine(1);
+        engine.showNextQuestion();
+        time.now += TIME_LIMIT;
+        engine.getClock().tick();
+
+        assertEquals(0, listener.lastAnswerNr);
+        assertFalse(listener.lastCorrect);
+        assertEquals(0, engine.getScore());
+    }
+
+    @Test
+    public void restore_continuesWithRemainingTime() {
+        QuizEngine engine = engine(3);
+        engine.restore(2, 1, false, 12000);
+        assertEquals(2, engine.getCurrentQuestion().getId());
+        assertEquals(18000, engine.getClock().remaining());
+
+        engine.resume();
+        time.now += 3000;
+        engine.selectAnswer(2);
+        engine.checkAnswer();
+        assertEquals(15000, listener.lastTimeTaken);
+        assertEquals(2, engine.getScore());
+
+        assertTrue(engine.showNextQuestion());
+        assertEquals(3, engine.getCurrentQuestion().getId());
+        assertEquals(3, engine.getQuestionNumber());
+    }
+
+    @Test
+    public void finish_earlyReportsOnce() {
+        QuizEngine engine = engine(5);
+        engine.showNextQuestion();
+        engine.finish();
+        engine.finish();
+
+        assertEquals(1, listener.finishes);
+        assertFalse(engine.getClock().isRunning());
+        assertFalse(engine.showNextQuestion());
+    }
+
+    // QuizActivity meldet nur Durchgänge mit mindestens einer Antwort an die Bestenliste
+    @Test
+    public void answeredCount_countsCheckedQuestions() {
+        QuizEngine engine = engine(2);
+        assertEquals(0, engine.getAnsweredCount());
+
+        engine.showNextQuestion();
+        assertEquals(0, engine.getAnsweredCount());
+        engine.selectAnswer(1);
+        engine.checkAnswer();
+        assertEquals(1, engine.getAnsweredCount());
+
+        engine.showNextQuestion();
+        assertEquals(1, engine.getAnsweredCount());
+        time.now += TIME_LIMIT;
+        engine.getClock().tick();
+        assertEquals(2, engine.getAnsweredCount());
+
+        assertFalse(engine.showNextQuestion());
+        assertEquals(2, engine.getAnsweredCount());
+    }
+
+    // LazyQuestionSource liefert null für Fragen, die der Inhalts-Sync gelöscht hat
+    @Test
+    public void deletedQuestions_areSkipped() {
+        List<Question> questions = questions(4);
+        questions.set(1, null);
+        questions.set(3, null);
+        QuizEngine engine = new QuizEngine(new ListQuestionSource(questions), TIME_LIMIT, time, listener);
+
+        assertTrue(engine.showNextQuestion());
+        assertEquals(1, engine.getQuestionNumber());
+        engine.checkAnswer();
+        assertTrue(engine.showNextQuestion());
+        assertEquals("Frage 3", engine.getCurrentQuestion().getQuestion());
+        assertEquals(3, engine.getQuestionNumber());
+        engine.checkAnswer();
+
+        assertFalse(engine.showNextQuestion());
+        assertEquals(2, listener.questions);
+        assertEquals(1, listener.finishes);
+    }
+
+    @Test
+    public void restore_deletedCurrentQuestion_continuesWithNext() {
+        List<Question> questions = questions(3);
+        questions.set(1, null);
+        QuizEngine engine = new QuizEngine(new ListQuestionSource(questions), TIME_LIMIT, time, listener);
+
+        engine.restore(2, 1, false, 5000);
+        assertNull(engine.getCurrentQuestion());
+        assertTrue(engine.isAnswered());
+
+        assertTrue(engine.showNextQuestion());
+        assertEquals("Frage 3", engine.getCurrentQuestion().getQuestion());
+        assertEquals(1, engine.getScore());
+    }
+
+    @Test
+    public void adaptiveMode_feedsScheduler() {
+        List<Question> pool = new ArrayList<>();
+        int id = 1;
+        for (String difficulty : Question.getAllDifficultyLevels()) {
+            for (int i = 0; i < 20; i++) {
+                Question question = new Question("Frage " + id, "A", "B", "C", 1, difficulty, Category.MATH);
+                question.setId(id++);
+                pool.add(question);
+            }
+        }
+        AdaptiveQuestionScheduler scheduler = new AdaptiveQuestionScheduler(pool, TIME_LIMIT, new Random(1));
+        QuizEngine engine = new QuizEngine(new ScheduledQuestionSource(scheduler, 10), TIME_LIMIT,
+                time, listener);
+
+        // schnelle richtige Antworten heben das Level an
+        while (engine.showNextQuestion()) {
+            time.now += 2000;
+            engine.selectAnswer(1);
+            engine.checkAnswer();
+        }
+        assertEquals(10, engine.getScore());
+        assertEquals(AdaptiveQuestionScheduler.LEVEL_HARD, scheduler.getLevel());
+    }
+}
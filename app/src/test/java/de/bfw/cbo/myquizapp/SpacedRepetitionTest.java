@@ -0,0 +1,71 @@
+package de.bfw.cbo.myquizapp;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SpacedRepetitionTest {
+
+    private static final long NOW = 1546300800000L; // 01.01.2019
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Test
+    public void quality_fromAnswer() {
+        assertEquals(SpacedRepetition.QUALITY_NO_ANSWER, SpacedRepetition.quality(0, false, 30000));
+        assertEquals(SpacedRepetition.QUALITY_WRONG, SpacedRepetition.quality(2, false, 1000));
+        assertEquals(SpacedRepetition.QUALITY_PERFECT, SpacedRepetition.quality(1, true, 5000));
+        assertEquals(4, SpacedRepetition.quality(1, true, 15000));
+        assertEquals(SpacedRepetition.PASSING, SpacedRepetition.quality(1, true, 40000));
+    }
+
+    @Test
+    public void correctAnswers_followSm2Intervals() {
+        ReviewState state = ReviewState.initial();
+
+        state = SpacedRepetition.review(state, 5, NOW);
+        assertEquals(1, state.getIntervalDays());
+        assertEquals(NOW + DAY, state.getDueAt());
+
+        state = SpacedRepetition.review(state, 5, NOW);
+        assertEquals(6, state.getIntervalDays());
+
+        // EF ist nach zwei perfekten Antworten 2.7, also 6 * 2.7
+        state = SpacedRepetition.review(state, 5, NOW);
+        assertEquals(2.8, state.getEaseFactor(), 1e-9);
+        assertEquals(16, state.getIntervalDays());
+        assertEquals(3, state.getRepetitions());
+        assertEquals(NOW + 16 * DAY, state.getDueAt());
+    }
+
+    @Test
+    public void wrongAnswer_resetsRepetitions() {
+        ReviewState state = new ReviewState(4, 30, 2.5, NOW);
+
+        state = SpacedRepetition.review(state, SpacedRepetition.QUALITY_WRONG, NOW);
+        assertEquals(0, state.getRepetitions());
+        assertEquals(1, state.getIntervalDays());
+        assertEquals(NOW + DAY, state.getDueAt());
+        assertTrue(state.getEaseFactor() < 2.5);
+    }
+
+    @Test
+    public void easeFactor_neverBelowMinimum() {
+        ReviewState state = ReviewState.initial();
+        for (int i = 0; i < 20; i++) {
+            state = SpacedRepetition.review(state, SpacedRepetition.QUALITY_NO_ANSWER, NOW);
+        }
+        assertEquals(SpacedRepetition.MIN_EASE_FACTOR, state.getEaseFactor(), 1e-9);
+    }
+
+    @Test
+    public void quality3_keepsIntervalGrowingButLowersEase() {
+        ReviewState state = new ReviewState(2, 6, 2.5, NOW);
+
+        state = SpacedRepetition.review(state, SpacedRepetition.PASSING, NOW);
+        assertEquals(3, state.getRepetitions());
+        assertEquals(15, state.getIntervalDays());
+        assertEquals(2.36, state.getEaseFactor(), 1e-9);
+    }
+}
@@ -0,0 +1,105 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Erster Start: Asset-DB kopieren wie AssetDatabaseProvisioner, einmal per
+ * transferTo (unkomprimiertes Asset) und einmal über einen Stream
+ * (komprimiertes Asset), dazu die SHA-256-Prüfung. Ohne fsync, gemessen
+ * wird nur das Kopieren.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class AssetCopyBenchmark {
+
+    @Param({"1", "16"})
+    public int sizeMb;
+
+    private File source;
+    private File target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = File.createTempFile("quiz-asset", ".db");
+        target = File.createTempFile("quiz-asset", ".tmp");
+        byte[] block = new byte[64 * 1024];
+        new Random(1).nextBytes(block);
+        FileOutputStream out = new FileOutputStream(source);
+        try {
+            for (int i = 0; i < sizeMb * 16; i++) {
+                out.write(block);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (!source.delete()) {
+            source.deleteOnExit();
+        }
+        if (!target.delete()) {
+            target.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        FileInputStream in = new FileInputStream(source);
+        FileOutputStream out = new FileOutputStream(target);
+        try {
+            FileChannel inChannel = in.getChannel();
+            AssetDatabaseProvisioner.transferFully(inChannel, 0, inChannel.size(), out.getChannel());
+            return out.getChannel().size();
+        } finally {
+            out.close();
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public long streamCopy() throws IOException {
+        FileInputStream in = new FileInputStream(source);
+        FileOutputStream out = new FileOutputStream(target);
+        try {
+            // Channels.newChannel() auf einen Stream, wie bei AssetManager.open()
+            AssetDatabaseProvisioner.copy(Channels.newChannel(new StreamOnly(in)), out.getChannel());
+            return out.getChannel().size();
+        } finally {
+            out.close();
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public String sha256() throws IOException {
+        return AssetDatabaseProvisioner.sha256(source);
+    }
+
+    // versteckt den FileChannel, sonst nimmt Channels.newChannel() die Abkürzung
+    private static class StreamOnly extends java.io.FilterInputStream {
+        StreamOnly(FileInputStream in) {
+            super(in);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package de.bfw.cbo.myquizapp;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import de.bfw.cbo.myquizapp.QuizContract.CategoriesTables;
+import de.bfw.cbo.myquizapp.QuizContract.OptionStringsTable;
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsFtsTable;
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+/**
+ * Fragen-DB über sqlite-jdbc statt android.database.sqlite, mit demselben
+ * Schema und denselben Abfragen wie QuizDbHelper. Das Schema kommt als SQL
+ * aus QuizDbHelper.sqlCreateQuestionSchema().
+ *
+ * Layout.INLINE ist das Schema vor Version 11 (Antwort-Texte direkt in der
+ * Fragen-Tabelle), nur noch zum Vergleich in OptionStorageBenchmark.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    enum Layout {
+        INLINE, DICTIONARY
+    }
+
+    private static final String SQL_INSERT_QUESTION_INLINE = "INSERT INTO " +
+            QuestionsTable.TABLE_NAME + " (" +
+            QuestionsTable.COLUMN_QUESTION + ", " +
+            QuestionsTable.COLUMN_OPTION1 + ", " +
+            QuestionsTable.COLUMN_OPTION2 + ", " +
+            QuestionsTable.COLUMN_OPTION3 + ", " +
+            QuestionsTable.COLUMN_ANSWER_NR + ", " +
+            QuestionsTable.COLUMN_DIFFICULTY + ", " +
+            QuestionsTable.COLUMN_CATEGORY_ID + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final Connection connection;
+    private final Layout layout;
+
+    // wie OptionDictionary: Text zur ID (Index) und ID zum Text
+    private String[] optionTexts = new String[256];
+    private final HashMap<String, Integer> optionIds = new HashMap<>();
+    private boolean optionsLoaded;
+
+    private BenchmarkDatabase(Connection connection, Layout layout) {
+        this.connection = connection;
+        this.layout = layout;
+    }
+
+    // neue, leere DB in file mit dem Schema der App
+    static BenchmarkDatabase create(File file) throws SQLException {
+        return create(file, Layout.DICTIONARY);
+    }
+
+    static BenchmarkDatabase create(File file, Layout layout) throws SQLException {
+        if (file.exists() && !file.delete()) {
+            throw new SQLException("alte DB nicht gelöscht: " + file);
+        }
+        BenchmarkDatabase db = new BenchmarkDatabase(
+                DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath()), layout);
+        db.createSchema();
+        return db;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    private void createSchema() throws SQLException {
+        try (Statement s = connection.createStatement()) {
+            // wie QuizDbHelper.onConfigure()
+            s.execute("PRAGMA foreign_keys = ON");
+            if (layout == Layout.DICTIONARY) {
+                for (String sql : QuizDbHelper.sqlCreateQuestionSchema()) {
+                    s.execute(sql);
+                }
+            } else {
+                createInlineSchema(s);
+            }
+
+            for (int i = 1; i <= QuestionBank.CATEGORY_COUNT; i++) {
+                s.execute("INSERT INTO " + CategoriesTables.TABLE_NAME + " (" +
+                        CategoriesTables.COLUMN_NAME + ") VALUES ('Kategorie " + i + "')");
+            }
+        }
+    }
+
+    // Fragen-Tabelle und Volltextsuche wie vor Version 11, der Rest wie heute
+    private static void createInlineSchema(Statement s) throws SQLException {
+        String q = QuestionsTable.TABLE_NAME;
+        String fts = QuestionsFtsTable.TABLE_NAME;
+        String columns = QuestionsTable.COLUMN_QUESTION + ", " +
+                QuestionsTable.COLUMN_OPTION1 + ", " +
+                QuestionsTable.COLUMN_OPTION2 + ", " +
+                QuestionsTable.COLUMN_OPTION3;
+
+        s.execute(QuizDbHelper.SQL_CREATE_CATEGORIES_TABLE);
+        s.execute("CREATE TABLE " + q + " ( " +
+                QuestionsTable._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                QuestionsTable.COLUMN_QUESTION + " TEXT, " +
+                QuestionsTable.COLUMN_OPTION1 + " TEXT, " +
+                QuestionsTable.COLUMN_OPTION2 + " TEXT, " +
+                QuestionsTable.COLUMN_OPTION3 + " TEXT, " +
+                QuestionsTable.COLUMN_ANSWER_NR + " INTEGER," +
+                QuestionsTable.COLUMN_DIFFICULTY + " INTEGER," +
+                QuestionsTable.COLUMN_CATEGORY_ID + " INTEGER," +
+                "FOREIGN KEY(" + QuestionsTable.COLUMN_CATEGORY_ID + ") REFERENCES " +
+                CategoriesTables.TABLE_NAME + "(" + CategoriesTables._ID + ") ON DELETE CASCADE)");
+        for (String sql : QuizDbHelper.sqlCreateCategoryCounts()) {
+            s.execute(sql);
+        }
+        for (String sql : QuizDbHelper.SQL_CREATE_QUESTION_INDEXES) {
+            s.execute(sql);
+        }
+        s.execute("CREATE VIRTUAL TABLE " + fts +
+                " USING fts4(content=\"" + q + "\", " + columns + ")");
+        s.execute("CREATE TRIGGER " + fts + "_bd BEFORE DELETE ON " + q + " BEGIN " +
+                "DELETE FROM " + fts + " WHERE " + QuestionsFtsTable.COLUMN_DOCID +
+                " = old." + QuestionsTable._ID + "; END");
+        s.execute("CREATE TRIGGER " + fts + "_ai AFTER INSERT ON " + q + " BEGIN " +
+                "INSERT INTO " + fts + "(" + QuestionsFtsTable.COLUMN_DOCID + ", " + columns +
+                ") VALUES (new." + QuestionsTable._ID + ", new." + QuestionsTable.COLUMN_QUESTION +
+                ", new." + QuestionsTable.COLUMN_OPTION1 + ", new." + QuestionsTable.COLUMN_OPTION2 +
+                ", new." + QuestionsTable.COLUMN_OPTION3 + "); END");
+    }
+
+    private String optionColumn(int nr) {
+        String[] columns = layout == Layout.DICTIONARY
+                ? new String[]{QuestionsTable.COLUMN_OPTION1_ID, QuestionsTable.COLUMN_OPTION2_ID,
+                QuestionsTable.COLUMN_OPTION3_ID}
+                : new String[]{QuestionsTable.COLUMN_OPTION1, QuestionsTable.COLUMN_OPTION2,
+                QuestionsTable.COLUMN_OPTION3};
+        return columns[nr - 1];
+    }
+
+    // wie QuizDbHelper.addQuestions(): ein Statement, eine Transaktion pro Block
+    void insert(List<Question> questions) throws SQLException {
+        boolean dictionary = layout == Layout.DICTIONARY;
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(dictionary
+                ? QuizDbHelper.SQL_INSERT_QUESTION : SQL_INSERT_QUESTION_INLINE);
+             PreparedStatement insertOption = connection.prepareStatement(OptionDictionary.SQL_INSERT,
+                     Statement.RETURN_GENERATED_KEYS)) {
+            int total = questions.size();
+            for (int index = 0; index < total; index += QuizDbHelper.IMPORT_CHUNK_SIZE) {
+                int end = Math.min(index + QuizDbHelper.IMPORT_CHUNK_SIZE, total);
+                try {
+                    for (int i = index; i < end; i++) {
+                        Question question = questions.get(i);
+                        statement.setString(1, question.getQuestion());
+                        if (dictionary) {
+                            setOptionId(statement, 2, optionIdFor(insertOption, question.getOption1()));
+                            setOptionId(statement, 3, optionIdFor(insertOption, question.getOption2()));
+                            setOptionId(statement, 4, optionIdFor(insertOption, question.getOption3()));
+                        } else {
+                            statement.setString(2, question.getOption1());
+                            statement.setString(3, question.getOption2());
+                            statement.setString(4, question.getOption3());
+                        }
+                        statement.setInt(5, question.getAnswerNr());
+                        statement.setInt(6, question.getDifficultyCode());
+                        statement.setInt(7, question.getCategoryID());
+                        statement.executeUpdate();
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    clearOptionCache();
+                    throw e;
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static void setOptionId(PreparedStatement statement, int index, int optionId)
+            throws SQLException {
+        if (optionId == 0) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setInt(index, optionId);
+        }
+    }
+
+    // wie OptionDictionary.idFor()
+    private int optionIdFor(PreparedStatement insert, String text) throws SQLException {
+        if (text == null) {
+            return 0;
+        }
+        loadOptions();
+        Integer id = optionIds.get(text);
+        if (id != null) {
+            return id;
+        }
+        insert.setString(1, text);
+        insert.executeUpdate();
+        try (ResultSet keys = insert.getGeneratedKeys()) {
+            keys.next();
+            int newId = keys.getInt(1);
+            putOption(newId, text);
+            return newId;
+        }
+    }
+
+    // wie OptionDictionary.get(), nach dem ersten Laden ohne DB-Zugriff
+    private String optionText(int id) throws SQLException {
+        if (id <= 0) {
+            return null;
+        }
+        loadOptions();
+        return id < optionTexts.length ? optionTexts[id] : null;
+    }
+
+    private void loadOptions() throws SQLException {
+        if (optionsLoaded) {
+            return;
+        }
+        try (Statement s = connection.createStatement();
+             ResultSet rs = s.executeQuery("SELECT " + OptionStringsTable._ID + ", " +
+                     OptionStringsTable.COLUMN_TEXT + " FROM " + OptionStringsTable.TABLE_NAME)) {
+            while (rs.next()) {
+                putOption(rs.getInt(1), rs.getString(2));
+            }
+        }
+        optionsLoaded = true;
+    }
+
+    private void putOption(int id, String text) {
+        if (id >= optionTexts.length) {
+            optionTexts = Arrays.copyOf(optionTexts, Math.max(id + 1, optionTexts.length * 2));
+        }
+        optionTexts[id] = text;
+        optionIds.put(text, id);
+    }
+
+    // wie ein frisch gestarteter Prozess: Antwort-Texte beim nächsten Zugriff neu laden
+    void clearOptionCache() {
+        optionTexts = new String[256];
+        optionIds.clear();
+        optionsLoaded = false;
+    }
+
+    /**
+     * Bytes aller Tabellen (dataBytes) bzw. Indizes (indexBytes) über dbstat,
+     * ohne FTS-Index und sqlite_master.
+     */
+    long dataBytes() throws SQLException {
+        return objectBytes(connection, "table");
+    }
+
+    long indexBytes() throws SQLException {
+        return objectBytes(connection, "index");
+    }
+
+    static long objectBytes(Connection connection, String type) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT SUM(d.pgsize)" +
+                " FROM dbstat d JOIN sqlite_master m ON m.name = d.name" +
+                " WHERE m.type = ? AND m.tbl_name NOT LIKE '" + QuestionsFtsTable.TABLE_NAME + "%'")) {
+            statement.setString(1, type);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // WHERE-Klausel mit ?-Parametern wie QuizDbHelper.queryQuestions()
+    ArrayList<Question> queryQuestions(String selection, String... selectionArgs) throws SQLException {
+        return query("SELECT * FROM " + QuestionsTable.TABLE_NAME + " WHERE " + selection,
+                selectionArgs);
+    }
+
+    ArrayList<Question> query(String sql, String... args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setString(i + 1, args[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                return readQuestions(rs);
+            }
+        }
+    }
+
+    // erste Spalte der ersten Zeile, 0 bei NULL wie QuizDbHelper.queryLong()
+    long queryLong(String sql, String... args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setString(i + 1, args[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    int[] queryIds(String selection, String... selectionArgs) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " +
+                QuestionsTable._ID + " FROM " + QuestionsTable.TABLE_NAME + " WHERE " + selection)) {
+            for (int i = 0; i < selectionArgs.length; i++) {
+                statement.setString(i + 1, selectionArgs[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                int[] ids = new int[64];
+                int count = 0;
+                while (rs.next()) {
+                    if (count == ids.length) {
+                        int[] grown = new int[ids.length * 2];
+                        System.arraycopy(ids, 0, grown, 0, count);
+                        ids = grown;
+                    }
+                    ids[count++] = rs.getInt(1);
+                }
+                int[] result = new int[count];
+                System.arraycopy(ids, 0, result, 0, count);
+                return result;
+            }
+        }
+    }
+
+    // Spalten einmal pro ResultSet auflösen, wie QuestionRowMapper
+    private ArrayList<Question> readQuestions(ResultSet rs) throws SQLException {
+        boolean dictionary = layout == Layout.DICTIONARY;
+        int idIndex = rs.findColumn(QuestionsTable._ID);
+        int questionIndex = rs.findColumn(QuestionsTable.COLUMN_QUESTION);
+        int option1Index = rs.findColumn(optionColumn(1));
+        int option2Index = rs.findColumn(optionColumn(2));
+        int option3Index = rs.findColumn(optionColumn(3));
+        int answerNrIndex = rs.findColumn(QuestionsTable.COLUMN_ANSWER_NR);
+        int difficultyIndex = rs.findColumn(QuestionsTable.COLUMN_DIFFICULTY);
+        int categoryIdIndex = rs.findColumn(QuestionsTable.COLUMN_CATEGORY_ID);
+
+        ArrayList<Question> questions = new ArrayList<>();
+        while (rs.next()) {
+            Question question = new Question();
+            question.setId(rs.getInt(idIndex));
+            question.setQuestion(rs.getString(questionIndex));
+            if (dictionary) {
+                question.setOption1(optionText(rs.getInt(option1Index)));
+                question.setOption2(optionText(rs.getInt(option2Index)));
+                question.setOption3(optionText(rs.getInt(option3Index)));
+            } else {
+                question.setOption1(rs.getString(option1Index));
+                question.setOption2(rs.getString(option2Index));
+                question.setOption3(rs.getString(option3Index));
+            }
+            question.setAnswerNr(rs.getInt(answerNrIndex));
+            question.setDifficultyLevel(Question.Difficulty.fromCode(rs.getInt(difficultyIndex)));
+            question.setCategoryID(rs.getInt(categoryIdIndex));
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
@@ -0,0 +1,139 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+/**
+ * Schwierigkeit als Text ("Einfach"/"Mittel"/"Schwer", bis Version 7) gegen
+ * den Integer-Code von heute: gleiche Tabelle und gleiche Indizes wie
+ * QuizDbHelper, nur der Typ der Spalte difficulty ist verschieden. Index- und
+ * Tabellengröße kommen als StorageSize-Zähler ins Ergebnis.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class DifficultyStorageBenchmark {
+
+    @Param({"text", "code"})
+    public String storage;
+
+    @Param({"100000"})
+    public int bankSize;
+
+    private File file;
+    private Connection connection;
+    private PreparedStatement partition;
+    private PreparedStatement byDifficulty;
+    private String mediumArg;
+    private long dataBytes;
+    private long indexBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        boolean text = storage.equals("text");
+        file = File.createTempFile("quiz-benchmark", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        String q = QuestionsTable.TABLE_NAME;
+        try (Statement s = connection.createStatement()) {
+            s.execute("CREATE TABLE " + q + " ( " +
+                    QuestionsTable._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    QuestionsTable.COLUMN_QUESTION + " TEXT, " +
+                    QuestionsTable.COLUMN_ANSWER_NR + " INTEGER, " +
+                    QuestionsTable.COLUMN_DIFFICULTY + (text ? " TEXT, " : " INTEGER, ") +
+                    QuestionsTable.COLUMN_CATEGORY_ID + " INTEGER)");
+            s.execute("CREATE INDEX idx_questions_category_difficulty ON " + q + " (" +
+                    QuestionsTable.COLUMN_CATEGORY_ID + ", " + QuestionsTable.COLUMN_DIFFICULTY + ")");
+            s.execute("CREATE INDEX idx_questions_difficulty ON " + q + " (" +
+                    QuestionsTable.COLUMN_DIFFICULTY + ")");
+        }
+
+        List<Question> questions = QuestionBank.generate(bankSize, 1);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + q + " (" +
+                QuestionsTable.COLUMN_QUESTION + ", " + QuestionsTable.COLUMN_ANSWER_NR + ", " +
+                QuestionsTable.COLUMN_DIFFICULTY + ", " + QuestionsTable.COLUMN_CATEGORY_ID +
+                ") VALUES (?, ?, ?, ?)")) {
+            for (Question question : questions) {
+                insert.setString(1, question.getQuestion());
+                insert.setInt(2, question.getAnswerNr());
+                if (text) {
+                    insert.setString(3, question.getDifficulty());
+                } else {
+                    insert.setInt(3, question.getDifficultyCode());
+                }
+                insert.setInt(4, question.getCategoryID());
+                insert.executeUpdate();
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        dataBytes = BenchmarkDatabase.objectBytes(connection, "table");
+        indexBytes = BenchmarkDatabase.objectBytes(connection, "index");
+
+        mediumArg = text ? Question.DIFFICULTY_MEDIUM
+                : QuizDbHelper.difficultyArg(Question.DIFFICULTY_MEDIUM);
+        partition = connection.prepareStatement("SELECT " + QuestionsTable._ID + " FROM " + q +
+                " WHERE " + QuizDbHelper.SELECTION_CATEGORY_DIFFICULTY);
+        byDifficulty = connection.prepareStatement("SELECT " + QuestionsTable._ID + " FROM " + q +
+                " WHERE " + QuizDbHelper.SELECTION_DIFFICULTY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        partition.close();
+        byDifficulty.close();
+        connection.close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    // getQuestions(): eine (Kategorie, Schwierigkeit)-Partition über den zusammengesetzten Index
+    @Benchmark
+    public long partition(StorageSize size) throws SQLException {
+        size.report(dataBytes, indexBytes);
+        partition.setString(1, "1");
+        partition.setString(2, mediumArg);
+        return sumIds(partition);
+    }
+
+    // getAllQuestions(): alle Kategorien einer Schwierigkeit
+    @Benchmark
+    public long allCategories() throws SQLException {
+        byDifficulty.setString(1, mediumArg);
+        return sumIds(byDifficulty);
+    }
+
+    // Summe der IDs, damit jede Zeile wirklich gelesen wird
+    private static long sumIds(PreparedStatement statement) throws SQLException {
+        long sum = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                sum += rs.getInt(1);
+            }
+        }
+        return sum;
+    }
+}
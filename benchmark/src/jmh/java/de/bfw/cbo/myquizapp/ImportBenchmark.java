@@ -0,0 +1,60 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ganzer Import wie QuizDbHelper.addQuestions() in eine leere DB: alle Blöcke
+ * mit Antwort-Texten, Zähler-Triggern und Volltextindex. Jeder Aufruf
+ * bekommt eine frische DB, das Anlegen zählt nicht mit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ImportBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int questionCount;
+
+    private List<Question> questions;
+    private File file;
+    private BenchmarkDatabase db;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        questions = QuestionBank.generate(questionCount, 1);
+    }
+
+    @Setup(Level.Invocation)
+    public void createDatabase() throws IOException, SQLException {
+        file = File.createTempFile("quiz-benchmark", ".db");
+        db = BenchmarkDatabase.create(file);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteDatabase() throws SQLException {
+        db.close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public void importAll() throws SQLException {
+        db.insert(questions);
+    }
+}
@@ -0,0 +1,275 @@
+package de.bfw.cbo.myquizapp;
+
+import android.content.ContentResolver;
+import android.database.CharArrayBuffer;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.net.Uri;
+import android.os.Bundle;
+
+import java.util.HashMap;
+
+/**
+ * Cursor über Zeilen im Speicher, damit QuestionRowMapper ohne Android-Framework
+ * laufen kann. getColumnIndex() arbeitet wie SQLiteCursor (HashMap über die
+ * Spaltennamen), die Zeilen-Zugriffe sind Array-Lesen: gemessen wird also das
+ * Mapping, nicht SQLite.
+ */
+final class MemoryCursor implements Cursor {
+
+    private final String[] columnNames;
+    private final Object[][] rows;
+    private final HashMap<String, Integer> columnIndex = new HashMap<>();
+    private int position = -1;
+    private boolean closed;
+
+    MemoryCursor(String[] columnNames, Object[][] rows) {
+        this.columnNames = columnNames;
+        this.rows = rows;
+        for (int i = 0; i < columnNames.length; i++) {
+            columnIndex.put(columnNames[i], i);
+        }
+    }
+
+    // wieder vor die erste Zeile, für den nächsten Durchlauf
+    void reset() {
+        position = -1;
+    }
+
+    private Object value(int column) {
+        return rows[position][column];
+    }
+
+    @Override
+    public int getCount() {
+        return rows.length;
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean move(int offset) {
+        return moveToPosition(position + offset);
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        if (position < 0) {
+            this.position = -1;
+            return false;
+        }
+        if (position >= rows.length) {
+            this.position = rows.length;
+            return false;
+        }
+        this.position = position;
+        return true;
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return moveToPosition(rows.length - 1);
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return moveToPosition(position + 1);
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        return moveToPosition(position - 1);
+    }
+
+    @Override
+    public boolean isFirst() {
+        return position == 0 && rows.length > 0;
+    }
+
+    @Override
+    public boolean isLast() {
+        return position == rows.length - 1 && rows.length > 0;
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+        return rows.length == 0 || position == -1;
+    }
+
+    @Override
+    public boolean isAfterLast() {
+        return rows.length == 0 || position == rows.length;
+    }
+
+    // wie SQLiteCursor: "tabelle.spalte" zählt als "spalte"
+    @Override
+    public int getColumnIndex(String columnName) {
+        int periodIndex = columnName.lastIndexOf('.');
+        if (periodIndex != -1) {
+            columnName = columnName.substring(periodIndex + 1);
+        }
+        Integer index = columnIndex.get(columnName);
+        return index != null ? index : -1;
+    }
+
+    @Override
+    public int getColumnIndexOrThrow(String columnName) {
+        int index = getColumnIndex(columnName);
+        if (index < 0) {
+            throw new IllegalArgumentException("column '" + columnName + "' does not exist");
+        }
+        return index;
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        return columnNames[columnIndex];
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public byte[] getBlob(int columnIndex) {
+        return (byte[]) value(columnIndex);
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        Object value = value(columnIndex);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public void copyStringToBuffer(int columnIndex, CharArrayBuffer buffer) {
+        throw new UnsupportedOperationException();
+    }
+
+    // NULL liest sich wie bei SQLite als 0
+    @Override
+    public short getShort(int columnIndex) {
+        return (short) getLong(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return (int) getLong(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        Object value = value(columnIndex);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return (float) getDouble(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        Object value = value(columnIndex);
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    @Override
+    public int getType(int columnIndex) {
+        Object value = value(columnIndex);
+        if (value == null) {
+            return FIELD_TYPE_NULL;
+        } else if (value instanceof String) {
+            return FIELD_TYPE_STRING;
+        } else if (value instanceof byte[]) {
+            return FIELD_TYPE_BLOB;
+        } else if (value instanceof Double || value instanceof Float) {
+            return FIELD_TYPE_FLOAT;
+        }
+        return FIELD_TYPE_INTEGER;
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        return value(columnIndex) == null;
+    }
+
+    @Override
+    public void deactivate() {
+    }
+
+    @Override
+    public boolean requery() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void registerContentObserver(ContentObserver observer) {
+    }
+
+    @Override
+    public void unregisterContentObserver(ContentObserver observer) {
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+    }
+
+    @Override
+    public void setNotificationUri(ContentResolver cr, Uri uri) {
+    }
+
+    @Override
+    public Uri getNotificationUri() {
+        return null;
+    }
+
+    @Override
+    public boolean getWantsAllOnMoveCalls() {
+        return false;
+    }
+
+    @Override
+    public void setExtras(Bundle extras) {
+    }
+
+    // Bundle.EMPTY wäre schon Framework-Code
+    @Override
+    public Bundle getExtras() {
+        return null;
+    }
+
+    @Override
+    public Bundle respond(Bundle extras) {
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Was eine Messung aus QuizMetrics kostet. baseline ist dieselbe Arbeit ohne
+ * Messung; mit enabled=false müssen timed und counted darauf liegen (ein
+ * volatile-Lesen und ein Sprung), mit enabled=true kommen zweimal nanoTime()
+ * und die atomaren Updates dazu. shuffle ist der echte, gemessene Pfad aus
+ * LazyQuestionSource.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    // etwa so viel Arbeit wie eine kurze Stufe, klein genug, dass Aufschläge auffallen
+    private static final int WORK_TOKENS = 20;
+    private static final int SESSION_SIZE = 20;
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private final LatencyHistogram timer = new LatencyHistogram("benchmark");
+    private final QuizMetrics.Counter counter = new QuizMetrics.Counter("benchmark");
+    private final Random random = new Random(1);
+    private int[] ids;
+
+    @Setup
+    public void setUp() {
+        QuizMetrics.setEnabled(enabled);
+        ids = new int[SESSION_SIZE];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        QuizMetrics.setEnabled(false);
+        QuizMetrics.reset();
+    }
+
+    @Benchmark
+    public void baseline() {
+        Blackhole.consumeCPU(WORK_TOKENS);
+    }
+
+    @Benchmark
+    public void timed() {
+        long start = QuizMetrics.start();
+        Blackhole.consumeCPU(WORK_TOKENS);
+        timer.stop(start);
+    }
+
+    @Benchmark
+    public void counted() {
+        counter.increment();
+        Blackhole.consumeCPU(WORK_TOKENS);
+    }
+
+    @Benchmark
+    public int[] shuffle() {
+        LazyQuestionSource.shuffle(ids, random);
+        return ids;
+    }
+}
@@ -0,0 +1,99 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+/**
+ * Antwort-Texte direkt in quiz_questions (inline, bis Version 11) gegen
+ * quiz_option_strings (dictionary) auf einem großen Katalog mit vielen
+ * gleichen Antworten. Tabellen- und Indexgröße kommen als StorageSize-Zähler
+ * zu queryPartition ins Ergebnis.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class OptionStorageBenchmark {
+
+    private static final int BANK_SIZE = 200000;
+
+    @Param({"inline", "dictionary"})
+    public String layout;
+
+    private File file;
+    private BenchmarkDatabase db;
+    private List<Question> importChunk;
+    private String mediumArg;
+    private long dataBytes;
+    private long indexBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = File.createTempFile("quiz-benchmark", ".db");
+        db = BenchmarkDatabase.create(file, layout.equals("inline")
+                ? BenchmarkDatabase.Layout.INLINE : BenchmarkDatabase.Layout.DICTIONARY);
+        db.insert(QuestionBank.generateRepetitive(BANK_SIZE, 1));
+        importChunk = QuestionBank.generateRepetitive(QuizDbHelper.IMPORT_CHUNK_SIZE, 2);
+        mediumArg = QuizDbHelper.difficultyArg(Question.DIFFICULTY_MEDIUM);
+        dataBytes = db.dataBytes();
+        indexBytes = db.indexBytes();
+    }
+
+    // vom Import-Benchmark angelegte Fragen wieder entfernen, damit der Katalog gleich groß bleibt
+    @TearDown(Level.Iteration)
+    public void removeImported() throws SQLException {
+        try (Statement s = db.getConnection().createStatement()) {
+            s.execute("DELETE FROM " + QuestionsTable.TABLE_NAME + " WHERE " +
+                    QuestionsTable._ID + " > " + BANK_SIZE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        db.close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public void importChunk() throws SQLException {
+        db.insert(importChunk);
+    }
+
+    // Partition laden, Antwort-Texte schon im Speicher
+    @Benchmark
+    public List<Question> queryPartition(StorageSize size) throws SQLException {
+        size.report(dataBytes, indexBytes);
+        return db.queryQuestions(QuizDbHelper.SELECTION_CATEGORY_DIFFICULTY, "1", mediumArg);
+    }
+
+    // erster Zugriff nach dem App-Start, dictionary lädt dabei alle Antwort-Texte
+    @Benchmark
+    public List<Question> queryPartitionCold() throws SQLException {
+        db.clearOptionCache();
+        return db.queryQuestions(QuizDbHelper.SELECTION_CATEGORY_DIFFICULTY, "1", mediumArg);
+    }
+
+    // ganzer Katalog, z.B. für den Export als Fragen-Paket
+    @Benchmark
+    public List<Question> queryAll() throws SQLException {
+        return db.queryQuestions("1");
+    }
+}
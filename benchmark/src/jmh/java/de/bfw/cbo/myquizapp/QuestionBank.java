@@ -0,0 +1,102 @@
+package de.bfw.cbo.myquizapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Erzeugt reproduzierbare Fragen-Kataloge für die Benchmarks: Kategorien
+ * 1..CATEGORY_COUNT, alle drei Schwierigkeitsgrade gleich verteilt, Texte aus
+ * einem kleinen Wortschatz, damit die Volltextsuche Treffer hat.
+ */
+final class QuestionBank {
+
+    static final int CATEGORY_COUNT = 5;
+
+    // Wörter für die Volltextsuche, siehe QuestionDatabaseBenchmark.search()
+    static final String[] WORDS = {
+            "Hauptstadt", "Fluss", "Berg", "Jahr", "Erfinder", "Planet", "Sprache",
+            "Komponist", "Element", "Insel", "Wüste", "Maler", "Kontinent", "Währung"
+    };
+
+    private QuestionBank() {
+    }
+
+    static List<Question> generate(int count, long seed) {
+        Random random = new Random(seed);
+        String[] difficulties = Question.getAllDifficultyLevels();
+        List<Question> questions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String a = WORDS[random.nextInt(WORDS.length)];
+            String b = WORDS[random.nextInt(WORDS.length)];
+            Question question = new Question(
+                    "Frage " + (i + 1) + ": Welcher " + a + " passt zu " + b + "?",
+                    a + " " + random.nextInt(100),
+                    b + " " + random.nextInt(100),
+                    String.valueOf(1800 + random.nextInt(220)),
+                    random.nextInt(3) + 1,
+                    difficulties[i % difficulties.length],
+                    i / difficulties.length % CATEGORY_COUNT + 1);
+            question.setId(i + 1);
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    // Antworten, die sich in echten Katalogen ständig wiederholen
+    static final String[] TRUE_FALSE = {"Wahr", "Falsch", "Weiß nicht"};
+    static final String[] COUNTRIES = {
+            "Deutschland", "Frankreich", "Italien", "Spanien", "Portugal", "Österreich",
+            "Schweiz", "Polen", "Niederlande", "Belgien", "Dänemark", "Schweden",
+            "Norwegen", "Finnland", "Griechenland", "Türkei", "Ägypten", "Brasilien",
+            "Argentinien", "Kanada", "Mexiko", "Japan", "China", "Indien", "Australien"
+    };
+
+    /**
+     * Wie generate(), aber mit Antworten wie in echten Katalogen: 40 %
+     * Wahr/Falsch, 30 % Jahreszahlen, 20 % Länder, nur 10 % mit eigenen Texten.
+     * Für OptionStorageBenchmark.
+     */
+    static List<Question> generateRepetitive(int count, long seed) {
+        Random random = new Random(seed);
+        String[] difficulties = Question.getAllDifficultyLevels();
+        List<Question> questions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            String[] options = new String[3];
+            int kind = random.nextInt(10);
+            if (kind < 4) {
+                options = TRUE_FALSE.clone();
+            } else if (kind < 7) {
+                for (int o = 0; o < options.length; o++) {
+                    options[o] = String.valueOf(1800 + random.nextInt(220));
+                }
+            } else if (kind < 9) {
+                for (int o = 0; o < options.length; o++) {
+                    options[o] = COUNTRIES[random.nextInt(COUNTRIES.length)];
+                }
+            } else {
+                for (int o = 0; o < options.length; o++) {
+                    options[o] = word + " Antwort " + (i + 1) + "-" + (o + 1);
+                }
+            }
+            Question question = new Question(
+                    "Frage " + (i + 1) + ": Was gilt für " + word + " " + random.nextInt(1000) + "?",
+                    options[0], options[1], options[2],
+                    random.nextInt(3) + 1,
+                    difficulties[i % difficulties.length],
+                    i / difficulties.length % CATEGORY_COUNT + 1);
+            question.setId(i + 1);
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    static int[] ids(List<Question> questions) {
+        int[] ids = new int[questions.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = questions.get(i).getId();
+        }
+        return ids;
+    }
+}
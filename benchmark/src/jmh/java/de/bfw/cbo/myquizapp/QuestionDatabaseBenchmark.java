@@ -0,0 +1,138 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+/**
+ * Import und die häufigen Abfragen von QuizDbHelper auf einem Katalog mit
+ * bankSize Fragen, über sqlite-jdbc (siehe BenchmarkDatabase).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class QuestionDatabaseBenchmark {
+
+    private static final int SAMPLE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    public int bankSize;
+
+    private File file;
+    private BenchmarkDatabase db;
+    private List<Question> importChunk;
+    private String mediumArg;
+    private String[] partitionArgs;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = File.createTempFile("quiz-benchmark", ".db");
+        db = BenchmarkDatabase.create(file);
+        db.insert(QuestionBank.generate(bankSize, 1));
+        importChunk = QuestionBank.generate(QuizDbHelper.IMPORT_CHUNK_SIZE, 2);
+        mediumArg = QuizDbHelper.difficultyArg(Question.DIFFICULTY_MEDIUM);
+        partitionArgs = new String[]{"1", mediumArg};
+        random = new Random(3);
+    }
+
+    // vom Import-Benchmark angelegte Fragen wieder entfernen, damit der Katalog gleich groß bleibt
+    @TearDown(Level.Iteration)
+    public void removeImported() throws SQLException {
+        try (Statement s = db.getConnection().createStatement()) {
+            s.execute("DELETE FROM " + QuestionsTable.TABLE_NAME + " WHERE " +
+                    QuestionsTable._ID + " > " + bankSize);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        db.close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    // ein Block von QuizDbHelper.addQuestions(): IMPORT_CHUNK_SIZE Fragen in einer Transaktion
+    @Benchmark
+    public void importChunk() throws SQLException {
+        db.insert(importChunk);
+    }
+
+    // QuizDbHelper.getQuestions(categoryID, difficulty) ohne Cache: ganze Partition laden
+    @Benchmark
+    public List<Question> queryPartition() throws SQLException {
+        return db.queryQuestions(QuizDbHelper.SELECTION_CATEGORY_DIFFICULTY, partitionArgs);
+    }
+
+    // QuizDbHelper.sampleQuestions(): zufällige _IDs im Bereich der Partition per Index prüfen
+    @Benchmark
+    public List<Question> sampleQuestions() throws SQLException {
+        String selection = QuizDbHelper.SELECTION_CATEGORY_DIFFICULTY;
+        long count = db.queryLong(QuizDbHelper.sampleCountSql(selection), partitionArgs);
+        long minId = db.queryLong(QuizDbHelper.sampleBoundSql("min", selection), partitionArgs);
+        long maxId = db.queryLong(QuizDbHelper.sampleBoundSql("max", selection), partitionArgs);
+        long range = maxId - minId + 1;
+        if (QuizDbHelper.sampleProbeBudget(SAMPLE_SIZE, range, count) <= 0) {
+            return sampleFromIds();
+        }
+
+        HashSet<Integer> chosen = new HashSet<>();
+        List<Question> questions = new ArrayList<>(SAMPLE_SIZE);
+        while (questions.size() < SAMPLE_SIZE) {
+            int batch = QuizDbHelper.sampleBatchSize(SAMPLE_SIZE - questions.size(), range, count);
+            String[] args = new String[batch + partitionArgs.length];
+            for (int i = 0; i < batch; i++) {
+                args[i] = String.valueOf(minId + (long) (random.nextDouble() * range));
+            }
+            System.arraycopy(partitionArgs, 0, args, batch, partitionArgs.length);
+            for (Question question : db.query(QuizDbHelper.sampleProbeSql(batch, selection), args)) {
+                if (questions.size() < SAMPLE_SIZE && chosen.add(question.getId())) {
+                    questions.add(question);
+                }
+            }
+        }
+        return questions;
+    }
+
+    // Verfahren davor und Rückfall für kleine Partitionen: alle IDs laden, ziehen, per IN (...) lesen
+    @Benchmark
+    public List<Question> sampleFromIds() throws SQLException {
+        int[] ids = db.queryIds(QuizDbHelper.SELECTION_CATEGORY_DIFFICULTY, partitionArgs);
+        int count = QuizDbHelper.sample(ids, SAMPLE_SIZE, random);
+
+        StringBuilder selection = new StringBuilder(QuestionsTable._ID).append(" IN (");
+        String[] selectionArgs = new String[count];
+        for (int i = 0; i < count; i++) {
+            selection.append(i == 0 ? "?" : ", ?");
+            selectionArgs[i] = String.valueOf(ids[i]);
+        }
+        selection.append(")");
+        return db.queryQuestions(selection.toString(), selectionArgs);
+    }
+
+    // QuizDbHelper.searchQuestions(): Präfixsuche über zwei Wörter, erste Seite
+    @Benchmark
+    public List<Question> search() throws SQLException {
+        return db.query(QuizDbHelper.SQL_SEARCH, QuizDbHelper.toMatchExpression("Haupt Fluss"), "20", "0");
+    }
+}
@@ -0,0 +1,91 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+/**
+ * Einzelne Frage per Position laden: Fragen-Pack (QuestionPackReader, gemappte
+ * Datei) gegen SQLite-Abfrage per ID, beides mit demselben Katalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class QuestionPackBenchmark {
+
+    private static final int BANK_SIZE = 10000;
+
+    private File packFile;
+    private File dbFile;
+    private QuestionPackReader pack;
+    private BenchmarkDatabase db;
+    private Random random;
+    private final Question pooled = new Question();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        List<Question> bank = QuestionBank.generate(BANK_SIZE, 1);
+
+        QuestionPackWriter writer = new QuestionPackWriter();
+        for (Question question : bank) {
+            writer.add(question);
+        }
+        packFile = File.createTempFile("quiz-benchmark", ".pack");
+        writer.writeTo(packFile);
+        pack = QuestionPackReader.open(packFile);
+
+        dbFile = File.createTempFile("quiz-benchmark", ".db");
+        db = BenchmarkDatabase.create(dbFile);
+        db.insert(bank);
+        random = new Random(2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        db.close();
+        if (!dbFile.delete()) {
+            dbFile.deleteOnExit();
+        }
+        // gemappt, unter Windows erst nach dem Beenden löschbar
+        if (!packFile.delete()) {
+            packFile.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public Question packGet() {
+        return pack.get(random.nextInt(BANK_SIZE));
+    }
+
+    // ohne neue Question, wie beim Blättern mit einem Pool
+    @Benchmark
+    public Question packGetInto() {
+        return pack.getInto(random.nextInt(BANK_SIZE), pooled);
+    }
+
+    @Benchmark
+    public int[] packPartition() {
+        return pack.getRecords(1, Question.DIFFICULTY_MEDIUM);
+    }
+
+    @Benchmark
+    public List<Question> sqliteGetById() throws SQLException {
+        return db.queryQuestions(QuestionsTable._ID + " = ?",
+                String.valueOf(random.nextInt(BANK_SIZE) + 1));
+    }
+}
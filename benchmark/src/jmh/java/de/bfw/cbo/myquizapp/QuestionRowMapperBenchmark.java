@@ -0,0 +1,133 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.bfw.cbo.myquizapp.QuizContract.QuestionsTable;
+
+/**
+ * Der echte QuestionRowMapper aus der App gegen das Mapping davor, das pro
+ * Zeile achtmal getColumnIndex() aufgerufen hat. Die Zeilen kommen aus einem
+ * MemoryCursor, die Antwort-Texte aus einem gefüllten OptionDictionary: der
+ * Unterschied liegt also nur im Mapping.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class QuestionRowMapperBenchmark {
+
+    // Spalten wie SELECT * FROM quiz_questions
+    private static final String[] COLUMNS = {
+            QuestionsTable._ID,
+            QuestionsTable.COLUMN_QUESTION,
+            QuestionsTable.COLUMN_OPTION1_ID,
+            QuestionsTable.COLUMN_OPTION2_ID,
+            QuestionsTable.COLUMN_OPTION3_ID,
+            QuestionsTable.COLUMN_ANSWER_NR,
+            QuestionsTable.COLUMN_DIFFICULTY,
+            QuestionsTable.COLUMN_CATEGORY_ID
+    };
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private MemoryCursor cursor;
+    private final OptionDictionary options = new OptionDictionary();
+    private final HashMap<String, Long> optionIds = new HashMap<>();
+    private Question[] pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Question> questions = QuestionBank.generate(rows, 1);
+        Object[][] values = new Object[questions.size()][];
+        for (int i = 0; i < values.length; i++) {
+            Question question = questions.get(i);
+            values[i] = new Object[]{
+                    (long) question.getId(),
+                    question.getQuestion(),
+                    optionId(question.getOption1()),
+                    optionId(question.getOption2()),
+                    optionId(question.getOption3()),
+                    (long) question.getAnswerNr(),
+                    (long) question.getDifficultyCode(),
+                    (long) question.getCategoryID()
+            };
+        }
+        cursor = new MemoryCursor(COLUMNS, values);
+        pool = new Question[rows];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new Question();
+        }
+    }
+
+    // wie OptionDictionary.idFor(), nur ohne DB: alle Texte sind danach im Speicher
+    private Long optionId(String text) {
+        if (text == null) {
+            return null;
+        }
+        Long id = optionIds.get(text);
+        if (id == null) {
+            id = (long) optionIds.size() + 1;
+            optionIds.put(text, id);
+            options.put(id.intValue(), text);
+        }
+        return id;
+    }
+
+    // so hat QuizDbHelper bis QuestionRowMapper gemappt, mit heutigem Schema
+    @Benchmark
+    public List<Question> columnIndexPerRow() {
+        cursor.reset();
+        ArrayList<Question> questionList = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            Question question = new Question();
+            question.setId(cursor.getInt(cursor.getColumnIndex(QuestionsTable._ID)));
+            question.setQuestion(cursor.getString(cursor.getColumnIndex(QuestionsTable.COLUMN_QUESTION)));
+            question.setOption1(options.get(null, cursor.getInt(cursor.getColumnIndex(QuestionsTable.COLUMN_OPTION1_ID))));
+            question.setOption2(options.get(null, cursor.getInt(cursor.getColumnIndex(QuestionsTable.COLUMN_OPTION2_ID))));
+            question.setOption3(options.get(null, cursor.getInt(cursor.getColumnIndex(QuestionsTable.COLUMN_OPTION3_ID))));
+            question.setAnswerNr(cursor.getInt(cursor.getColumnIndex(QuestionsTable.COLUMN_ANSWER_NR)));
+            question.setDifficultyLevel(Question.Difficulty.fromCode(
+                    cursor.getInt(cursor.getColumnIndex(QuestionsTable.COLUMN_DIFFICULTY))));
+            question.setCategoryID(cursor.getInt(cursor.getColumnIndex(QuestionsTable.COLUMN_CATEGORY_ID)));
+            questionList.add(question);
+        }
+        return questionList;
+    }
+
+    // QuizDbHelper.readQuestions(): ein Mapper pro Cursor, neue Question pro Zeile
+    @Benchmark
+    public List<Question> mapper() {
+        cursor.reset();
+        ArrayList<Question> questionList = new ArrayList<>(cursor.getCount());
+        QuestionRowMapper mapper = new QuestionRowMapper(cursor, null, options);
+        while (cursor.moveToNext()) {
+            questionList.add(mapper.map(cursor));
+        }
+        return questionList;
+    }
+
+    // mapInto() in vorhandene Objekte, ohne Allokation pro Zeile
+    @Benchmark
+    public Question[] mapperPooled() {
+        cursor.reset();
+        QuestionRowMapper mapper = new QuestionRowMapper(cursor, null, options);
+        int i = 0;
+        while (cursor.moveToNext()) {
+            mapper.mapInto(cursor, pool[i++]);
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,76 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auswahl der Fragen eines Durchgangs im Speicher: komplett mischen,
+ * Stichprobe ziehen und adaptiv Frage für Frage ziehen.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class QuestionSelectionBenchmark {
+
+    private static final int BANK_SIZE = 10000;
+    private static final long TIME_LIMIT = 40000;
+    private static final int SAMPLE_SIZE = 20;
+
+    private List<Question> bank;
+    private int[] ids;
+    private long[] answerTimes;
+    private boolean[] answersCorrect;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        bank = QuestionBank.generate(BANK_SIZE, 1);
+        ids = QuestionBank.ids(bank);
+        random = new Random(2);
+
+        // Antworten vorab würfeln, damit nur der Scheduler gemessen wird
+        answerTimes = new long[BANK_SIZE];
+        answersCorrect = new boolean[BANK_SIZE];
+        for (int i = 0; i < BANK_SIZE; i++) {
+            answerTimes[i] = 1000 + random.nextInt((int) TIME_LIMIT);
+            answersCorrect[i] = random.nextInt(10) < 7;
+        }
+    }
+
+    // ListQuestionSource.shuffled(): Kopie des ganzen Katalogs mischen
+    @Benchmark
+    public QuestionSource shuffleBank() {
+        return ListQuestionSource.shuffled(bank, random);
+    }
+
+    // QuizDbHelper.sample(): partieller Fisher-Yates auf den IDs
+    @Benchmark
+    public int sampleIds() {
+        int count = QuizDbHelper.sample(ids, SAMPLE_SIZE, random);
+        return ids[count - 1];
+    }
+
+    // AdaptiveQuestionScheduler: alle Fragen des Katalogs einzeln ziehen, Zeit pro Frage
+    @Benchmark
+    @OperationsPerInvocation(BANK_SIZE)
+    public int adaptivePicks() {
+        AdaptiveQuestionScheduler scheduler = new AdaptiveQuestionScheduler(bank, TIME_LIMIT, random);
+        int checksum = 0;
+        for (int i = 0; i < BANK_SIZE; i++) {
+            Question question = scheduler.next();
+            scheduler.onAnswered(question, answersCorrect[i], answerTimes[i]);
+            checksum += question.getId();
+        }
+        return checksum;
+    }
+}
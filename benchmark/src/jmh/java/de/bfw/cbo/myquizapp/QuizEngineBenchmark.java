@@ -0,0 +1,103 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Komplette Durchgänge der QuizEngine auf virtueller Zeit, mit jedem
+ * Sekunden-Tick der Uhr. Ergebnis in Durchgängen pro Minute.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@State(Scope.Thread)
+public class QuizEngineBenchmark {
+
+    private static final long TIME_LIMIT = 40000;
+
+    @Param({"10", "50"})
+    public int questionsPerSession;
+
+    // Zeit nur von Hand weitergestellt
+    private static class VirtualTimeSource implements QuizClock.TimeSource {
+        long now;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    // tut, was die QuizActivity tut, nur ohne Views
+    private static class CountingListener implements QuizEngine.Listener {
+        int events;
+
+        @Override
+        public void onQuestion(QuizEngine engine, Question question) {
+            events++;
+        }
+
+        @Override
+        public void onTick(QuizEngine engine) {
+            events++;
+        }
+
+        @Override
+        public void onAnswered(QuizEngine engine, Question question, int answerNr, boolean correct,
+                               long timeTakenMillis) {
+            events++;
+        }
+
+        @Override
+        public void onFinished(QuizEngine engine) {
+            events++;
+        }
+    }
+
+    private final VirtualTimeSource time = new VirtualTimeSource();
+    private final CountingListener listener = new CountingListener();
+    private List<Question> questions;
+    // pro Frage: gewählte Antwort und Zeitpunkt, ein Teil läuft in den Timeout
+    private int[] answers;
+    private long[] answerTimes;
+
+    @Setup
+    public void setUp() {
+        questions = QuestionBank.generate(questionsPerSession, 1);
+        Random random = new Random(2);
+        answers = new int[questionsPerSession];
+        answerTimes = new long[questionsPerSession];
+        for (int i = 0; i < questionsPerSession; i++) {
+            answers[i] = random.nextInt(3) + 1;
+            answerTimes[i] = random.nextInt((int) TIME_LIMIT + 5000);
+        }
+    }
+
+    @Benchmark
+    public int session() {
+        QuizEngine engine = new QuizEngine(new ListQuestionSource(questions), TIME_LIMIT,
+                time, listener);
+        QuizClock clock = engine.getClock();
+        int i = 0;
+        while (engine.showNextQuestion()) {
+            engine.selectAnswer(answers[i]);
+            // bis zur Antwort ticken, bei Ablauf prüft die Engine selbst
+            while (clock.isRunning() && clock.elapsed() + clock.millisUntilNextTick() <= answerTimes[i]) {
+                time.now += clock.millisUntilNextTick();
+                clock.tick();
+            }
+            engine.checkAnswer();
+            i++;
+        }
+        return engine.getScore() + listener.events;
+    }
+}
@@ -0,0 +1,43 @@
+package de.bfw.cbo.myquizapp;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+/**
+ * Speicherbedarf als zusätzliches Ergebnis neben der Zeit, steht im JSON als
+ * secondaryMetrics dataBytes und indexBytes. JMH summiert EVENTS über alle
+ * Mess-Iterationen, deshalb wird nur in der ersten gezählt.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class StorageSize {
+
+    // Tabellen (bei DICTIONARY mit quiz_option_strings) und Indizes, in Bytes
+    public long dataBytes;
+    public long indexBytes;
+
+    private boolean pending;
+    private boolean reported;
+
+    @Setup(Level.Iteration)
+    public void reset(IterationParams params) {
+        dataBytes = 0;
+        indexBytes = 0;
+        pending = !reported && params.getType() == IterationType.MEASUREMENT;
+    }
+
+    // aus dem Benchmark aufrufen, zählt einmal pro Trial
+    void report(long data, long index) {
+        if (pending) {
+            dataBytes = data;
+            indexBytes = index;
+            pending = false;
+            reported = true;
+        }
+    }
+}